@@ -58,9 +58,6 @@ echo -e "Changed to project root: \e[32m$(pwd)\e[0m"
 echo "=================================================================="
 echo "Available commands:"
 echo ""
-echo "  To start unoserver: "
-echo -e "\e[34m    nohup /opt/venv/bin/unoserver --port 2003 --interface 0.0.0.0 > /tmp/unoserver.log 2>&1 &\e[0m"
-echo
 echo "  To start the application: "
 echo -e "\e[34m    gradle bootRun\e[0m"
 echo ""
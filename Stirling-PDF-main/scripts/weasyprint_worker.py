@@ -0,0 +1,87 @@
+"""Long-lived WeasyPrint worker.
+
+Reads one JSON request per line from stdin and answers each with one JSON line on
+stdout:
+
+    {"input": "/path/doc.html", "output": "/path/doc.pdf", "base_url": "/path"}
+    {"ok": true} or {"ok": false, "error": "..."}
+
+The process and its font setup are started once for many documents, and the bytes of
+fetched stylesheets, fonts and images are kept between documents, up to a total size,
+so assets shared by many documents are only read once. Decoded images are only kept
+for the document being converted.
+"""
+import json
+import os
+import sys
+from collections import OrderedDict
+from urllib.parse import urlparse
+from urllib.request import url2pathname
+
+# Keep stdout for the protocol; anything else printed goes to stderr
+protocol = os.fdopen(os.dup(sys.stdout.fileno()), "w", encoding="utf-8")
+os.dup2(sys.stderr.fileno(), sys.stdout.fileno())
+
+from weasyprint import HTML, default_url_fetcher  # noqa: E402
+from weasyprint.text.fonts import FontConfiguration  # noqa: E402
+
+# Local files keyed by their real path, least recently used first. Assets shared between
+# documents are links to one copy per content hash, so they are read once however many
+# documents use them.
+resource_cache = OrderedDict()
+resource_cache_bytes = 0
+MAX_CACHED_BYTES = 64 * 1024 * 1024
+MAX_CACHED_RESOURCE_SIZE = 8 * 1024 * 1024
+
+
+def url_fetcher(url):
+    global resource_cache_bytes
+    if not url.startswith("file:"):
+        return default_url_fetcher(url)
+    key = os.path.realpath(url2pathname(urlparse(url).path))
+    cached = resource_cache.get(key)
+    if cached is None:
+        cached = default_url_fetcher(url)
+        file_obj = cached.pop("file_obj", None)
+        if file_obj is not None:
+            with file_obj:
+                cached["string"] = file_obj.read()
+        size = len(cached.get("string") or b"")
+        if size <= MAX_CACHED_RESOURCE_SIZE:
+            resource_cache[key] = cached
+            resource_cache_bytes += size
+            while resource_cache_bytes > MAX_CACHED_BYTES:
+                _, evicted = resource_cache.popitem(last=False)
+                resource_cache_bytes -= len(evicted.get("string") or b"")
+    else:
+        resource_cache.move_to_end(key)
+    # Relative URLs inside the resource resolve against the document that asked for it
+    return dict(cached, redirected_url=url)
+
+
+def convert(request):
+    HTML(
+        filename=request["input"],
+        base_url=request.get("base_url"),
+        encoding="utf-8",
+        url_fetcher=url_fetcher,
+    ).write_pdf(
+        request["output"],
+        # Per document, so @font-face rules of one document do not leak into the next
+        font_config=FontConfiguration(),
+        # Decoded images can be far larger than their files, so they are not kept
+        cache={},
+        pdf_forms=True,
+    )
+
+
+for line in sys.stdin:
+    if not line.strip():
+        continue
+    try:
+        convert(json.loads(line))
+        response = {"ok": True}
+    except Exception as e:  # report the failure and keep serving
+        response = {"ok": False, "error": "%s: %s" % (type(e).__name__, e)}
+    protocol.write(json.dumps(response) + "\n")
+    protocol.flush()
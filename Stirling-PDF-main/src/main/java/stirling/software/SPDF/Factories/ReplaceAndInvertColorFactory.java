@@ -5,6 +5,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import stirling.software.SPDF.model.api.misc.HighContrastColorCombination;
 import stirling.software.SPDF.model.api.misc.ReplaceAndInvert;
+import stirling.software.SPDF.service.PdfRasterizationService;
 import stirling.software.SPDF.utils.misc.CustomColorReplaceStrategy;
 import stirling.software.SPDF.utils.misc.InvertFullColorStrategy;
 import stirling.software.SPDF.utils.misc.ReplaceAndInvertColorStrategy;
@@ -12,6 +13,12 @@ import stirling.software.SPDF.utils.misc.ReplaceAndInvertColorStrategy;
 @Component
 public class ReplaceAndInvertColorFactory {
 
+    private final PdfRasterizationService rasterizationService;
+
+    public ReplaceAndInvertColorFactory(PdfRasterizationService rasterizationService) {
+        this.rasterizationService = rasterizationService;
+    }
+
     public ReplaceAndInvertColorStrategy replaceAndInvert(
             MultipartFile file,
             ReplaceAndInvert replaceAndInvertOption,
@@ -31,7 +38,7 @@ public class ReplaceAndInvertColorFactory {
 
         } else if (replaceAndInvertOption == ReplaceAndInvert.FULL_INVERSION) {
 
-            return new InvertFullColorStrategy(file, replaceAndInvertOption);
+            return new InvertFullColorStrategy(file, replaceAndInvertOption, rasterizationService);
         }
 
         return null;
@@ -28,6 +28,7 @@ import stirling.software.SPDF.UI.WebBrowser;
 import stirling.software.SPDF.config.ConfigInitializer;
 import stirling.software.SPDF.config.InstallationPathConfig;
 import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.ProcessExecutor;
 import stirling.software.SPDF.utils.UrlUtils;
 
 @Slf4j
@@ -143,6 +144,7 @@ public class SPDFApplication {
     public void init() {
         baseUrlStatic = this.baseUrl;
         contextPathStatic = this.contextPath;
+        ProcessExecutor.setApplicationProperties(applicationProperties);
         String url = baseUrl + ":" + getStaticPort() + contextPath;
         if (webBrowser != null
                 && Boolean.parseBoolean(System.getProperty("STIRLING_PDF_DESKTOP_UI", "false"))) {
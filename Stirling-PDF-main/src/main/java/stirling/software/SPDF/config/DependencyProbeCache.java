@@ -0,0 +1,117 @@
+package stirling.software.SPDF.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers the results of external dependency probes between restarts. Each result is stored with
+ * a fingerprint of what it depends on, the PATH and the location and modification time of the
+ * binary, and is only reused while that fingerprint is unchanged.
+ */
+@Slf4j
+class DependencyProbeCache {
+
+    private final Path cacheFile;
+    private final Properties entries = new Properties();
+
+    DependencyProbeCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+        if (Files.isRegularFile(cacheFile)) {
+            try (InputStream in = Files.newInputStream(cacheFile)) {
+                entries.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                log.debug("Ignoring unreadable dependency probe cache {}", cacheFile, e);
+                entries.clear();
+            }
+        }
+    }
+
+    /** Returns the cached result for {@code key}, or {@code null} if unknown or outdated. */
+    synchronized Boolean get(String key, String fingerprint) {
+        String cached = entries.getProperty(key);
+        if (cached == null) {
+            return null;
+        }
+        int separator = cached.lastIndexOf('|');
+        if (separator < 0 || !cached.substring(0, separator).equals(fingerprint)) {
+            return null;
+        }
+        return Boolean.valueOf(cached.substring(separator + 1));
+    }
+
+    synchronized void put(String key, String fingerprint, boolean available) {
+        entries.setProperty(key, fingerprint + "|" + available);
+    }
+
+    synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    /** Writes the cache, replacing the previous file in one step. */
+    synchronized void save() {
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            Path tempFile =
+                    Files.createTempFile(
+                            cacheFile.toAbsolutePath().getParent(), "dependency-probes", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                entries.store(out, "External dependency probe results");
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.debug("Could not write dependency probe cache {}", cacheFile, e);
+        }
+    }
+
+    /**
+     * Describes the binary that {@code command} resolves to: the PATH it is looked up in and the
+     * location and modification time of the first match, so installing, removing or updating the
+     * binary changes the fingerprint.
+     */
+    static String fingerprint(String command) {
+        String path = System.getenv("PATH");
+        StringBuilder fingerprint = new StringBuilder(path != null ? path : "").append('#');
+        File binary = resolve(command, path);
+        if (binary == null) {
+            fingerprint.append("missing");
+        } else {
+            fingerprint.append(binary.getAbsolutePath()).append('@').append(binary.lastModified());
+        }
+        return fingerprint.toString();
+    }
+
+    private static File resolve(String command, String path) {
+        File direct = new File(command);
+        if (direct.isAbsolute()) {
+            return direct.isFile() ? direct : null;
+        }
+        if (path == null) {
+            return null;
+        }
+        String pathExt = System.getenv("PATHEXT");
+        String[] extensions =
+                pathExt != null
+                        ? ("" + File.pathSeparator + pathExt).split(File.pathSeparator)
+                        : new String[] {""};
+        for (String directory : path.split(File.pathSeparator)) {
+            if (directory.isEmpty()) {
+                continue;
+            }
+            for (String extension : extensions) {
+                File candidate = new File(directory, command + extension.toLowerCase());
+                if (candidate.isFile()) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -204,9 +204,6 @@ public class EndpointConfiguration {
         addEndpointToGroup("LibreOffice", "pdf-to-xml");
         addEndpointToGroup("LibreOffice", "pdf-to-pdfa");
 
-        // Unoconvert
-        addEndpointToGroup("Unoconvert", "file-to-pdf");
-
         addEndpointToGroup("tesseract", "ocr-pdf");
 
         // Java
@@ -1,7 +1,9 @@
 package stirling.software.SPDF.config;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -22,9 +24,21 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 public class EndpointInspector implements ApplicationListener<ContextRefreshedEvent> {
     private static final Logger logger = LoggerFactory.getLogger(EndpointInspector.class);
 
+    // Number of recently checked URIs whose result is remembered
+    static final int RECENT_RESULTS_CAPACITY = 1024;
+
     private final ApplicationContext applicationContext;
     private final Set<String> validGetEndpoints = new HashSet<>();
-    private boolean endpointsDiscovered = false;
+    private volatile EndpointPathMatcher matcher;
+
+    private final Map<String, Boolean> recentResults =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                            return size() > RECENT_RESULTS_CAPACITY;
+                        }
+                    });
 
     @Autowired
     public EndpointInspector(ApplicationContext applicationContext) {
@@ -33,10 +47,24 @@ public class EndpointInspector implements ApplicationListener<ContextRefreshedEv
 
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
-        if (!endpointsDiscovered) {
-            discoverEndpoints();
-            endpointsDiscovered = true;
+        getMatcher();
+    }
+
+    /** Discovers the endpoints on first use and compiles them for matching. */
+    private EndpointPathMatcher getMatcher() {
+        EndpointPathMatcher current = matcher;
+        if (current == null) {
+            synchronized (this) {
+                current = matcher;
+                if (current == null) {
+                    discoverEndpoints();
+                    current = new EndpointPathMatcher(validGetEndpoints);
+                    recentResults.clear();
+                    matcher = current;
+                }
+            }
         }
+        return current;
     }
 
     private void discoverEndpoints() {
@@ -124,83 +152,18 @@ public class EndpointInspector implements ApplicationListener<ContextRefreshedEv
     }
 
     public boolean isValidGetEndpoint(String uri) {
-        if (!endpointsDiscovered) {
-            discoverEndpoints();
-            endpointsDiscovered = true;
-        }
-
-        if (validGetEndpoints.contains(uri)) {
-            return true;
+        EndpointPathMatcher current = getMatcher();
+        Boolean cached = recentResults.get(uri);
+        if (cached != null) {
+            return cached;
         }
-
-        if (matchesWildcardOrPathVariable(uri)) {
-            return true;
-        }
-
-        if (matchesPathSegments(uri)) {
-            return true;
-        }
-
-        return false;
-    }
-
-    private boolean matchesWildcardOrPathVariable(String uri) {
-        for (String pattern : validGetEndpoints) {
-            if (pattern.contains("*") || pattern.contains("{")) {
-                int wildcardIndex = pattern.indexOf('*');
-                int variableIndex = pattern.indexOf('{');
-
-                int cutoffIndex;
-                if (wildcardIndex < 0) {
-                    cutoffIndex = variableIndex;
-                } else if (variableIndex < 0) {
-                    cutoffIndex = wildcardIndex;
-                } else {
-                    cutoffIndex = Math.min(wildcardIndex, variableIndex);
-                }
-
-                String staticPrefix = pattern.substring(0, cutoffIndex);
-
-                if (uri.startsWith(staticPrefix)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean matchesPathSegments(String uri) {
-        for (String pattern : validGetEndpoints) {
-            if (!pattern.contains("*") && !pattern.contains("{")) {
-                String[] patternSegments = pattern.split("/");
-                String[] uriSegments = uri.split("/");
-
-                if (uriSegments.length < patternSegments.length) {
-                    continue;
-                }
-
-                boolean match = true;
-                for (int i = 0; i < patternSegments.length; i++) {
-                    if (!patternSegments[i].equals(uriSegments[i])) {
-                        match = false;
-                        break;
-                    }
-                }
-
-                if (match) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        boolean valid = current.matches(uri);
+        recentResults.put(uri, valid);
+        return valid;
     }
 
     public Set<String> getValidGetEndpoints() {
-        if (!endpointsDiscovered) {
-            discoverEndpoints();
-            endpointsDiscovered = true;
-        }
-        return new HashSet<>(validGetEndpoints);
+        return getMatcher().patterns();
     }
 
     private void logAllEndpoints() {
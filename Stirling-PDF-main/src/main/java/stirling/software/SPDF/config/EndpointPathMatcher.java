@@ -0,0 +1,91 @@
+package stirling.software.SPDF.config;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Endpoint patterns compiled once for repeated URI checks. A URI matches when it equals a pattern,
+ * starts with the static part of a pattern containing wildcards or path variables, or starts with
+ * all the path segments of a literal pattern.
+ */
+final class EndpointPathMatcher {
+
+    private final Set<String> exactPaths;
+
+    // Static prefixes of wildcard patterns, with any prefix that extends another one removed
+    private final NavigableSet<String> wildcardPrefixes = new TreeSet<>();
+
+    private final SegmentNode literalRoot = new SegmentNode();
+
+    EndpointPathMatcher(Collection<String> patterns) {
+        exactPaths = Set.copyOf(patterns);
+        NavigableSet<String> staticPrefixes = new TreeSet<>();
+        for (String pattern : patterns) {
+            int wildcardIndex = pattern.indexOf('*');
+            int variableIndex = pattern.indexOf('{');
+            if (wildcardIndex < 0 && variableIndex < 0) {
+                SegmentNode node = literalRoot;
+                for (String segment : pattern.split("/")) {
+                    node = node.children.computeIfAbsent(segment, key -> new SegmentNode());
+                }
+                node.terminal = true;
+                continue;
+            }
+            int cutoffIndex;
+            if (wildcardIndex < 0) {
+                cutoffIndex = variableIndex;
+            } else if (variableIndex < 0) {
+                cutoffIndex = wildcardIndex;
+            } else {
+                cutoffIndex = Math.min(wildcardIndex, variableIndex);
+            }
+            staticPrefixes.add(pattern.substring(0, cutoffIndex));
+        }
+        // In sorted order a prefix comes before every prefix extending it
+        for (String staticPrefix : staticPrefixes) {
+            String floor = wildcardPrefixes.floor(staticPrefix);
+            if (floor == null || !staticPrefix.startsWith(floor)) {
+                wildcardPrefixes.add(staticPrefix);
+            }
+        }
+    }
+
+    boolean matches(String uri) {
+        if (exactPaths.contains(uri)) {
+            return true;
+        }
+        // No remaining prefix extends another, so only the closest one below the URI can match
+        String floor = wildcardPrefixes.floor(uri);
+        if (floor != null && uri.startsWith(floor)) {
+            return true;
+        }
+        SegmentNode node = literalRoot;
+        if (node.terminal) {
+            return true;
+        }
+        for (String segment : uri.split("/")) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<String> patterns() {
+        return new HashSet<>(exactPaths);
+    }
+
+    private static final class SegmentNode {
+        private final Map<String, SegmentNode> children = new HashMap<>();
+        private boolean terminal;
+    }
+}
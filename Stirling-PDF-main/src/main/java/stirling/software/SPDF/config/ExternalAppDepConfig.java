@@ -1,9 +1,15 @@
 package stirling.software.SPDF.config;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.springframework.context.annotation.Configuration;
@@ -16,17 +22,38 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ExternalAppDepConfig {
 
+    // Upper bound for a single probe, so a hanging binary cannot hold back the others
+    static final long PROBE_TIMEOUT_SECONDS = 5;
+
+    private static final boolean WINDOWS =
+            System.getProperty("os.name").toLowerCase().contains("windows");
+
     private final EndpointConfiguration endpointConfiguration;
+    private final DependencyProbeCache probeCache;
 
     private final String weasyprintPath;
-    private final String unoconvPath;
     private final Map<String, List<String>> commandToGroupMapping;
 
+    private CompletableFuture<Void> dependencyChecks = CompletableFuture.completedFuture(null);
+
     public ExternalAppDepConfig(
             EndpointConfiguration endpointConfiguration, RuntimePathConfig runtimePathConfig) {
+        this(
+                endpointConfiguration,
+                runtimePathConfig,
+                new DependencyProbeCache(
+                        Paths.get(
+                                InstallationPathConfig.getConfigPath(),
+                                "dependency-probes.properties")));
+    }
+
+    ExternalAppDepConfig(
+            EndpointConfiguration endpointConfiguration,
+            RuntimePathConfig runtimePathConfig,
+            DependencyProbeCache probeCache) {
         this.endpointConfiguration = endpointConfiguration;
+        this.probeCache = probeCache;
         weasyprintPath = runtimePathConfig.getWeasyPrintPath();
-        unoconvPath = runtimePathConfig.getUnoConvertPath();
 
         commandToGroupMapping =
                 new HashMap<>() {
@@ -35,7 +62,6 @@ public class ExternalAppDepConfig {
                         put("soffice", List.of("LibreOffice"));
                         put(weasyprintPath, List.of("Weasyprint"));
                         put("pdftohtml", List.of("Pdftohtml"));
-                        put(unoconvPath, List.of("Unoconvert"));
                         put("qpdf", List.of("qpdf"));
                         put("tesseract", List.of("tesseract"));
                     }
@@ -43,18 +69,41 @@ public class ExternalAppDepConfig {
     }
 
     private boolean isCommandAvailable(String command) {
+        String key = "which:" + command;
+        String fingerprint = DependencyProbeCache.fingerprint(command);
+        Boolean cached = probeCache.get(key, fingerprint);
+        if (cached != null) {
+            log.debug("Using cached probe result for {}: {}", command, cached);
+            return cached;
+        }
+        boolean available =
+                runProbe(WINDOWS ? List.of("where", command) : List.of("which", command));
+        probeCache.put(key, fingerprint, available);
+        return available;
+    }
+
+    /** Runs a probe command and reports whether it exited successfully within the timeout. */
+    private boolean runProbe(List<String> command) {
         try {
-            ProcessBuilder processBuilder = new ProcessBuilder();
-            if (System.getProperty("os.name").toLowerCase().contains("windows")) {
-                processBuilder.command("where", command);
-            } else {
-                processBuilder.command("which", command);
+            Process process =
+                    new ProcessBuilder(command)
+                            .redirectErrorStream(true)
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                            .start();
+            if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                log.warn(
+                        "Dependency probe {} did not finish within {} seconds",
+                        command,
+                        PROBE_TIMEOUT_SECONDS);
+                return false;
             }
-            Process process = processBuilder.start();
-            int exitCode = process.waitFor();
-            return exitCode == 0;
+            return process.exitValue() == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
-            log.debug("Error checking for command {}: {}", command, e.getMessage());
+            log.debug("Error running probe {}: {}", command, e.getMessage());
             return false;
         }
     }
@@ -84,38 +133,34 @@ public class ExternalAppDepConfig {
         return word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase();
     }
 
-    private void checkDependencyAndDisableGroup(String command) {
-        boolean isAvailable = isCommandAvailable(command);
-        if (!isAvailable) {
-            List<String> affectedGroups = commandToGroupMapping.get(command);
-            if (affectedGroups != null) {
-                for (String group : affectedGroups) {
-                    List<String> affectedFeatures = getAffectedFeatures(group);
-                    endpointConfiguration.disableGroup(group);
-                    log.warn(
-                            "Missing dependency: {} - Disabling group: {} (Affected features: {})",
-                            command,
-                            group,
-                            affectedFeatures != null && !affectedFeatures.isEmpty()
-                                    ? String.join(", ", affectedFeatures)
-                                    : "unknown");
-                }
+    private void disableGroupsFor(String command) {
+        List<String> affectedGroups = commandToGroupMapping.get(command);
+        if (affectedGroups != null) {
+            for (String group : affectedGroups) {
+                List<String> affectedFeatures = getAffectedFeatures(group);
+                endpointConfiguration.disableGroup(group);
+                log.warn(
+                        "Missing dependency: {} - Disabling group: {} (Affected features: {})",
+                        command,
+                        group,
+                        affectedFeatures != null && !affectedFeatures.isEmpty()
+                                ? String.join(", ", affectedFeatures)
+                                : "unknown");
             }
         }
     }
 
-    @PostConstruct
-    public void checkDependencies() {
-        // Check core dependencies
-        checkDependencyAndDisableGroup("tesseract");
-        checkDependencyAndDisableGroup("soffice");
-        checkDependencyAndDisableGroup("qpdf");
-        checkDependencyAndDisableGroup(weasyprintPath);
-        checkDependencyAndDisableGroup("pdftohtml");
-        checkDependencyAndDisableGroup(unoconvPath);
-        // Special handling for Python/OpenCV dependencies
-        boolean pythonAvailable = isCommandAvailable("python3") || isCommandAvailable("python");
-        if (!pythonAvailable) {
+    private void checkPythonDependencies() {
+        // Windows installs usually only provide a working "python"
+        String python = null;
+        for (String candidate :
+                WINDOWS ? List.of("python", "python3") : List.of("python3", "python")) {
+            if (isCommandAvailable(candidate)) {
+                python = candidate;
+                break;
+            }
+        }
+        if (python == null) {
             List<String> pythonFeatures = getAffectedFeatures("Python");
             List<String> openCVFeatures = getAffectedFeatures("OpenCV");
             endpointConfiguration.disableGroup("Python");
@@ -124,33 +169,75 @@ public class ExternalAppDepConfig {
                     "Missing dependency: Python - Disabling Python features: {} and OpenCV features: {}",
                     String.join(", ", pythonFeatures),
                     String.join(", ", openCVFeatures));
+            return;
+        }
+        // If Python is available, check for OpenCV. Only a successful import is remembered, as
+        // installing the module does not change the interpreter's fingerprint.
+        String key = "opencv:" + python;
+        String pythonPath = System.getenv("PYTHONPATH");
+        String fingerprint =
+                DependencyProbeCache.fingerprint(python)
+                        + "#"
+                        + (pythonPath != null ? pythonPath : "");
+        if (Boolean.TRUE.equals(probeCache.get(key, fingerprint))) {
+            return;
+        }
+        if (runProbe(List.of(python, "-c", "import cv2"))) {
+            probeCache.put(key, fingerprint, true);
         } else {
-            // If Python is available, check for OpenCV
-            try {
-                ProcessBuilder processBuilder = new ProcessBuilder();
-                if (System.getProperty("os.name").toLowerCase().contains("windows")) {
-                    processBuilder.command("python", "-c", "import cv2");
-                } else {
-                    processBuilder.command("python3", "-c", "import cv2");
-                }
-                Process process = processBuilder.start();
-                int exitCode = process.waitFor();
-                if (exitCode != 0) {
-                    List<String> openCVFeatures = getAffectedFeatures("OpenCV");
-                    endpointConfiguration.disableGroup("OpenCV");
-                    log.warn(
-                            "OpenCV not available in Python - Disabling OpenCV features: {}",
-                            String.join(", ", openCVFeatures));
-                }
-            } catch (Exception e) {
-                List<String> openCVFeatures = getAffectedFeatures("OpenCV");
-                endpointConfiguration.disableGroup("OpenCV");
-                log.warn(
-                        "Error checking OpenCV: {} - Disabling OpenCV features: {}",
-                        e.getMessage(),
-                        String.join(", ", openCVFeatures));
-            }
+            probeCache.remove(key);
+            List<String> openCVFeatures = getAffectedFeatures("OpenCV");
+            endpointConfiguration.disableGroup("OpenCV");
+            log.warn(
+                    "OpenCV not available in Python - Disabling OpenCV features: {}",
+                    String.join(", ", openCVFeatures));
         }
-        endpointConfiguration.logDisabledEndpointsSummary();
+    }
+
+    /**
+     * Probes every external dependency concurrently. Groups stay enabled until their probe reports
+     * the dependency missing, so startup does not wait for slow binaries; the results are persisted
+     * so unchanged dependencies are not probed again on the next start.
+     */
+    @PostConstruct
+    public void checkDependencies() {
+        List<String> commands =
+                List.of("tesseract", "soffice", "qpdf", weasyprintPath, "pdftohtml");
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        commands.size() + 1,
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "dependency-probe");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        List<CompletableFuture<Void>> checks = new ArrayList<>();
+        for (String command : commands) {
+            checks.add(
+                    CompletableFuture.runAsync(
+                            () -> {
+                                if (!isCommandAvailable(command)) {
+                                    disableGroupsFor(command);
+                                }
+                            },
+                            executor));
+        }
+        checks.add(CompletableFuture.runAsync(this::checkPythonDependencies, executor));
+        dependencyChecks =
+                CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new))
+                        .whenComplete(
+                                (result, error) -> {
+                                    executor.shutdown();
+                                    if (error != null) {
+                                        log.warn("Dependency check failed", error);
+                                    }
+                                    probeCache.save();
+                                    endpointConfiguration.logDisabledEndpointsSummary();
+                                });
+    }
+
+    /** Completes once every dependency probe has finished and its groups have been updated. */
+    public CompletableFuture<Void> getDependencyChecks() {
+        return dependencyChecks;
     }
 }
@@ -0,0 +1,97 @@
+package stirling.software.SPDF.config;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.utils.ProcessExecutor;
+
+/**
+ * Limits how many API operations are processed at the same time. Uploads are read before a permit
+ * is taken, so with virtual threads any number of clients can be sending files or waiting while the
+ * CPU heavy document processing stays bounded. The permit only covers work done on the request
+ * thread itself: {@link ProcessExecutor} hands it back while an external tool such as OCR or
+ * LibreOffice is running and takes it again once the tool has finished.
+ */
+@Slf4j
+public class ProcessingConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final ThreadLocal<Semaphore> heldPermit = new ThreadLocal<>();
+
+    private final Semaphore permits;
+
+    public ProcessingConcurrencyFilter(int maxConcurrentOperations) {
+        this.permits = new Semaphore(maxConcurrentOperations, true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/v1/");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            try {
+                request.getParts();
+            } catch (IllegalStateException | ServletException e) {
+                // Left for the multipart resolver to report
+                log.debug("Could not read multipart request before processing", e);
+            }
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting to process the request", e);
+        }
+        heldPermit.set(permits);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            heldPermit.remove();
+            permits.release();
+        }
+    }
+
+    /**
+     * Gives up the processing permit of the current thread, if it holds one, until the returned
+     * handle is closed. Used around waits that do not need a CPU, such as an external process.
+     */
+    public static PermitRelease releaseHeldPermit() {
+        Semaphore held = heldPermit.get();
+        if (held == null) {
+            return () -> {};
+        }
+        heldPermit.remove();
+        held.release();
+        return () -> {
+            held.acquireUninterruptibly();
+            heldPermit.set(held);
+        };
+    }
+
+    /** Takes the released permit back. */
+    @FunctionalInterface
+    public interface PermitRelease extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+}
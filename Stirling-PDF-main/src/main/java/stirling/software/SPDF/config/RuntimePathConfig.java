@@ -20,7 +20,6 @@ public class RuntimePathConfig {
     private final ApplicationProperties properties;
     private final String basePath;
     private final String weasyPrintPath;
-    private final String unoConvertPath;
 
     // Pipeline paths
     private final String pipelineWatchedFoldersPath;
@@ -56,17 +55,12 @@ public class RuntimePathConfig {
 
         // Initialize Operation paths
         String defaultWeasyPrintPath = isDocker ? "/opt/venv/bin/weasyprint" : "weasyprint";
-        String defaultUnoConvertPath = isDocker ? "/opt/venv/bin/unoconvert" : "unoconvert";
 
         Operations operations = properties.getSystem().getCustomPaths().getOperations();
         this.weasyPrintPath =
                 resolvePath(
                         defaultWeasyPrintPath,
                         operations != null ? operations.getWeasyprint() : null);
-        this.unoConvertPath =
-                resolvePath(
-                        defaultUnoConvertPath,
-                        operations != null ? operations.getUnoconvert() : null);
     }
 
     private String resolvePath(String defaultPath, String customPath) {
@@ -0,0 +1,34 @@
+package stirling.software.SPDF.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import jakarta.annotation.PostConstruct;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.utils.ProcessExecutor;
+
+/**
+ * Active when {@code system.virtualThreads} is enabled. Spring Boot then serves requests on virtual
+ * threads; this moves the external process stream readers over as well and keeps the number of
+ * operations processed at once to one per CPU core.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    @PostConstruct
+    public void init() {
+        ProcessExecutor.useVirtualThreads(true);
+        log.info("Virtual threads enabled for request handling and external processes");
+    }
+
+    @Bean
+    public ProcessingConcurrencyFilter processingConcurrencyFilter() {
+        return new ProcessingConcurrencyFilter(Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,151 @@
+package stirling.software.SPDF.config.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.model.User;
+
+/**
+ * Short lived cache of users resolved from an API key, so that automated clients sending many
+ * requests do not hit the database on every call. Entries are keyed by a SHA-256 hash of the key,
+ * expire after {@link #TIME_TO_LIVE_MILLIS}, and are dropped by {@link UserService} whenever a
+ * user's key, role, enabled state or existence changes.
+ */
+@Component
+@Slf4j
+public class ApiKeyAuthenticationCache {
+
+    static final int MAX_ENTRIES = 10_000;
+
+    static final long TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    /** A user resolved from an API key together with the authorities granted to it. */
+    public record CachedApiKeyUser(
+            User user, List<SimpleGrantedAuthority> authorities, long expiresAt) {
+
+        public boolean isEnabled() {
+            return user.isEnabled();
+        }
+    }
+
+    private final Map<String, CachedApiKeyUser> entries =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedApiKeyUser> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public ApiKeyAuthenticationCache(Optional<MeterRegistry> meterRegistry) {
+        meterRegistry.ifPresent(this::registerMetrics);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("security.apikey.cache", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("API key lookups answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("security.apikey.cache", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("API key lookups that went to the database")
+                .register(registry);
+        Gauge.builder("security.apikey.cache.size", this, ApiKeyAuthenticationCache::size)
+                .register(registry);
+        Gauge.builder("security.apikey.cache.hit.ratio", this, ApiKeyAuthenticationCache::hitRate)
+                .register(registry);
+    }
+
+    /** Returns the cached user for {@code apiKey}, or empty if it is unknown or expired. */
+    public Optional<CachedApiKeyUser> get(String apiKey) {
+        String key = hash(apiKey);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedApiKeyUser cached = entries.get(key);
+            if (cached != null && cached.expiresAt() > now) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            if (cached != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public CachedApiKeyUser put(String apiKey, User user) {
+        List<SimpleGrantedAuthority> authorities =
+                user.getAuthorities().stream()
+                        .map(authority -> new SimpleGrantedAuthority(authority.getAuthority()))
+                        .toList();
+        CachedApiKeyUser cached =
+                new CachedApiKeyUser(
+                        user, authorities, System.currentTimeMillis() + TIME_TO_LIVE_MILLIS);
+        synchronized (entries) {
+            entries.put(hash(apiKey), cached);
+        }
+        return cached;
+    }
+
+    /** Drops every entry that belongs to {@code username}. */
+    public void invalidateUser(String username) {
+        if (username == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.values()
+                    .removeIf(cached -> username.equalsIgnoreCase(cached.user().getUsername()));
+        }
+        log.debug("Invalidated cached API key authentication for {}", username);
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Fraction of lookups answered from the cache since startup. */
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private static String hash(String apiKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,23 +1,29 @@
 package stirling.software.SPDF.config.security;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
 
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 
+import stirling.software.SPDF.config.security.ratelimit.RateLimitService;
 import stirling.software.SPDF.utils.RequestUriUtils;
 
 public class IPRateLimitingFilter implements Filter {
 
-    private final ConcurrentHashMap<String, AtomicInteger> requestCounts =
-            new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicInteger> getCounts = new ConcurrentHashMap<>();
+    // Counters expire with their window instead of being cleared by a scheduled reset
+    private static final Duration WINDOW = Duration.ofDays(7);
+
+    // The epoch fell on a Thursday, so weeks start on Monday 00:00 UTC four days later
+    static final Duration WINDOW_OFFSET = Duration.ofDays(4);
+
+    private final RateLimitService rateLimitService;
     private final int maxRequests;
     private final int maxGetRequests;
 
-    public IPRateLimitingFilter(int maxRequests, int maxGetRequests) {
+    public IPRateLimitingFilter(
+            RateLimitService rateLimitService, int maxRequests, int maxGetRequests) {
+        this.rateLimitService = rateLimitService;
         this.maxRequests = maxRequests;
         this.maxGetRequests = maxGetRequests;
     }
@@ -40,16 +46,18 @@ public class IPRateLimitingFilter implements Filter {
             }
 
             String clientIp = request.getRemoteAddr();
-            requestCounts.computeIfAbsent(clientIp, k -> new AtomicInteger(0));
             if (!"GET".equalsIgnoreCase(method)) {
-
-                if (requestCounts.get(clientIp).incrementAndGet() > maxRequests) {
+                if (!rateLimitService
+                        .tryConsume("ip", clientIp, maxRequests, WINDOW, WINDOW_OFFSET, 1)
+                        .consumed()) {
                     // Handle limit exceeded (e.g., send error response)
                     response.getWriter().write("Rate limit exceeded");
                     return;
                 }
             } else {
-                if (requestCounts.get(clientIp).incrementAndGet() > maxGetRequests) {
+                if (!rateLimitService
+                        .tryConsume("ip-get", clientIp, maxGetRequests, WINDOW, WINDOW_OFFSET, 1)
+                        .consumed()) {
                     // Handle limit exceeded (e.g., send error response)
                     response.getWriter().write("GET Rate limit exceeded");
                     return;
@@ -58,9 +66,4 @@ public class IPRateLimitingFilter implements Filter {
         }
         chain.doFilter(request, response);
     }
-
-    public void resetRequestCounts() {
-        requestCounts.clear();
-        getCounts.clear();
-    }
 }
@@ -0,0 +1,18 @@
+package stirling.software.SPDF.config.security;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the submitting request's security context over to background tasks, so work such as
+ * asynchronous jobs still knows which user it runs for.
+ */
+@Component
+public class SecurityContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return DelegatingSecurityContextRunnable.create(runnable, null);
+    }
+}
@@ -9,7 +9,6 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.session.SessionInformation;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,6 +23,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import lombok.extern.slf4j.Slf4j;
 
+import stirling.software.SPDF.config.security.ApiKeyAuthenticationCache.CachedApiKeyUser;
 import stirling.software.SPDF.config.security.saml2.CustomSaml2AuthenticatedPrincipal;
 import stirling.software.SPDF.config.security.session.SessionPersistentRegistry;
 import stirling.software.SPDF.model.ApiKeyAuthenticationToken;
@@ -40,16 +40,19 @@ public class UserAuthenticationFilter extends OncePerRequestFilter {
     private final ApplicationProperties applicationProperties;
     private final UserService userService;
     private final SessionPersistentRegistry sessionPersistentRegistry;
+    private final ApiKeyAuthenticationCache apiKeyAuthenticationCache;
     private final boolean loginEnabledValue;
 
     public UserAuthenticationFilter(
             @Lazy ApplicationProperties applicationProperties,
             @Lazy UserService userService,
             SessionPersistentRegistry sessionPersistentRegistry,
+            ApiKeyAuthenticationCache apiKeyAuthenticationCache,
             @Qualifier("loginEnabled") boolean loginEnabledValue) {
         this.applicationProperties = applicationProperties;
         this.userService = userService;
         this.sessionPersistentRegistry = sessionPersistentRegistry;
+        this.apiKeyAuthenticationCache = apiKeyAuthenticationCache;
         this.loginEnabledValue = loginEnabledValue;
     }
 
@@ -79,6 +82,9 @@ public class UserAuthenticationFilter extends OncePerRequestFilter {
         //            }
         //        }
 
+        // Set when this request was authenticated by API key, whose user was just looked up
+        CachedApiKeyUser apiKeyUser = null;
+
         // Check for API key in the request headers if no authentication exists
         if (authentication == null || !authentication.isAuthenticated()) {
             String apiKey = request.getHeader("X-API-KEY");
@@ -86,20 +92,19 @@ public class UserAuthenticationFilter extends OncePerRequestFilter {
                 try {
                     // Use API key to authenticate. This requires you to have an authentication
                     // provider for API keys.
-                    Optional<User> user = userService.getUserByApiKey(apiKey);
-                    if (user.isEmpty()) {
-                        response.setStatus(HttpStatus.UNAUTHORIZED.value());
-                        response.getWriter().write("Invalid API Key.");
-                        return;
+                    apiKeyUser = apiKeyAuthenticationCache.get(apiKey).orElse(null);
+                    if (apiKeyUser == null) {
+                        Optional<User> user = userService.getUserByApiKey(apiKey);
+                        if (user.isEmpty()) {
+                            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                            response.getWriter().write("Invalid API Key.");
+                            return;
+                        }
+                        apiKeyUser = apiKeyAuthenticationCache.put(apiKey, user.get());
                     }
-                    List<SimpleGrantedAuthority> authorities =
-                            user.get().getAuthorities().stream()
-                                    .map(
-                                            authority ->
-                                                    new SimpleGrantedAuthority(
-                                                            authority.getAuthority()))
-                                    .toList();
-                    authentication = new ApiKeyAuthenticationToken(user.get(), apiKey, authorities);
+                    authentication =
+                            new ApiKeyAuthenticationToken(
+                                    apiKeyUser.user(), apiKey, apiKeyUser.authorities());
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 } catch (AuthenticationException e) {
                     // If API key authentication fails, deny the request
@@ -167,8 +172,16 @@ public class UserAuthenticationFilter extends OncePerRequestFilter {
             // Check if the user exists, is disabled, or needs session invalidation
             if (username != null) {
                 log.debug("Validating user: {}", username);
-                boolean isUserExists = userService.usernameExistsIgnoreCase(username);
-                boolean isUserDisabled = userService.isUserDisabled(username);
+                boolean isUserExists;
+                boolean isUserDisabled;
+                if (apiKeyUser != null) {
+                    // The user was resolved from the API key, so its state is already known
+                    isUserExists = true;
+                    isUserDisabled = !apiKeyUser.isEnabled();
+                } else {
+                    isUserExists = userService.usernameExistsIgnoreCase(username);
+                    isUserDisabled = userService.isUserDisabled(username);
+                }
 
                 boolean notSsoLogin =
                         !LoginMethod.OAUTH2USER.equals(loginMethod)
@@ -2,8 +2,6 @@ package stirling.software.SPDF.config.security;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
@@ -14,9 +12,6 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.ConsumptionProbe;
 import io.github.pixee.security.Newlines;
 
 import jakarta.servlet.FilterChain;
@@ -24,19 +19,30 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import stirling.software.SPDF.config.security.ratelimit.RateLimitResult;
+import stirling.software.SPDF.config.security.ratelimit.RateLimitService;
+import stirling.software.SPDF.config.security.ratelimit.RequestCostCalculator;
+import stirling.software.SPDF.config.security.ratelimit.RequestCostCalculator.RequestCost;
 import stirling.software.SPDF.model.Role;
 
 @Component
 public class UserBasedRateLimitingFilter extends OncePerRequestFilter {
 
-    private final Map<String, Bucket> apiBuckets = new ConcurrentHashMap<>();
+    private static final Duration WINDOW = Duration.ofDays(1);
 
-    private final Map<String, Bucket> webBuckets = new ConcurrentHashMap<>();
+    private final RateLimitService rateLimitService;
+
+    private final RequestCostCalculator requestCostCalculator;
 
     @Qualifier("rateLimit")
     private final boolean rateLimit;
 
-    public UserBasedRateLimitingFilter(@Qualifier("rateLimit") boolean rateLimit) {
+    public UserBasedRateLimitingFilter(
+            RateLimitService rateLimitService,
+            RequestCostCalculator requestCostCalculator,
+            @Qualifier("rateLimit") boolean rateLimit) {
+        this.rateLimitService = rateLimitService;
+        this.requestCostCalculator = requestCostCalculator;
         this.rateLimit = rateLimit;
     }
 
@@ -74,25 +80,61 @@ public class UserBasedRateLimitingFilter extends OncePerRequestFilter {
         }
         Role userRole =
                 getRoleFromAuthentication(SecurityContextHolder.getContext().getAuthentication());
-        if (request.getHeader("X-API-KEY") != null) {
-            // It's an API call
-            processRequest(
-                    userRole.getApiCallsPerDay(),
-                    identifier,
-                    apiBuckets,
-                    request,
-                    response,
-                    filterChain);
-        } else {
-            // It's a Web UI call
+        RequestCost cost =
+                requestCostCalculator.isEnabled()
+                        ? requestCostCalculator.calculate(request)
+                        : new RequestCost(null, 1);
+        // It's an API call when it carries an API key, a Web UI call otherwise
+        boolean apiCall = request.getHeader("X-API-KEY") != null;
+        String scope = apiCall ? "api" : "web";
+        long limit = apiCall ? userRole.getApiCallsPerDay() : userRole.getWebCallsPerDay();
+        if (cost.budget() == null) {
+            if (exceedsWholeQuota(cost.units(), limit, response)) {
+                return;
+            }
             processRequest(
-                    userRole.getWebCallsPerDay(),
-                    identifier,
-                    webBuckets,
+                    rateLimitService.tryConsume(scope, identifier, limit, WINDOW, cost.units()),
                     request,
                     response,
                     filterChain);
+            return;
+        }
+
+        // Heavy operations count as one call against the regular quota, and their size weighted
+        // cost is charged only to their own budget, shared by API and web calls
+        String heavyScope = "heavy-" + cost.budget();
+        long heavyLimit = userRole.getHeavyUnitsPerDay();
+        if (exceedsWholeQuota(cost.units(), heavyLimit, response)) {
+            return;
         }
+        RateLimitResult result = rateLimitService.tryConsume(scope, identifier, limit, WINDOW, 1);
+        if (result.consumed()) {
+            RateLimitResult heavyResult =
+                    rateLimitService.tryConsume(
+                            heavyScope, identifier, heavyLimit, WINDOW, cost.units());
+            if (!heavyResult.consumed()) {
+                // A refused request leaves both quotas as they were
+                rateLimitService.refund(scope, identifier, WINDOW, 1);
+                rateLimitService.refund(heavyScope, identifier, WINDOW, cost.units());
+                result = heavyResult;
+            } else if (heavyResult.remaining() < result.remaining()) {
+                result = heavyResult;
+            }
+        }
+        processRequest(result, request, response, filterChain);
+    }
+
+    // A request costing more than a whole day's quota would never be let through, so it is
+    // refused as too large rather than told to retry later
+    private boolean exceedsWholeQuota(long units, long limit, HttpServletResponse response)
+            throws IOException {
+        if (limit <= 0 || units <= limit) {
+            return false;
+        }
+        response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+        response.getWriter()
+                .write("Request is larger than the daily rate limit allows for POST requests.");
+        return true;
     }
 
     private Role getRoleFromAuthentication(Authentication authentication) {
@@ -109,22 +151,17 @@ public class UserBasedRateLimitingFilter extends OncePerRequestFilter {
     }
 
     private void processRequest(
-            int limitPerDay,
-            String identifier,
-            Map<String, Bucket> buckets,
+            RateLimitResult result,
             HttpServletRequest request,
             HttpServletResponse response,
             FilterChain filterChain)
             throws IOException, ServletException {
-        Bucket userBucket = buckets.computeIfAbsent(identifier, k -> createUserBucket(limitPerDay));
-        ConsumptionProbe probe = userBucket.tryConsumeAndReturnRemaining(1);
-        if (probe.isConsumed()) {
+        if (result.consumed()) {
             response.setHeader(
-                    "X-Rate-Limit-Remaining",
-                    Newlines.stripAll(Long.toString(probe.getRemainingTokens())));
+                    "X-Rate-Limit-Remaining", Newlines.stripAll(Long.toString(result.remaining())));
             filterChain.doFilter(request, response);
         } else {
-            long waitForRefill = probe.getNanosToWaitForRefill() / 1_000_000_000;
+            long waitForRefill = result.retryAfterSeconds();
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setHeader(
                     "X-Rate-Limit-Retry-After-Seconds",
@@ -132,13 +169,4 @@ public class UserBasedRateLimitingFilter extends OncePerRequestFilter {
             response.getWriter().write("Rate limit exceeded for POST requests.");
         }
     }
-
-    private Bucket createUserBucket(int limitPerDay) {
-        Bandwidth limit =
-                Bandwidth.builder()
-                        .capacity(limitPerDay)
-                        .refillIntervally(limitPerDay, Duration.ofDays(1))
-                        .build();
-        return Bucket.builder().addLimit(limit).build();
-    }
 }
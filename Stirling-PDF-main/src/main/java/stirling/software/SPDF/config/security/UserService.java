@@ -48,6 +48,8 @@ public class UserService implements UserServiceInterface {
 
     private final ApplicationProperties applicationProperties;
 
+    private final ApiKeyAuthenticationCache apiKeyAuthenticationCache;
+
     public UserService(
             UserRepository userRepository,
             AuthorityRepository authorityRepository,
@@ -55,7 +57,8 @@ public class UserService implements UserServiceInterface {
             MessageSource messageSource,
             SessionPersistentRegistry sessionRegistry,
             DatabaseInterface databaseService,
-            ApplicationProperties applicationProperties) {
+            ApplicationProperties applicationProperties,
+            ApiKeyAuthenticationCache apiKeyAuthenticationCache) {
         this.userRepository = userRepository;
         this.authorityRepository = authorityRepository;
         this.passwordEncoder = passwordEncoder;
@@ -63,6 +66,7 @@ public class UserService implements UserServiceInterface {
         this.sessionRegistry = sessionRegistry;
         this.databaseService = databaseService;
         this.applicationProperties = applicationProperties;
+        this.apiKeyAuthenticationCache = apiKeyAuthenticationCache;
     }
 
     @Transactional
@@ -122,6 +126,7 @@ public class UserService implements UserServiceInterface {
     public User addApiKeyToUser(String username) {
         Optional<User> userOpt = findByUsernameIgnoreCase(username);
         User user = saveUser(userOpt, generateApiKey());
+        apiKeyAuthenticationCache.invalidateUser(user.getUsername());
         try {
             databaseService.exportDatabase();
         } catch (SQLException | UnsupportedProviderException e) {
@@ -257,6 +262,7 @@ public class UserService implements UserServiceInterface {
             }
             userRepository.delete(userOpt.get());
         }
+        apiKeyAuthenticationCache.invalidateUser(username);
         invalidateUserSessions(username);
     }
 
@@ -317,8 +323,10 @@ public class UserService implements UserServiceInterface {
         if (!isUsernameValid(newUsername)) {
             throw new IllegalArgumentException(getInvalidUsernameMessage());
         }
+        String oldUsername = user.getUsername();
         user.setUsername(newUsername);
         userRepository.save(user);
+        apiKeyAuthenticationCache.invalidateUser(oldUsername);
         databaseService.exportDatabase();
     }
 
@@ -341,6 +349,7 @@ public class UserService implements UserServiceInterface {
         Authority userAuthority = this.findRole(user);
         userAuthority.setAuthority(newRole);
         authorityRepository.save(userAuthority);
+        apiKeyAuthenticationCache.invalidateUser(user.getUsername());
         databaseService.exportDatabase();
     }
 
@@ -348,6 +357,7 @@ public class UserService implements UserServiceInterface {
             throws SQLException, UnsupportedProviderException {
         user.setEnabled(enbeled);
         userRepository.save(user);
+        apiKeyAuthenticationCache.invalidateUser(user.getUsername());
         databaseService.exportDatabase();
     }
 
@@ -434,6 +444,19 @@ public class UserService implements UserServiceInterface {
         return null;
     }
 
+    public boolean isCurrentUserAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (Role.ADMIN.getRoleId().equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Transactional
     public void syncCustomApiUser(String customApiKey) {
         if (customApiKey == null || customApiKey.trim().isBlank()) {
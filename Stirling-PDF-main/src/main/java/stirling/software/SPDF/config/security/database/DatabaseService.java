@@ -1,12 +1,18 @@
 package stirling.software.SPDF.config.security.database;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -16,15 +22,29 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import javax.sql.DataSource;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
 import org.springframework.jdbc.datasource.init.CannotReadScriptException;
 import org.springframework.jdbc.datasource.init.ScriptException;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
 import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.config.InstallationPathConfig;
@@ -33,22 +53,79 @@ import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.exception.BackupNotFoundException;
 import stirling.software.SPDF.utils.FileInfo;
 
+/**
+ * Creates, lists and restores database backups.
+ *
+ * <p>Backups are gzip compressed snapshots written on a single background thread, so callers such
+ * as the nightly schedule or user changes never wait for them. Backups requested while one is still
+ * queued share it. Each snapshot is written next to its final name and only moved into place once
+ * complete. The backups on disk are listed once and then kept in memory, updated as backups are
+ * written and deleted.
+ *
+ * <p>H2 databases are scripted with H2's own {@code SCRIPT} command and can be restored from the
+ * UI. PostgreSQL databases are exported table by table with {@code COPY}, in one snapshot, as a
+ * data-only script that {@code psql} can load into the schema the application creates; these
+ * backups are not listed, as the application cannot restore them itself.
+ */
 @Slf4j
 @Service
 public class DatabaseService implements DatabaseInterface {
 
     public static final String BACKUP_PREFIX = "backup_";
     public static final String SQL_SUFFIX = ".sql";
+    public static final String COMPRESSED_SQL_SUFFIX = ".sql.gz";
+
+    // Automatic backups kept before the oldest is deleted; uploaded backups are always kept
+    private static final int MAX_AUTOMATIC_BACKUPS = 5;
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final DateTimeFormatter BACKUP_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
+    /** The state of the backup being written, if any. */
+    public record BackupProgress(
+            boolean running, String fileName, long bytesWritten, LocalDateTime startedAt) {
+
+        static final BackupProgress IDLE = new BackupProgress(false, null, 0, null);
+    }
+
     private final Path BACKUP_DIR;
 
     private final ApplicationProperties applicationProperties;
     private final DataSource dataSource;
 
+    private final ExecutorService backupExecutor;
+
+    // Backups on disk by file name, read from the directory on first use
+    private volatile Map<String, FileInfo> catalog;
+
+    private final Object queueLock = new Object();
+
+    private Future<FileInfo> queuedBackup;
+
+    private volatile Path runningBackup;
+
+    private volatile LocalDateTime runningSince;
+
     public DatabaseService(ApplicationProperties applicationProperties, DataSource dataSource) {
-        this.BACKUP_DIR =
-                Paths.get(InstallationPathConfig.getConfigPath(), "db", "backup").normalize();
+        this(
+                applicationProperties,
+                dataSource,
+                Paths.get(InstallationPathConfig.getConfigPath(), "db", "backup").normalize());
+    }
+
+    DatabaseService(ApplicationProperties applicationProperties, DataSource dataSource, Path dir) {
+        this.BACKUP_DIR = dir;
         this.applicationProperties = applicationProperties;
         this.dataSource = dataSource;
+        this.backupExecutor =
+                Executors.newSingleThreadExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "database-backup");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
     }
 
     /**
@@ -69,49 +146,66 @@ public class DatabaseService implements DatabaseInterface {
     }
 
     /**
-     * Read the backup directory and filter for files with the prefix "backup_" and suffix ".sql"
+     * Lists the backups, files with the prefix "backup_" and the suffix ".sql" or ".sql.gz"
      *
      * @return a <code>List</code> of backup files
      */
     @Override
     public List<FileInfo> getBackupList() {
-        List<FileInfo> backupFiles = new ArrayList<>();
+        // Only H2 backups can be restored from the application
+        if (!isH2Database()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(catalog().values());
+    }
 
-        if (isH2Database()) {
-            createBackupDirectory();
-
-            try (DirectoryStream<Path> stream =
-                    Files.newDirectoryStream(
-                            BACKUP_DIR,
-                            path ->
-                                    path.getFileName().toString().startsWith(BACKUP_PREFIX)
-                                            && path.getFileName()
-                                                    .toString()
-                                                    .endsWith(SQL_SUFFIX))) {
-                for (Path entry : stream) {
-                    BasicFileAttributes attrs =
-                            Files.readAttributes(entry, BasicFileAttributes.class);
-                    LocalDateTime modificationDate =
-                            LocalDateTime.ofInstant(
-                                    attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault());
-                    LocalDateTime creationDate =
-                            LocalDateTime.ofInstant(
-                                    attrs.creationTime().toInstant(), ZoneId.systemDefault());
-                    long fileSize = attrs.size();
-                    backupFiles.add(
-                            new FileInfo(
-                                    entry.getFileName().toString(),
-                                    entry.toString(),
-                                    modificationDate,
-                                    fileSize,
-                                    creationDate));
+    private Map<String, FileInfo> catalog() {
+        Map<String, FileInfo> backups = catalog;
+        if (backups == null) {
+            synchronized (queueLock) {
+                if (catalog == null) {
+                    catalog = scanBackupDirectory();
                 }
-            } catch (IOException e) {
-                log.error("Error reading backup directory: {}", e.getMessage(), e);
+                backups = catalog;
+            }
+        }
+        return backups;
+    }
+
+    private Map<String, FileInfo> scanBackupDirectory() {
+        Map<String, FileInfo> backups = new ConcurrentSkipListMap<>();
+        createBackupDirectory();
+
+        try (DirectoryStream<Path> stream =
+                Files.newDirectoryStream(
+                        BACKUP_DIR, path -> isBackupFileName(path.getFileName().toString()))) {
+            for (Path entry : stream) {
+                backups.put(entry.getFileName().toString(), readFileInfo(entry));
             }
+        } catch (IOException e) {
+            log.error("Error reading backup directory: {}", e.getMessage(), e);
         }
+        return backups;
+    }
 
-        return backupFiles;
+    private static boolean isBackupFileName(String fileName) {
+        return fileName.startsWith(BACKUP_PREFIX)
+                && (fileName.endsWith(SQL_SUFFIX) || fileName.endsWith(COMPRESSED_SQL_SUFFIX));
+    }
+
+    private static FileInfo readFileInfo(Path file) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        LocalDateTime modificationDate =
+                LocalDateTime.ofInstant(
+                        attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault());
+        LocalDateTime creationDate =
+                LocalDateTime.ofInstant(attrs.creationTime().toInstant(), ZoneId.systemDefault());
+        return new FileInfo(
+                file.getFileName().toString(),
+                file.toString(),
+                modificationDate,
+                attrs.size(),
+                creationDate);
     }
 
     private void createBackupDirectory() {
@@ -134,13 +228,17 @@ public class DatabaseService implements DatabaseInterface {
 
         Path latestExport = Paths.get(backupList.get(0).getFilePath());
 
-        executeDatabaseScript(latestExport);
+        try {
+            runOnBackupThread(() -> executeDatabaseScript(latestExport));
+        } catch (IOException e) {
+            log.error("Error importing database from {}: {}", latestExport, e.getMessage(), e);
+        }
     }
 
     /** Imports a database backup from the specified file. */
     public boolean importDatabaseFromUI(String fileName) {
         try {
-            importDatabaseFromUI(getBackupFilePath(fileName));
+            runOnBackupThread(() -> executeDatabaseScript(getBackupFilePath(fileName)));
             return true;
         } catch (IOException e) {
             log.error(
@@ -152,63 +250,270 @@ public class DatabaseService implements DatabaseInterface {
         }
     }
 
-    /** Imports a database backup from the specified path. */
+    /**
+     * Imports a database backup from the specified path, which may be gzip compressed, then keeps a
+     * compressed copy of it as a backup.
+     */
     public boolean importDatabaseFromUI(Path tempTemplatePath) throws IOException {
-        executeDatabaseScript(tempTemplatePath);
-        LocalDateTime dateNow = LocalDateTime.now();
-        DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+        runOnBackupThread(() -> executeDatabaseScript(tempTemplatePath));
         Path insertOutputFilePath =
                 this.getBackupFilePath(
-                        BACKUP_PREFIX + "user_" + dateNow.format(myFormatObj) + SQL_SUFFIX);
-        Files.copy(tempTemplatePath, insertOutputFilePath);
+                        BACKUP_PREFIX
+                                + "user_"
+                                + LocalDateTime.now().format(BACKUP_TIMESTAMP)
+                                + COMPRESSED_SQL_SUFFIX);
+        if (isGzip(tempTemplatePath)) {
+            Files.copy(tempTemplatePath, insertOutputFilePath, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            try (OutputStream out =
+                    new GZIPOutputStream(Files.newOutputStream(insertOutputFilePath))) {
+                Files.copy(tempTemplatePath, out);
+            }
+        }
+        catalog()
+                .put(
+                        insertOutputFilePath.getFileName().toString(),
+                        readFileInfo(insertOutputFilePath));
         Files.deleteIfExists(tempTemplatePath);
         return true;
     }
 
+    /** Queues a backup; see {@link #requestBackup()}. */
     @Override
     public void exportDatabase() {
-        List<FileInfo> filteredBackupList =
-                this.getBackupList().stream()
-                        .filter(backup -> !backup.getFileName().startsWith(BACKUP_PREFIX + "user_"))
-                        .collect(Collectors.toList());
+        requestBackup();
+    }
 
-        if (filteredBackupList.size() > 5) {
-            deleteOldestBackup(filteredBackupList);
+    /**
+     * Queues a backup of the database. If a backup is already waiting to start, it is returned
+     * instead, since it will include every change made so far.
+     *
+     * @return the backup, which completes with the new file, or with {@code null} if the backup
+     *     failed or the database type cannot be backed up
+     */
+    public Future<FileInfo> requestBackup() {
+        synchronized (queueLock) {
+            if (queuedBackup == null) {
+                queuedBackup = backupExecutor.submit(this::writeBackup);
+            }
+            return queuedBackup;
         }
+    }
 
-        LocalDateTime dateNow = LocalDateTime.now();
-        DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
-        Path insertOutputFilePath =
-                this.getBackupFilePath(BACKUP_PREFIX + dateNow.format(myFormatObj) + SQL_SUFFIX);
+    /**
+     * Reports the backup being written.
+     *
+     * @return the progress, or {@link BackupProgress#IDLE} if no backup is running
+     */
+    public BackupProgress getBackupProgress() {
+        Path file = runningBackup;
+        LocalDateTime since = runningSince;
+        if (file == null) {
+            return BackupProgress.IDLE;
+        }
+        long bytesWritten;
+        try {
+            bytesWritten = Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            bytesWritten = 0;
+        }
+        String fileName = file.getFileName().toString();
+        return new BackupProgress(
+                true,
+                fileName.substring(0, fileName.length() - PART_SUFFIX.length()),
+                bytesWritten,
+                since);
+    }
 
-        if (isH2Database()) {
-            String query = "SCRIPT SIMPLE COLUMNS DROP to ?;";
+    private FileInfo writeBackup() {
+        synchronized (queueLock) {
+            // Later requests need a new backup, as this one may not see their changes
+            queuedBackup = null;
+        }
+        boolean h2 = isH2Database();
+        if (!h2 && !isPostgresDatabase()) {
+            return null;
+        }
 
-            try (Connection conn = dataSource.getConnection();
-                    PreparedStatement stmt = conn.prepareStatement(query)) {
-                stmt.setString(1, insertOutputFilePath.toString());
-                stmt.execute();
-            } catch (SQLException e) {
-                log.error("Error during database export: {}", e.getMessage(), e);
-            } catch (CannotReadScriptException e) {
-                log.error("Error during database export: File {} not found", insertOutputFilePath);
+        deleteOldestBackups();
+
+        Path target =
+                getBackupFilePath(
+                        BACKUP_PREFIX
+                                + LocalDateTime.now().format(BACKUP_TIMESTAMP)
+                                + COMPRESSED_SQL_SUFFIX);
+        Path part = target.resolveSibling(target.getFileName() + PART_SUFFIX);
+        runningSince = LocalDateTime.now();
+        runningBackup = part;
+        try {
+            if (h2) {
+                exportH2(part);
+            } else {
+                exportPostgres(part);
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            FileInfo backup = readFileInfo(target);
+            catalog().put(backup.getFileName(), backup);
+            log.info("Database export completed: {}", target);
+            return backup;
+        } catch (SQLException | IOException | CannotReadScriptException e) {
+            log.error("Error during database export: {}", e.getMessage(), e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
             }
+            return null;
+        } finally {
+            runningBackup = null;
+            runningSince = null;
+        }
+    }
+
+    private void exportH2(Path file) throws SQLException {
+        String query = "SCRIPT SIMPLE COLUMNS DROP to ? COMPRESSION GZIP;";
 
-            log.info("Database export completed: {}", insertOutputFilePath);
+        try (Connection conn = dataSource.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, file.toString());
+            stmt.execute();
         }
     }
 
-    private static void deleteOldestBackup(List<FileInfo> filteredBackupList) {
-        try {
-            filteredBackupList.sort(
-                    Comparator.comparing(
-                            p -> p.getFileName().substring(7, p.getFileName().length() - 4)));
+    /**
+     * Streams every table of the current schema into {@code file} with {@code COPY}, all read in
+     * one repeatable read transaction so they are consistent with each other. Tables are written
+     * after the tables they reference, so the script loads without disabling foreign keys.
+     */
+    private void exportPostgres(Path file) throws SQLException, IOException {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            int isolation = conn.getTransactionIsolation();
+            conn.setAutoCommit(false);
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setReadOnly(true);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+                CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+                String schema = conn.getSchema();
+                List<String> tables = tablesInLoadOrder(conn.getMetaData(), schema);
+
+                write(out, "-- Data of schema " + schema + ", exported with COPY\n");
+                write(out, "BEGIN;\n");
+                if (!tables.isEmpty()) {
+                    write(
+                            out,
+                            tables.stream()
+                                    .map(table -> qualify(schema, table))
+                                    .collect(Collectors.joining(", ", "TRUNCATE TABLE ", ";\n\n")));
+                }
+                for (String table : tables) {
+                    String qualified = qualify(schema, table);
+                    write(out, "COPY " + qualified + " FROM stdin;\n");
+                    copyManager.copyOut("COPY " + qualified + " TO STDOUT", out);
+                    write(out, "\\.\n\n");
+                }
+                writeSequenceValues(conn, schema, out);
+                write(out, "COMMIT;\n");
+            } finally {
+                conn.rollback();
+                conn.setReadOnly(false);
+                conn.setTransactionIsolation(isolation);
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
 
-            FileInfo oldestFile = filteredBackupList.get(0);
-            Files.deleteIfExists(Paths.get(oldestFile.getFilePath()));
-            log.info("Deleted oldest backup: {}", oldestFile.getFileName());
-        } catch (IOException e) {
-            log.error("Unable to delete oldest backup, message: {}", e.getMessage(), e);
+    /** Lists the tables of {@code schema}, each after the tables its foreign keys reference. */
+    private static List<String> tablesInLoadOrder(DatabaseMetaData metaData, String schema)
+            throws SQLException {
+        Map<String, Set<String>> referenced = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getTables(null, schema, "%", new String[] {"TABLE"})) {
+            while (rs.next()) {
+                referenced.put(rs.getString("TABLE_NAME"), new HashSet<>());
+            }
+        }
+        for (Map.Entry<String, Set<String>> table : referenced.entrySet()) {
+            try (ResultSet rs = metaData.getImportedKeys(null, schema, table.getKey())) {
+                while (rs.next()) {
+                    table.getValue().add(rs.getString("PKTABLE_NAME"));
+                }
+            }
+        }
+        List<String> ordered = new ArrayList<>(referenced.size());
+        Set<String> visited = new HashSet<>();
+        for (String table : referenced.keySet()) {
+            addInLoadOrder(table, referenced, visited, ordered);
+        }
+        return ordered;
+    }
+
+    private static void addInLoadOrder(
+            String table,
+            Map<String, Set<String>> referenced,
+            Set<String> visited,
+            List<String> ordered) {
+        if (!visited.add(table)) {
+            return;
+        }
+        for (String parent : referenced.get(table)) {
+            if (referenced.containsKey(parent)) {
+                addInLoadOrder(parent, referenced, visited, ordered);
+            }
+        }
+        ordered.add(table);
+    }
+
+    /** Writes the current value of each sequence, so new rows do not reuse restored ids. */
+    private static void writeSequenceValues(Connection conn, String schema, OutputStream out)
+            throws SQLException, IOException {
+        try (PreparedStatement stmt =
+                conn.prepareStatement(
+                        "SELECT sequencename, last_value FROM pg_sequences"
+                                + " WHERE schemaname = ? AND last_value IS NOT NULL")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String sequence = qualify(schema, rs.getString(1)).replace("'", "''");
+                    write(
+                            out,
+                            "SELECT pg_catalog.setval('"
+                                    + sequence
+                                    + "', "
+                                    + rs.getLong(2)
+                                    + ", true);\n");
+                }
+            }
+        }
+    }
+
+    private static String qualify(String schema, String name) {
+        return quoteIdentifier(schema) + "." + quoteIdentifier(name);
+    }
+
+    private static String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Deletes the oldest automatic backups, leaving room for the one about to be written. */
+    private void deleteOldestBackups() {
+        List<FileInfo> automaticBackups =
+                catalog().values().stream()
+                        .filter(backup -> !backup.getFileName().startsWith(BACKUP_PREFIX + "user_"))
+                        .sorted(Comparator.comparing(FileInfo::getModificationDate))
+                        .collect(Collectors.toList());
+
+        for (int i = 0; i < automaticBackups.size() - MAX_AUTOMATIC_BACKUPS; i++) {
+            FileInfo oldestFile = automaticBackups.get(i);
+            try {
+                Files.deleteIfExists(Paths.get(oldestFile.getFilePath()));
+                catalog().remove(oldestFile.getFileName());
+                log.info("Deleted oldest backup: {}", oldestFile.getFileName());
+            } catch (IOException e) {
+                log.error("Unable to delete oldest backup, message: {}", e.getMessage(), e);
+            }
         }
     }
 
@@ -244,6 +549,15 @@ public class DatabaseService implements DatabaseInterface {
                 || datasource.getType().equalsIgnoreCase(ApplicationProperties.Driver.H2.name());
     }
 
+    private boolean isPostgresDatabase() {
+        ApplicationProperties.Datasource datasource =
+                applicationProperties.getSystem().getDatasource();
+        return datasource.isEnableCustomDatabase()
+                && datasource
+                        .getType()
+                        .equalsIgnoreCase(ApplicationProperties.Driver.POSTGRESQL.name());
+    }
+
     /**
      * Deletes a backup file.
      *
@@ -256,6 +570,7 @@ public class DatabaseService implements DatabaseInterface {
         }
         Path filePath = this.getBackupFilePath(fileName);
         if (Files.deleteIfExists(filePath)) {
+            catalog().remove(fileName);
             log.info("Deleted backup file: {}", fileName);
             return true;
         } else {
@@ -278,9 +593,10 @@ public class DatabaseService implements DatabaseInterface {
         return filePath;
     }
 
-    private void executeDatabaseScript(Path scriptPath) {
+    private void executeDatabaseScript(Path scriptPath) throws IOException {
         if (isH2Database()) {
-            String query = "RUNSCRIPT from ?;";
+            String query =
+                    isGzip(scriptPath) ? "RUNSCRIPT from ? COMPRESSION GZIP;" : "RUNSCRIPT from ?;";
 
             try (Connection conn = dataSource.getConnection();
                     PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -296,6 +612,47 @@ public class DatabaseService implements DatabaseInterface {
         log.info("Database import completed: {}", scriptPath);
     }
 
+    private static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            byte[] magic = in.readNBytes(2);
+            return magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+        }
+    }
+
+    @FunctionalInterface
+    private interface BackupTask {
+        void run() throws IOException;
+    }
+
+    /** Runs {@code task} on the backup thread, so it never overlaps a backup being written. */
+    private void runOnBackupThread(BackupTask task) throws IOException {
+        Future<?> future =
+                backupExecutor.submit(
+                        () -> {
+                            task.run();
+                            return null;
+                        });
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing the database", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Database import failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backupExecutor.shutdown();
+    }
+
     /**
      * Checks for invalid characters or sequences
      *
@@ -0,0 +1,36 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Counters kept in the application database, so that several instances sharing a database also
+ * share one quota per client. Every counted request costs an UPDATE and a SELECT.
+ */
+public class DatabaseRateLimitStore implements RateLimitStore {
+
+    private final RateLimitCounterRepository repository;
+
+    public DatabaseRateLimitStore(RateLimitCounterRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public long incrementAndGet(String bucketId, long windowEnd, long amount) {
+        if (repository.increment(bucketId, amount) == 0) {
+            try {
+                repository.insert(bucketId, windowEnd, amount);
+                return amount;
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the counter first
+                repository.increment(bucketId, amount);
+            }
+        }
+        Long count = repository.findRequestCount(bucketId);
+        return count != null ? count : amount;
+    }
+
+    @Override
+    public void evictExpired(long now) {
+        repository.deleteExpired(now);
+    }
+}
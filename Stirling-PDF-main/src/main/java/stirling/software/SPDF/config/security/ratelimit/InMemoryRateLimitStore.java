@@ -0,0 +1,59 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counters kept in this instance only. Counting is lock-free once a counter exists, and the number
+ * of counters is capped so that requests from many distinct clients cannot exhaust the heap. While
+ * the store is full of live counters, clients without one are refused rather than resetting the
+ * quota of clients that have one.
+ */
+@Slf4j
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private record Counter(AtomicLong count, long windowEnd) {}
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public InMemoryRateLimitStore(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public long incrementAndGet(String bucketId, long windowEnd, long amount) {
+        Counter counter = counters.get(bucketId);
+        if (counter == null) {
+            if (counters.size() >= maxEntries && !makeRoom()) {
+                return Long.MAX_VALUE;
+            }
+            counter =
+                    counters.computeIfAbsent(
+                            bucketId, key -> new Counter(new AtomicLong(), windowEnd));
+        }
+        return counter.count().addAndGet(amount);
+    }
+
+    @Override
+    public void evictExpired(long now) {
+        counters.values().removeIf(counter -> counter.windowEnd() <= now);
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private boolean makeRoom() {
+        evictExpired(System.currentTimeMillis());
+        if (counters.size() < maxEntries) {
+            return true;
+        }
+        log.warn(
+                "Rate limit store holds {} active counters, refusing new clients", counters.size());
+        return false;
+    }
+}
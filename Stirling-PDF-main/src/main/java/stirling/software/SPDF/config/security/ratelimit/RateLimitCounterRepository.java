@@ -0,0 +1,42 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.transaction.Transactional;
+
+import stirling.software.SPDF.model.RateLimitCounter;
+
+@Repository
+public interface RateLimitCounterRepository extends JpaRepository<RateLimitCounter, String> {
+
+    @Modifying
+    @Transactional
+    @Query(
+            "UPDATE RateLimitCounter c SET c.requestCount = c.requestCount + :amount WHERE c.bucketId = :bucketId")
+    int increment(@Param("bucketId") String bucketId, @Param("amount") long amount);
+
+    // Plain INSERT, so a counter created concurrently by another instance fails instead of
+    // being overwritten as a merge would do
+    @Modifying
+    @Transactional
+    @Query(
+            value =
+                    "INSERT INTO rate_limit_counters (bucket_id, window_end, request_count) VALUES (:bucketId, :windowEnd, :amount)",
+            nativeQuery = true)
+    void insert(
+            @Param("bucketId") String bucketId,
+            @Param("windowEnd") long windowEnd,
+            @Param("amount") long amount);
+
+    @Query("SELECT c.requestCount FROM RateLimitCounter c WHERE c.bucketId = :bucketId")
+    Long findRequestCount(@Param("bucketId") String bucketId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RateLimitCounter c WHERE c.windowEnd <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -0,0 +1,10 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+/**
+ * Outcome of {@link RateLimitService#tryConsume}.
+ *
+ * @param consumed whether the request fits in the remaining quota
+ * @param remaining units left in the current window
+ * @param retryAfterSeconds seconds until the window resets, zero when consumed
+ */
+public record RateLimitResult(boolean consumed, long remaining, long retryAfterSeconds) {}
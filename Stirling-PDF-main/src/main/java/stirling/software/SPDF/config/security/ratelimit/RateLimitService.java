@@ -0,0 +1,143 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+
+/**
+ * Fixed window rate limiting shared by the rate limiting filters. Windows are aligned to the epoch,
+ * or to a fixed offset from it, so a daily quota resets at midnight UTC on every instance alike,
+ * and counters are dropped once their window has ended.
+ */
+@Service
+@Slf4j
+public class RateLimitService {
+
+    public static final String DATABASE_BACKEND = "database";
+
+    private final RateLimitStore store;
+
+    public RateLimitService(
+            ApplicationProperties applicationProperties,
+            RateLimitCounterRepository rateLimitCounterRepository) {
+        this(
+                createStore(
+                        applicationProperties.getSecurity().getRateLimit(),
+                        rateLimitCounterRepository));
+    }
+
+    RateLimitService(RateLimitStore store) {
+        this.store = store;
+    }
+
+    private static RateLimitStore createStore(
+            ApplicationProperties.Security.RateLimit properties,
+            RateLimitCounterRepository rateLimitCounterRepository) {
+        if (DATABASE_BACKEND.equalsIgnoreCase(properties.getBackend())) {
+            log.info("Rate limit counters are stored in the database");
+            return new DatabaseRateLimitStore(rateLimitCounterRepository);
+        }
+        return new InMemoryRateLimitStore(properties.getMaxEntries());
+    }
+
+    /**
+     * Counts {@code cost} units against the quota of {@code identifier}.
+     *
+     * @param scope separates independent quotas of the same client, e.g. API and web calls
+     * @param identifier the client, such as a username, API key or IP address
+     * @param limit units allowed per window
+     * @param window length of the window
+     * @param cost units this request uses
+     */
+    public RateLimitResult tryConsume(
+            String scope, String identifier, long limit, Duration window, long cost) {
+        return tryConsume(scope, identifier, limit, window, Duration.ZERO, cost);
+    }
+
+    /**
+     * Counts {@code cost} units against the quota of {@code identifier}, in windows starting {@code
+     * windowOffset} after the epoch instead of at it.
+     */
+    public RateLimitResult tryConsume(
+            String scope,
+            String identifier,
+            long limit,
+            Duration window,
+            Duration windowOffset,
+            long cost) {
+        long now = System.currentTimeMillis();
+        long windowEnd = windowEnd(now, window, windowOffset);
+        String bucketId = bucketId(scope, identifier, windowEnd, window);
+
+        long count;
+        try {
+            count = store.incrementAndGet(bucketId, windowEnd, cost);
+        } catch (RuntimeException e) {
+            // Do not turn a storage outage into an outage of the whole application
+            log.warn("Could not update rate limit counter, allowing request", e);
+            return new RateLimitResult(true, limit, 0);
+        }
+        if (count <= limit) {
+            return new RateLimitResult(true, limit - count, 0);
+        }
+        long retryAfterSeconds = Math.max(1, (windowEnd - now + 999) / 1000);
+        return new RateLimitResult(false, 0, retryAfterSeconds);
+    }
+
+    public RateLimitResult tryConsume(
+            String scope, String identifier, long limit, Duration window) {
+        return tryConsume(scope, identifier, limit, window, 1);
+    }
+
+    /**
+     * Gives back {@code cost} units consumed by {@link #tryConsume(String, String, long, Duration,
+     * long)} in the current window, for a request that was refused by another quota after all.
+     */
+    public void refund(String scope, String identifier, Duration window, long cost) {
+        long windowEnd = windowEnd(System.currentTimeMillis(), window, Duration.ZERO);
+        try {
+            store.incrementAndGet(bucketId(scope, identifier, windowEnd, window), windowEnd, -cost);
+        } catch (RuntimeException e) {
+            log.warn("Could not refund rate limit units", e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        try {
+            store.evictExpired(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Could not evict expired rate limit counters", e);
+        }
+    }
+
+    private static long windowEnd(long now, Duration window, Duration windowOffset) {
+        long windowMillis = window.toMillis();
+        return now - Math.floorMod(now - windowOffset.toMillis(), windowMillis) + windowMillis;
+    }
+
+    private static String bucketId(
+            String scope, String identifier, long windowEnd, Duration window) {
+        return scope + ":" + hash(identifier) + ":" + (windowEnd - window.toMillis());
+    }
+
+    // Raw API keys are never used as storage keys
+    private static String hash(String identifier) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of()
+                    .formatHex(digest.digest(identifier.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
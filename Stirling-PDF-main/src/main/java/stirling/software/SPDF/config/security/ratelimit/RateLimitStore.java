@@ -0,0 +1,22 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+/**
+ * Holds the request counters behind {@link RateLimitService}. Each counter belongs to one fixed
+ * time window and is no longer needed once that window has ended.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Adds {@code amount} to a counter, creating it if needed.
+     *
+     * @param bucketId identifies the counter, including the window it belongs to
+     * @param windowEnd epoch millis at which the counter expires
+     * @param amount the number of units to add
+     * @return the counter value after the addition, or {@link Long#MAX_VALUE} if the counter cannot
+     *     be created, which rejects the request
+     */
+    long incrementAndGet(String bucketId, long windowEnd, long amount);
+
+    /** Removes the counters whose window ended at or before {@code now}. */
+    void evictExpired(long now);
+}
@@ -0,0 +1,76 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import stirling.software.SPDF.config.EndpointConfiguration;
+import stirling.software.SPDF.model.ApplicationProperties;
+
+/**
+ * Prices a request for cost weighted rate limiting. Every request costs one unit plus one per full
+ * block of uploaded data, and requests to heavy operations are charged to a separate budget per
+ * operation group so that they cannot use up the quota for light calls.
+ */
+@Component
+public class RequestCostCalculator {
+
+    /**
+     * @param budget the heavy operation group charged, or {@code null} for the regular quota
+     * @param units the number of units the request costs
+     */
+    public record RequestCost(String budget, long units) {}
+
+    public static final String OCR_BUDGET = "ocr";
+    public static final String LIBRE_OFFICE_BUDGET = "libreoffice";
+    public static final String COMPRESSION_BUDGET = "compression";
+
+    private final ApplicationProperties.Security.RateLimit properties;
+    private final Map<String, String> heavyEndpoints = new HashMap<>();
+
+    public RequestCostCalculator(
+            ApplicationProperties applicationProperties,
+            EndpointConfiguration endpointConfiguration) {
+        this.properties = applicationProperties.getSecurity().getRateLimit();
+        for (String endpoint : endpointConfiguration.getEndpointsForGroup("LibreOffice")) {
+            heavyEndpoints.put(endpoint, LIBRE_OFFICE_BUDGET);
+        }
+        for (String endpoint : endpointConfiguration.getEndpointsForGroup("tesseract")) {
+            heavyEndpoints.put(endpoint, OCR_BUDGET);
+        }
+        heavyEndpoints.put("compress-pdf", COMPRESSION_BUDGET);
+    }
+
+    public boolean isEnabled() {
+        return properties.isCostWeighted();
+    }
+
+    public RequestCost calculate(HttpServletRequest request) {
+        String endpoint = endpointName(request.getRequestURI());
+        long bytesPerUnit = Math.max(1, properties.getMegabytesPerCostUnit()) * 1024L * 1024L;
+        long contentLength = Math.max(0, request.getContentLengthLong());
+        return new RequestCost(heavyEndpoints.get(endpoint), 1 + contentLength / bytesPerUnit);
+    }
+
+    // Converters are mapped as /convert/{from}/{to} but configured as "{from}-to-{to}", and batch
+    // variants are mapped below the endpoint they run for each file
+    static String endpointName(String uri) {
+        String[] segments = uri.split("/");
+        int end = segments.length;
+        if (end > 1 && "batch".equals(segments[end - 1])) {
+            end--;
+        }
+        if (end == 0) {
+            return "";
+        }
+        int convert = Arrays.asList(segments).subList(0, end).lastIndexOf("convert");
+        if (convert >= 0 && convert == end - 3) {
+            return segments[convert + 1] + "-to-" + segments[convert + 2];
+        }
+        return segments[end - 1];
+    }
+}
@@ -1,7 +1,9 @@
 package stirling.software.SPDF.config.security.session;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.session.SessionInformation;
@@ -10,16 +12,26 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 
+import lombok.extern.slf4j.Slf4j;
+
 import stirling.software.SPDF.config.security.saml2.CustomSaml2AuthenticatedPrincipal;
 import stirling.software.SPDF.model.SessionEntity;
 
 @Component
+@Slf4j
 public class SessionPersistentRegistry implements SessionRegistry {
 
+    // Upper bound on the session ids sent in one UPDATE statement
+    static final int FLUSH_BATCH_SIZE = 500;
+
     private final SessionRepository sessionRepository;
 
+    // Last request times not yet written to the database, one entry per session
+    private final Map<String, Date> pendingLastRequests = new ConcurrentHashMap<>();
+
     @Value("${server.servlet.session.timeout:30m}")
     private Duration defaultMaxInactiveInterval;
 
@@ -62,7 +74,7 @@ public class SessionPersistentRegistry implements SessionRegistry {
                             new SessionInformation(
                                     sessionEntity.getPrincipalName(),
                                     sessionEntity.getSessionId(),
-                                    sessionEntity.getLastRequest()));
+                                    getLastRequest(sessionEntity)));
                 }
             }
         }
@@ -105,18 +117,87 @@ public class SessionPersistentRegistry implements SessionRegistry {
     @Override
     @Transactional
     public void removeSessionInformation(String sessionId) {
+        pendingLastRequests.remove(sessionId);
         sessionRepository.deleteById(sessionId);
     }
 
+    /**
+     * Records the request in memory only. Repeated requests of a session are coalesced and written
+     * in batches by {@link #flushLastRequests()}.
+     */
     @Override
-    @Transactional
     public void refreshLastRequest(String sessionId) {
-        Optional<SessionEntity> sessionEntityOpt = sessionRepository.findById(sessionId);
-        if (sessionEntityOpt.isPresent()) {
-            SessionEntity sessionEntity = sessionEntityOpt.get();
-            sessionEntity.setLastRequest(new Date()); // Update lastRequest to the current date
-            sessionRepository.save(sessionEntity);
+        pendingLastRequests.put(sessionId, new Date());
+    }
+
+    /**
+     * Writes the recorded last request times with one UPDATE per batch of sessions. A batch is
+     * stamped with the latest time recorded in it, which is at most one flush interval later than
+     * the actual request of the other sessions in the batch.
+     *
+     * @return the number of session rows updated
+     */
+    public int flushLastRequests() {
+        if (pendingLastRequests.isEmpty()) {
+            return 0;
         }
+        List<String> sessionIds = new ArrayList<>(pendingLastRequests.keySet());
+        int updated = 0;
+        for (int start = 0; start < sessionIds.size(); start += FLUSH_BATCH_SIZE) {
+            List<String> batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+            Date latest = null;
+            for (String sessionId :
+                    sessionIds.subList(
+                            start, Math.min(sessionIds.size(), start + FLUSH_BATCH_SIZE))) {
+                Date lastRequest = pendingLastRequests.remove(sessionId);
+                if (lastRequest != null) {
+                    batch.add(sessionId);
+                    if (latest == null || lastRequest.after(latest)) {
+                        latest = lastRequest;
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                updated += sessionRepository.updateLastRequest(latest, batch);
+            } catch (RuntimeException e) {
+                // Keep the times so the next flush can retry, unless a newer request arrived
+                for (String sessionId : batch) {
+                    pendingLastRequests.putIfAbsent(sessionId, latest);
+                }
+                throw e;
+            }
+        }
+        log.debug("Flushed last request times of {} sessions", updated);
+        return updated;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flushLastRequests();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush session activity on shutdown", e);
+        }
+    }
+
+    /**
+     * Marks every session whose last request is older than the session timeout as expired, using a
+     * single UPDATE after the pending request times have been flushed.
+     *
+     * @return the number of sessions expired
+     */
+    public int expireInactiveSessions() {
+        flushLastRequests();
+        Date cutoff = Date.from(Instant.now().minusSeconds(getMaxInactiveInterval()));
+        return sessionRepository.expireLastRequestedBefore(cutoff);
+    }
+
+    private Date getLastRequest(SessionEntity sessionEntity) {
+        Date pending = pendingLastRequests.get(sessionEntity.getSessionId());
+        return pending != null ? pending : sessionEntity.getLastRequest();
     }
 
     @Override
@@ -127,7 +208,7 @@ public class SessionPersistentRegistry implements SessionRegistry {
             return new SessionInformation(
                     sessionEntity.getPrincipalName(),
                     sessionEntity.getSessionId(),
-                    sessionEntity.getLastRequest());
+                    getLastRequest(sessionEntity));
         }
         return null;
     }
@@ -144,12 +225,8 @@ public class SessionPersistentRegistry implements SessionRegistry {
 
     // Mark a session as expired
     public void expireSession(String sessionId) {
-        Optional<SessionEntity> sessionEntityOpt = sessionRepository.findById(sessionId);
-        if (sessionEntityOpt.isPresent()) {
-            SessionEntity sessionEntity = sessionEntityOpt.get();
-            sessionEntity.setExpired(true); // Set expired to true
-            sessionRepository.save(sessionEntity);
-        }
+        pendingLastRequests.remove(sessionId);
+        sessionRepository.expireBySessionId(sessionId);
     }
 
     // Get the maximum inactive interval for sessions
@@ -182,7 +259,7 @@ public class SessionPersistentRegistry implements SessionRegistry {
                     @Override
                     public int compare(SessionEntity s1, SessionEntity s2) {
                         // Sort by lastRequest in descending order
-                        return s2.getLastRequest().compareTo(s1.getLastRequest());
+                        return getLastRequest(s2).compareTo(getLastRequest(s1));
                     }
                 });
 
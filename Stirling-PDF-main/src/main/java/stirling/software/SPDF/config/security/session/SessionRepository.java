@@ -1,5 +1,6 @@
 package stirling.software.SPDF.config.security.session;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -29,4 +30,23 @@ public interface SessionRepository extends JpaRepository<SessionEntity, String>
             @Param("expired") boolean expired,
             @Param("lastRequest") Date lastRequest,
             @Param("principalName") String principalName);
+
+    @Modifying
+    @Transactional
+    @Query(
+            "UPDATE SessionEntity s SET s.lastRequest = :lastRequest WHERE s.sessionId IN :sessionIds")
+    int updateLastRequest(
+            @Param("lastRequest") Date lastRequest,
+            @Param("sessionIds") Collection<String> sessionIds);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SessionEntity s SET s.expired = true WHERE s.sessionId = :sessionId")
+    int expireBySessionId(@Param("sessionId") String sessionId);
+
+    @Modifying
+    @Transactional
+    @Query(
+            "UPDATE SessionEntity s SET s.expired = true WHERE s.expired = false AND s.lastRequest < :cutoff")
+    int expireLastRequestedBefore(@Param("cutoff") Date cutoff);
 }
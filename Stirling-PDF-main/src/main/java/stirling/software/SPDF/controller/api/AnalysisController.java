@@ -8,20 +8,30 @@ import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageTree;
+import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.encryption.PDEncryption;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.model.api.AnalysisRequest;
+import stirling.software.SPDF.model.api.AnalysisSection;
 import stirling.software.SPDF.model.api.PDFFile;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.utils.misc.TextStatistics;
 
 @RestController
 @RequestMapping("/api/v1/analysis")
+@Slf4j
 @Tag(name = "Analysis", description = "Analysis APIs")
 public class AnalysisController {
 
@@ -37,8 +47,8 @@ public class AnalysisController {
             summary = "Get PDF page count",
             description = "Returns total number of pages in PDF. Input:PDF Output:JSON Type:SISO")
     public Map<String, Integer> getPageCount(@ModelAttribute PDFFile file) throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            return Map.of("pageCount", document.getNumberOfPages());
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return pageCount(document);
         }
     }
 
@@ -47,12 +57,8 @@ public class AnalysisController {
             summary = "Get basic PDF information",
             description = "Returns page count, version, file size. Input:PDF Output:JSON Type:SISO")
     public Map<String, Object> getBasicInfo(@ModelAttribute PDFFile file) throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            Map<String, Object> info = new HashMap<>();
-            info.put("pageCount", document.getNumberOfPages());
-            info.put("pdfVersion", document.getVersion());
-            info.put("fileSize", file.getFileInput().getSize());
-            return info;
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return basicInfo(document, file.getFileInput());
         }
     }
 
@@ -62,18 +68,8 @@ public class AnalysisController {
             description = "Returns title, author, subject, etc. Input:PDF Output:JSON Type:SISO")
     public Map<String, String> getDocumentProperties(@ModelAttribute PDFFile file)
             throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            PDDocumentInformation info = document.getDocumentInformation();
-            Map<String, String> properties = new HashMap<>();
-            properties.put("title", info.getTitle());
-            properties.put("author", info.getAuthor());
-            properties.put("subject", info.getSubject());
-            properties.put("keywords", info.getKeywords());
-            properties.put("creator", info.getCreator());
-            properties.put("producer", info.getProducer());
-            properties.put("creationDate", info.getCreationDate().toString());
-            properties.put("modificationDate", info.getModificationDate().toString());
-            return properties;
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return documentProperties(document);
         }
     }
 
@@ -83,17 +79,8 @@ public class AnalysisController {
             description = "Returns width and height of each page. Input:PDF Output:JSON Type:SISO")
     public List<Map<String, Float>> getPageDimensions(@ModelAttribute PDFFile file)
             throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            List<Map<String, Float>> dimensions = new ArrayList<>();
-            PDPageTree pages = document.getPages();
-
-            for (PDPage page : pages) {
-                Map<String, Float> pageDim = new HashMap<>();
-                pageDim.put("width", page.getBBox().getWidth());
-                pageDim.put("height", page.getBBox().getHeight());
-                dimensions.add(pageDim);
-            }
-            return dimensions;
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return pageDimensions(document);
         }
     }
 
@@ -103,20 +90,8 @@ public class AnalysisController {
             description =
                     "Returns count and details of form fields. Input:PDF Output:JSON Type:SISO")
     public Map<String, Object> getFormFields(@ModelAttribute PDFFile file) throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            Map<String, Object> formInfo = new HashMap<>();
-            PDAcroForm form = document.getDocumentCatalog().getAcroForm();
-
-            if (form != null) {
-                formInfo.put("fieldCount", form.getFields().size());
-                formInfo.put("hasXFA", form.hasXFA());
-                formInfo.put("isSignaturesExist", form.isSignaturesExist());
-            } else {
-                formInfo.put("fieldCount", 0);
-                formInfo.put("hasXFA", false);
-                formInfo.put("isSignaturesExist", false);
-            }
-            return formInfo;
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return formFields(document);
         }
     }
 
@@ -125,22 +100,8 @@ public class AnalysisController {
             summary = "Get annotation information",
             description = "Returns count and types of annotations. Input:PDF Output:JSON Type:SISO")
     public Map<String, Object> getAnnotationInfo(@ModelAttribute PDFFile file) throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            Map<String, Object> annotInfo = new HashMap<>();
-            int totalAnnotations = 0;
-            Map<String, Integer> annotationTypes = new HashMap<>();
-
-            for (PDPage page : document.getPages()) {
-                for (PDAnnotation annot : page.getAnnotations()) {
-                    totalAnnotations++;
-                    String subType = annot.getSubtype();
-                    annotationTypes.merge(subType, 1, Integer::sum);
-                }
-            }
-
-            annotInfo.put("totalCount", totalAnnotations);
-            annotInfo.put("typeBreakdown", annotationTypes);
-            return annotInfo;
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return annotationInfo(document);
         }
     }
 
@@ -150,19 +111,8 @@ public class AnalysisController {
             description =
                     "Returns list of fonts used in the document. Input:PDF Output:JSON Type:SISO")
     public Map<String, Object> getFontInfo(@ModelAttribute PDFFile file) throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            Map<String, Object> fontInfo = new HashMap<>();
-            Set<String> fontNames = new HashSet<>();
-
-            for (PDPage page : document.getPages()) {
-                for (COSName font : page.getResources().getFontNames()) {
-                    fontNames.add(font.getName());
-                }
-            }
-
-            fontInfo.put("fontCount", fontNames.size());
-            fontInfo.put("fonts", fontNames);
-            return fontInfo;
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return fontInfo(document);
         }
     }
 
@@ -172,31 +122,245 @@ public class AnalysisController {
             description =
                     "Returns encryption and permission details. Input:PDF Output:JSON Type:SISO")
     public Map<String, Object> getSecurityInfo(@ModelAttribute PDFFile file) throws IOException {
-        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput())) {
-            Map<String, Object> securityInfo = new HashMap<>();
-            PDEncryption encryption = document.getEncryption();
-
-            if (encryption != null) {
-                securityInfo.put("isEncrypted", true);
-                securityInfo.put("keyLength", encryption.getLength());
-
-                // Get permissions
-                Map<String, Boolean> permissions = new HashMap<>();
-                permissions.put("canPrint", document.getCurrentAccessPermission().canPrint());
-                permissions.put("canModify", document.getCurrentAccessPermission().canModify());
-                permissions.put(
-                        "canExtractContent",
-                        document.getCurrentAccessPermission().canExtractContent());
-                permissions.put(
-                        "canModifyAnnotations",
-                        document.getCurrentAccessPermission().canModifyAnnotations());
-
-                securityInfo.put("permissions", permissions);
-            } else {
-                securityInfo.put("isEncrypted", false);
+        try (PDDocument document = pdfDocumentFactory.load(file.getFileInput(), true)) {
+            return securityInfo(document);
+        }
+    }
+
+    @PostMapping(value = "/analyze", consumes = "multipart/form-data")
+    @Operation(
+            summary = "Get several analysis sections in one call",
+            description =
+                    "Loads the PDF once and returns only the requested sections, each with its"
+                            + " computation time. TEXT_STATISTICS, PAGE_FONTS and PAGE_IMAGES read"
+                            + " page content and are only computed when requested. Input:PDF"
+                            + " Output:JSON Type:SISO")
+    public Map<String, Object> analyze(@ModelAttribute AnalysisRequest request) throws IOException {
+        Set<AnalysisSection> sections =
+                request.getSections() == null || request.getSections().isEmpty()
+                        ? AnalysisSection.defaults()
+                        : EnumSet.copyOf(request.getSections());
+
+        try (PDDocument document = pdfDocumentFactory.load(request.getFileInput(), true)) {
+            Map<String, Object> results = new LinkedHashMap<>();
+            Map<String, Double> timings = new LinkedHashMap<>();
+            Map<String, String> errors = new LinkedHashMap<>();
+
+            for (AnalysisSection section : sections) {
+                long start = System.nanoTime();
+                try {
+                    results.put(
+                            section.getKey(),
+                            computeSection(section, document, request.getFileInput()));
+                } catch (IOException | RuntimeException e) {
+                    // One unreadable section should not fail the others
+                    log.warn("Analysis section {} failed", section, e);
+                    errors.put(section.getKey(), e.getMessage());
+                }
+                timings.put(section.getKey(), (System.nanoTime() - start) / 1_000_000.0);
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("sections", results);
+            response.put("timingsMs", timings);
+            if (!errors.isEmpty()) {
+                response.put("errors", errors);
+            }
+            return response;
+        }
+    }
+
+    private Object computeSection(AnalysisSection section, PDDocument document, MultipartFile file)
+            throws IOException {
+        return switch (section) {
+            case PAGE_COUNT -> pageCount(document);
+            case BASIC_INFO -> basicInfo(document, file);
+            case DOCUMENT_PROPERTIES -> documentProperties(document);
+            case PAGE_DIMENSIONS -> pageDimensions(document);
+            case FORM_FIELDS -> formFields(document);
+            case ANNOTATION_INFO -> annotationInfo(document);
+            case FONT_INFO -> fontInfo(document);
+            case SECURITY_INFO -> securityInfo(document);
+            case TEXT_STATISTICS -> textStatistics(document);
+            case PAGE_FONTS -> pageFonts(document);
+            case PAGE_IMAGES -> pageImages(document);
+        };
+    }
+
+    private Map<String, Integer> pageCount(PDDocument document) {
+        return Map.of("pageCount", document.getNumberOfPages());
+    }
+
+    private Map<String, Object> basicInfo(PDDocument document, MultipartFile file) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("pageCount", document.getNumberOfPages());
+        info.put("pdfVersion", document.getVersion());
+        info.put("fileSize", file.getSize());
+        return info;
+    }
+
+    private Map<String, String> documentProperties(PDDocument document) {
+        PDDocumentInformation info = document.getDocumentInformation();
+        Map<String, String> properties = new HashMap<>();
+        properties.put("title", info.getTitle());
+        properties.put("author", info.getAuthor());
+        properties.put("subject", info.getSubject());
+        properties.put("keywords", info.getKeywords());
+        properties.put("creator", info.getCreator());
+        properties.put("producer", info.getProducer());
+        properties.put("creationDate", formatDate(info.getCreationDate()));
+        properties.put("modificationDate", formatDate(info.getModificationDate()));
+        return properties;
+    }
+
+    private List<Map<String, Float>> pageDimensions(PDDocument document) {
+        List<Map<String, Float>> dimensions = new ArrayList<>();
+        PDPageTree pages = document.getPages();
+
+        for (PDPage page : pages) {
+            Map<String, Float> pageDim = new HashMap<>();
+            pageDim.put("width", page.getBBox().getWidth());
+            pageDim.put("height", page.getBBox().getHeight());
+            dimensions.add(pageDim);
+        }
+        return dimensions;
+    }
+
+    private Map<String, Object> formFields(PDDocument document) {
+        Map<String, Object> formInfo = new HashMap<>();
+        PDAcroForm form = document.getDocumentCatalog().getAcroForm();
+
+        if (form != null) {
+            formInfo.put("fieldCount", form.getFields().size());
+            formInfo.put("hasXFA", form.hasXFA());
+            formInfo.put("isSignaturesExist", form.isSignaturesExist());
+        } else {
+            formInfo.put("fieldCount", 0);
+            formInfo.put("hasXFA", false);
+            formInfo.put("isSignaturesExist", false);
+        }
+        return formInfo;
+    }
+
+    private Map<String, Object> annotationInfo(PDDocument document) throws IOException {
+        Map<String, Object> annotInfo = new HashMap<>();
+        int totalAnnotations = 0;
+        Map<String, Integer> annotationTypes = new HashMap<>();
+
+        for (PDPage page : document.getPages()) {
+            for (PDAnnotation annot : page.getAnnotations()) {
+                totalAnnotations++;
+                String subType = annot.getSubtype();
+                annotationTypes.merge(subType, 1, Integer::sum);
             }
+        }
+
+        annotInfo.put("totalCount", totalAnnotations);
+        annotInfo.put("typeBreakdown", annotationTypes);
+        return annotInfo;
+    }
+
+    private Map<String, Object> fontInfo(PDDocument document) throws IOException {
+        Map<String, Object> fontInfo = new HashMap<>();
+        Set<String> fontNames = new HashSet<>();
 
-            return securityInfo;
+        for (PDPage page : document.getPages()) {
+            PDResources resources = page.getResources();
+            if (resources == null) {
+                continue;
+            }
+            for (COSName font : resources.getFontNames()) {
+                fontNames.add(font.getName());
+            }
         }
+
+        fontInfo.put("fontCount", fontNames.size());
+        fontInfo.put("fonts", fontNames);
+        return fontInfo;
+    }
+
+    private Map<String, Object> securityInfo(PDDocument document) {
+        Map<String, Object> securityInfo = new HashMap<>();
+        PDEncryption encryption = document.getEncryption();
+
+        if (encryption != null) {
+            securityInfo.put("isEncrypted", true);
+            securityInfo.put("keyLength", encryption.getLength());
+
+            // Get permissions
+            Map<String, Boolean> permissions = new HashMap<>();
+            permissions.put("canPrint", document.getCurrentAccessPermission().canPrint());
+            permissions.put("canModify", document.getCurrentAccessPermission().canModify());
+            permissions.put(
+                    "canExtractContent", document.getCurrentAccessPermission().canExtractContent());
+            permissions.put(
+                    "canModifyAnnotations",
+                    document.getCurrentAccessPermission().canModifyAnnotations());
+
+            securityInfo.put("permissions", permissions);
+        } else {
+            securityInfo.put("isEncrypted", false);
+        }
+
+        return securityInfo;
+    }
+
+    private Map<String, Object> textStatistics(PDDocument document) throws IOException {
+        TextStatistics textStatistics = TextStatistics.collect(document);
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("characterCount", textStatistics.getCharacterCount());
+        statistics.put("wordCount", textStatistics.getWordCount());
+        statistics.put("lineCount", textStatistics.getLineCount());
+        return statistics;
+    }
+
+    private List<Map<String, Object>> pageFonts(PDDocument document) throws IOException {
+        List<Map<String, Object>> pages = new ArrayList<>();
+        for (PDPage page : document.getPages()) {
+            PDResources resources = page.getResources();
+            List<Map<String, Object>> fonts = new ArrayList<>();
+            if (resources != null) {
+                for (COSName fontName : resources.getFontNames()) {
+                    PDFont font = resources.getFont(fontName);
+                    if (font == null) {
+                        continue;
+                    }
+                    Map<String, Object> fontNode = new HashMap<>();
+                    fontNode.put("name", font.getName());
+                    fontNode.put("subtype", font.getSubType());
+                    fontNode.put("isEmbedded", font.isEmbedded());
+                    fonts.add(fontNode);
+                }
+            }
+            pages.add(Map.of("fonts", fonts));
+        }
+        return pages;
+    }
+
+    private List<Map<String, Object>> pageImages(PDDocument document) throws IOException {
+        List<Map<String, Object>> pages = new ArrayList<>();
+        for (PDPage page : document.getPages()) {
+            PDResources resources = page.getResources();
+            List<Map<String, Object>> images = new ArrayList<>();
+            if (resources != null) {
+                for (COSName name : resources.getXObjectNames()) {
+                    // Only the image dictionaries are read, the pixel data is never decoded
+                    if (resources.getXObject(name) instanceof PDImageXObject image) {
+                        Map<String, Object> imageNode = new HashMap<>();
+                        imageNode.put("width", image.getWidth());
+                        imageNode.put("height", image.getHeight());
+                        imageNode.put("bitsPerComponent", image.getBitsPerComponent());
+                        imageNode.put("suffix", image.getSuffix());
+                        images.add(imageNode);
+                    }
+                }
+            }
+            pages.add(Map.of("images", images));
+        }
+        return pages;
+    }
+
+    private String formatDate(Calendar calendar) {
+        return calendar != null ? calendar.toString() : null;
     }
 }
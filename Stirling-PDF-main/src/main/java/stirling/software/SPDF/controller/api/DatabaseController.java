@@ -6,6 +6,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
 
 import org.eclipse.jetty.http.HttpStatus;
 import org.springframework.context.annotation.Conditional;
@@ -27,6 +28,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.config.security.database.DatabaseService;
+import stirling.software.SPDF.config.security.database.DatabaseService.BackupProgress;
+import stirling.software.SPDF.utils.FileInfo;
 
 @Slf4j
 @Controller
@@ -155,13 +158,32 @@ public class DatabaseController {
     @Operation(
             summary = "Create a database backup",
             description =
-                    "This endpoint triggers the creation of a database backup and redirects to the"
-                            + " database management page.")
+                    "This endpoint triggers the creation of a database backup, waits for it to be"
+                            + " written and redirects to the database management page.")
     @GetMapping("/createDatabaseBackup")
-    public String createDatabaseBackup() {
+    public String createDatabaseBackup() throws InterruptedException {
         log.info("Starting database backup creation...");
-        databaseService.exportDatabase();
-        log.info("Database backup successfully created.");
+        try {
+            FileInfo backup = databaseService.requestBackup().get();
+            if (backup == null) {
+                return "redirect:/database?error=backupFailed";
+            }
+            log.info("Database backup successfully created: {}", backup.getFileName());
+        } catch (ExecutionException e) {
+            log.error("Error creating database backup: {}", e.getMessage(), e);
+            return "redirect:/database?error=backupFailed";
+        }
         return "redirect:/database?infoMessage=backupCreated";
     }
+
+    @Operation(
+            summary = "Get the progress of the running database backup",
+            description =
+                    "Returns whether a backup is being written, its file name, the compressed bytes"
+                            + " written so far and when it started.")
+    @GetMapping("/backup-progress")
+    @ResponseBody
+    public BackupProgress getBackupProgress() {
+        return databaseService.getBackupProgress();
+    }
 }
@@ -0,0 +1,95 @@
+package stirling.software.SPDF.controller.api;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import stirling.software.SPDF.service.job.AsyncJob;
+import stirling.software.SPDF.service.job.AsyncJobService;
+
+@RestController
+@RequestMapping("/api/v1/general")
+@Tag(name = "General", description = "General APIs")
+public class JobController {
+
+    // Upper bound for long-polling, kept below common reverse proxy timeouts
+    static final int MAX_WAIT_SECONDS = 30;
+
+    private final AsyncJobService asyncJobService;
+
+    @Autowired
+    public JobController(AsyncJobService asyncJobService) {
+        this.asyncJobService = asyncJobService;
+    }
+
+    @GetMapping("/job/{jobId}")
+    @Operation(
+            summary = "Get the status of an asynchronous job",
+            description =
+                    "Returns the state of a job started with async=true. Jobs are only visible to the user who submitted them. Set 'wait' to a number of seconds (at most 30) to wait for the job to finish before answering.")
+    public ResponseEntity<AsyncJob> getJob(
+            @PathVariable String jobId, @RequestParam(defaultValue = "0") int wait)
+            throws InterruptedException {
+        Optional<AsyncJob> job =
+                wait > 0
+                        ? asyncJobService.awaitJob(
+                                jobId, Duration.ofSeconds(Math.min(wait, MAX_WAIT_SECONDS)))
+                        : asyncJobService.getJob(jobId);
+        return job.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/job/{jobId}/result")
+    @Operation(
+            summary = "Download the result of an asynchronous job",
+            description =
+                    "Returns the file produced by a completed job. Answers 409 while the job has not completed successfully.")
+    public ResponseEntity<Resource> getJobResult(@PathVariable String jobId) {
+        Optional<AsyncJob> job = asyncJobService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Path> result = asyncJobService.getResult(jobId);
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok()
+                .header(
+                        HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename(job.get().getResultFileName())
+                                .build()
+                                .toString())
+                .contentType(MediaType.parseMediaType(job.get().getResultContentType()))
+                .contentLength(job.get().getResultSize())
+                .body(new FileSystemResource(result.get()));
+    }
+
+    @DeleteMapping("/job/{jobId}")
+    @Operation(
+            summary = "Cancel or delete an asynchronous job",
+            description =
+                    "Cancels a job that is still queued or running, or deletes the result of a finished job.")
+    public ResponseEntity<Void> deleteJob(@PathVariable String jobId) {
+        return asyncJobService.cancelOrDelete(jobId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
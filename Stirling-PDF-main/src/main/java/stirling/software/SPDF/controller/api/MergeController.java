@@ -1,7 +1,6 @@
 package stirling.software.SPDF.controller.api;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -9,11 +8,12 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDField;
@@ -25,6 +25,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -33,7 +34,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.model.api.general.MergePdfsRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
-import stirling.software.SPDF.utils.GeneralUtils;
+import stirling.software.SPDF.service.PdfMetadataService;
+import stirling.software.SPDF.utils.UploadSpool;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
@@ -44,9 +46,13 @@ public class MergeController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final PdfMetadataService pdfMetadataService;
+
     @Autowired
-    public MergeController(CustomPDFDocumentFactory pdfDocumentFactory) {
+    public MergeController(
+            CustomPDFDocumentFactory pdfDocumentFactory, PdfMetadataService pdfMetadataService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.pdfMetadataService = pdfMetadataService;
     }
 
     // Merges a list of PDDocument objects into a single PDDocument
@@ -60,60 +66,88 @@ public class MergeController {
         return mergedDoc;
     }
 
+    /** Reads the value a file is sorted by. */
+    @FunctionalInterface
+    private interface SortKeyReader<T> {
+        T read(MultipartFile file) throws IOException;
+    }
+
+    /**
+     * Reads the sort key of every file once up front, so sorting does not repeat the work on each
+     * comparison. Files whose key cannot be read are sorted last.
+     */
+    private static <T extends Comparable<? super T>> Comparator<MultipartFile> byKey(
+            MultipartFile[] files, SortKeyReader<T> reader) {
+        Map<MultipartFile, T> keys = new IdentityHashMap<>();
+        for (MultipartFile file : files) {
+            try {
+                keys.put(file, reader.read(file));
+            } catch (IOException e) {
+                log.debug("Could not read sort key of {}", file.getOriginalFilename(), e);
+            }
+        }
+        return Comparator.comparing(keys::get, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
     // Returns a comparator for sorting MultipartFile arrays based on the given sort type
-    private Comparator<MultipartFile> getSortComparator(String sortType) {
+    private Comparator<MultipartFile> getSortComparator(
+            String sortType, MultipartFile[] files, Map<MultipartFile, PDDocument> sources) {
         switch (sortType) {
             case "byFileName":
                 return Comparator.comparing(MultipartFile::getOriginalFilename);
             case "byDateModified":
-                return (file1, file2) -> {
-                    try {
-                        BasicFileAttributes attr1 =
-                                Files.readAttributes(
-                                        Paths.get(file1.getOriginalFilename()),
-                                        BasicFileAttributes.class);
-                        BasicFileAttributes attr2 =
+                return byKey(
+                        files,
+                        file ->
                                 Files.readAttributes(
-                                        Paths.get(file2.getOriginalFilename()),
-                                        BasicFileAttributes.class);
-                        return attr1.lastModifiedTime().compareTo(attr2.lastModifiedTime());
-                    } catch (IOException e) {
-                        return 0; // If there's an error, treat them as equal
-                    }
-                };
+                                                Paths.get(file.getOriginalFilename()),
+                                                BasicFileAttributes.class)
+                                        .lastModifiedTime());
             case "byDateCreated":
-                return (file1, file2) -> {
-                    try {
-                        BasicFileAttributes attr1 =
-                                Files.readAttributes(
-                                        Paths.get(file1.getOriginalFilename()),
-                                        BasicFileAttributes.class);
-                        BasicFileAttributes attr2 =
+                return byKey(
+                        files,
+                        file ->
                                 Files.readAttributes(
-                                        Paths.get(file2.getOriginalFilename()),
-                                        BasicFileAttributes.class);
-                        return attr1.creationTime().compareTo(attr2.creationTime());
-                    } catch (IOException e) {
-                        return 0; // If there's an error, treat them as equal
-                    }
-                };
+                                                Paths.get(file.getOriginalFilename()),
+                                                BasicFileAttributes.class)
+                                        .creationTime());
             case "byPDFTitle":
-                return (file1, file2) -> {
-                    try (PDDocument doc1 = pdfDocumentFactory.load(file1);
-                            PDDocument doc2 = pdfDocumentFactory.load(file2)) {
-                        String title1 = doc1.getDocumentInformation().getTitle();
-                        String title2 = doc2.getDocumentInformation().getTitle();
-                        return title1.compareTo(title2);
-                    } catch (IOException e) {
-                        return 0;
-                    }
-                };
+                // The documents opened for their title are kept for the merge
+                return byKey(
+                        files,
+                        file -> loadSource(file, sources).getDocumentInformation().getTitle());
             case "orderProvided":
             default:
                 return (file1, file2) -> 0; // Default is the order provided
         }
     }
 
+    private PDDocument loadSource(MultipartFile file, Map<MultipartFile, PDDocument> sources)
+            throws IOException {
+        PDDocument source = sources.get(file);
+        if (source == null) {
+            source = pdfDocumentFactory.load(file, true);
+            sources.put(file, source);
+        }
+        return source;
+    }
+
+    // Flattens signature fields so they do not carry over into the merged document
+    private void removeSignatureFields(PDDocument document) throws IOException {
+        PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
+        if (acroForm != null) {
+            List<PDField> fieldsToRemove =
+                    acroForm.getFields().stream()
+                            .filter(field -> field instanceof PDSignatureField)
+                            .toList();
+
+            if (!fieldsToRemove.isEmpty()) {
+                acroForm.flatten(
+                        fieldsToRemove, false); // Flatten the fields, effectively removing them
+            }
+        }
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/merge-pdfs")
     @Operation(
             summary = "Merge multiple PDF files into one",
@@ -121,10 +155,10 @@ public class MergeController {
                     "This endpoint merges multiple PDF files into a single PDF file. The merged"
                             + " file will contain all pages from the input files in the order they were"
                             + " provided. Input:PDF Output:PDF Type:MISO")
-    public ResponseEntity<byte[]> mergePdfs(@ModelAttribute MergePdfsRequest form)
+    public ResponseEntity<StreamingResponseBody> mergePdfs(@ModelAttribute MergePdfsRequest form)
             throws IOException {
-        List<File> filesToDelete = new ArrayList<>(); // List of temporary files to delete
-        File mergedTempFile = null;
+        // Source documents, each opened once and kept open until the merged file is written
+        Map<MultipartFile, PDDocument> sources = new IdentityHashMap<>();
         PDDocument mergedDocument = null;
 
         boolean removeCertSign = form.isRemoveCertSign();
@@ -134,55 +168,41 @@ public class MergeController {
             Arrays.sort(
                     files,
                     getSortComparator(
-                            form.getSortType())); // Sort files based on the given sort type
+                            form.getSortType(),
+                            files,
+                            sources)); // Sort files based on the given sort type
 
-            PDFMergerUtility mergerUtility = new PDFMergerUtility();
             long totalSize = 0;
             for (MultipartFile multipartFile : files) {
                 totalSize += multipartFile.getSize();
-                File tempFile =
-                        GeneralUtils.convertMultipartFileToFile(
-                                multipartFile); // Convert MultipartFile to File
-                filesToDelete.add(tempFile); // Add temp file to the list for later deletion
-                mergerUtility.addSource(tempFile); // Add source file to the merger utility
             }
+            mergedDocument = new PDDocument(pdfDocumentFactory.getStreamCacheFunction(totalSize));
 
-            mergedTempFile = Files.createTempFile("merged-", ".pdf").toFile();
-            mergerUtility.setDestinationFileName(mergedTempFile.getAbsolutePath());
-
-            mergerUtility.mergeDocuments(
-                    pdfDocumentFactory.getStreamCacheFunction(totalSize)); // Merge the documents
-
-            // Load the merged PDF document
-            mergedDocument = pdfDocumentFactory.load(mergedTempFile);
-
-            // Remove signatures if removeCertSign is true
-            if (removeCertSign) {
-                PDDocumentCatalog catalog = mergedDocument.getDocumentCatalog();
-                PDAcroForm acroForm = catalog.getAcroForm();
-                if (acroForm != null) {
-                    List<PDField> fieldsToRemove =
-                            acroForm.getFields().stream()
-                                    .filter(field -> field instanceof PDSignatureField)
-                                    .toList();
-
-                    if (!fieldsToRemove.isEmpty()) {
-                        acroForm.flatten(
-                                fieldsToRemove,
-                                false); // Flatten the fields, effectively removing them
-                    }
+            PDFMergerUtility mergerUtility = new PDFMergerUtility();
+            for (MultipartFile multipartFile : files) {
+                PDDocument source = loadSource(multipartFile, sources);
+                // Remove signatures while merging instead of reloading the result
+                if (removeCertSign) {
+                    removeSignatureFields(source);
                 }
+                mergerUtility.appendDocument(mergedDocument, source);
             }
-
-            // Save the modified document to a new ByteArrayOutputStream
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            mergedDocument.save(baos);
+            pdfMetadataService.setDefaultMetadata(mergedDocument);
 
             String mergedFileName =
                     files[0].getOriginalFilename().replaceFirst("[.][^.]+$", "")
                             + "_merged_unsigned.pdf";
-            return WebResponseUtils.boasToWebResponse(
-                    baos, mergedFileName); // Return the modified PDF
+            List<Closeable> toClose = new ArrayList<>(sources.values());
+            // Large sources keep reading their upload while the merged file is written, which
+            // happens after the request has completed
+            toClose.add(UploadSpool.retain());
+            ResponseEntity<StreamingResponseBody> response =
+                    WebResponseUtils.pdfDocToStreamingWebResponse(
+                            mergedDocument, mergedFileName, toClose);
+            // Closed once the merged document has been written to the response
+            sources.clear();
+            mergedDocument = null;
+            return response;
 
         } catch (Exception ex) {
             log.error("Error in merge pdf process", ex);
@@ -191,13 +211,8 @@ public class MergeController {
             if (mergedDocument != null) {
                 mergedDocument.close(); // Close the merged document
             }
-            for (File file : filesToDelete) {
-                if (file != null) {
-                    Files.deleteIfExists(file.toPath()); // Delete temporary files
-                }
-            }
-            if (mergedTempFile != null) {
-                Files.deleteIfExists(mergedTempFile.toPath());
+            for (PDDocument source : sources.values()) {
+                source.close();
             }
         }
     }
@@ -1,14 +1,18 @@
 package stirling.software.SPDF.controller.api;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.apache.pdfbox.cos.COSDictionary;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
@@ -20,6 +24,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -33,6 +38,9 @@ import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.model.PdfMetadata;
 import stirling.software.SPDF.model.api.SplitPdfByChaptersRequest;
+import stirling.software.SPDF.service.ConcurrentPageProcessor;
+import stirling.software.SPDF.service.ConcurrentPageProcessor.PageConsumer;
+import stirling.software.SPDF.service.ConcurrentPageProcessor.PageTask;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
 import stirling.software.SPDF.service.PdfMetadataService;
 import stirling.software.SPDF.utils.WebResponseUtils;
@@ -126,8 +134,8 @@ public class SplitPdfByChaptersController {
     @Operation(
             summary = "Split PDFs by Chapters",
             description = "Splits a PDF into chapters and returns a ZIP file.")
-    public ResponseEntity<byte[]> splitPdf(@ModelAttribute SplitPdfByChaptersRequest request)
-            throws Exception {
+    public ResponseEntity<StreamingResponseBody> splitPdf(
+            @ModelAttribute SplitPdfByChaptersRequest request) throws Exception {
         MultipartFile file = request.getFileInput();
         PDDocument sourceDocument = null;
         Path zipFile = null;
@@ -137,7 +145,7 @@ public class SplitPdfByChaptersController {
             Integer bookmarkLevel =
                     request.getBookmarkLevel(); // levels start from 0 (top most bookmarks)
             if (bookmarkLevel < 0) {
-                return ResponseEntity.badRequest().body("Invalid bookmark level".getBytes());
+                return message(ResponseEntity.badRequest(), "Invalid bookmark level");
             }
             sourceDocument = pdfDocumentFactory.load(file);
 
@@ -145,7 +153,7 @@ public class SplitPdfByChaptersController {
 
             if (outline == null) {
                 log.warn("No outline found for {}", file.getOriginalFilename());
-                return ResponseEntity.badRequest().body("No outline found".getBytes());
+                return message(ResponseEntity.badRequest(), "No outline found");
             }
             List<Bookmark> bookmarks = new ArrayList<>();
             try {
@@ -163,8 +171,8 @@ public class SplitPdfByChaptersController {
 
             } catch (Exception e) {
                 log.error("Unable to extract outline items", e);
-                return ResponseEntity.internalServerError()
-                        .body("Unable to extract outline items".getBytes());
+                return message(
+                        ResponseEntity.internalServerError(), "Unable to extract outline items");
             }
 
             boolean allowDuplicates = request.getAllowDuplicates();
@@ -183,20 +191,25 @@ public class SplitPdfByChaptersController {
                         bookmark.getStartPage(),
                         bookmark.getEndPage());
             }
-            List<ByteArrayOutputStream> splitDocumentsBoas =
-                    getSplitDocumentsBoas(sourceDocument, bookmarks, includeMetadata);
-
-            zipFile = createZipFile(bookmarks, splitDocumentsBoas);
-
-            byte[] data = Files.readAllBytes(zipFile);
-            Files.deleteIfExists(zipFile);
+            zipFile = createZipFile(sourceDocument, bookmarks, includeMetadata);
 
             String filename =
                     Filenames.toSimpleFileName(file.getOriginalFilename())
                             .replaceFirst("[.][^.]+$", "");
             sourceDocument.close();
-            return WebResponseUtils.bytesToWebResponse(
-                    data, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
+            Path zip = zipFile;
+            StreamingResponseBody body =
+                    outputStream -> {
+                        try {
+                            Files.copy(zip, outputStream);
+                        } finally {
+                            Files.deleteIfExists(zip);
+                        }
+                    };
+            // The zip is deleted by the body once sent
+            zipFile = null;
+            return WebResponseUtils.streamingWebResponse(
+                    body, filename + ".zip", MediaType.APPLICATION_OCTET_STREAM);
         } finally {
             try {
                 if (sourceDocument != null) {
@@ -211,6 +224,11 @@ public class SplitPdfByChaptersController {
         }
     }
 
+    private static ResponseEntity<StreamingResponseBody> message(
+            ResponseEntity.BodyBuilder response, String message) {
+        return response.body(outputStream -> outputStream.write(message.getBytes()));
+    }
+
     private List<Bookmark> mergeBookmarksThatCorrespondToSamePage(List<Bookmark> bookmarks) {
         String mergedTitle = "";
         List<Bookmark> chaptersToBeRemoved = new ArrayList<>();
@@ -236,72 +254,116 @@ public class SplitPdfByChaptersController {
         return bookmarks;
     }
 
+    /**
+     * Writes each chapter into the zip as soon as it is saved. Chapters are built and saved by up
+     * to one worker per core through a {@link ConcurrentPageProcessor}, and only a bounded number
+     * of them wait on disk to be added to the zip, so memory use does not grow with the number of
+     * chapters.
+     */
     private Path createZipFile(
-            List<Bookmark> bookmarks, List<ByteArrayOutputStream> splitDocumentsBoas)
+            PDDocument sourceDocument, List<Bookmark> bookmarks, boolean includeMetadata)
             throws Exception {
+        COSDictionary documentInformation = null;
+        if (includeMetadata) {
+            PdfMetadata metadata = pdfMetadataService.extractMetadataFromPdf(sourceDocument);
+            // Resolved once on the request thread, which holds the current user
+            try (PDDocument template = new PDDocument()) {
+                pdfMetadataService.setMetadataToPdf(template, metadata);
+                documentInformation = template.getDocumentInformation().getCOSObject();
+            }
+        }
+        COSDictionary information = documentInformation;
+
+        int workers = Math.min(Runtime.getRuntime().availableProcessors(), bookmarks.size());
+        // Chapters saved but not yet added to the zip, deleted if splitting fails
+        Set<Path> chapterFiles = ConcurrentHashMap.newKeySet();
         Path zipFile = Files.createTempFile("split_documents", ".zip");
         String fileNumberFormatter = "%0" + (Integer.toString(bookmarks.size()).length()) + "d ";
         try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
-            for (int i = 0; i < splitDocumentsBoas.size(); i++) {
-
-                // split files will be named as "[FILE_NUMBER] [BOOKMARK_TITLE].pdf"
-
-                String fileName =
-                        String.format(fileNumberFormatter, i)
-                                + bookmarks.get(i).getTitle()
-                                + ".pdf";
-                ByteArrayOutputStream baos = splitDocumentsBoas.get(i);
-                byte[] pdf = baos.toByteArray();
-
-                ZipEntry pdfEntry = new ZipEntry(fileName);
-                zipOut.putNextEntry(pdfEntry);
-                zipOut.write(pdf);
-                zipOut.closeEntry();
-
-                log.info("Wrote split document {} to zip file", fileName);
+            PageTask<PDDocument, Path> task =
+                    (source, index) -> {
+                        Path chapterFile = Files.createTempFile("split_chapter", ".pdf");
+                        chapterFiles.add(chapterFile);
+                        saveChapter(source, bookmarks.get(index), information, chapterFile);
+                        return chapterFile;
+                    };
+            PageConsumer<Path> consumer =
+                    (index, chapterFile) -> {
+                        // split files will be named as "[FILE_NUMBER] [BOOKMARK_TITLE].pdf"
+                        String fileName =
+                                String.format(fileNumberFormatter, index)
+                                        + bookmarks.get(index).getTitle()
+                                        + ".pdf";
+                        writeToZip(fileName, chapterFile, zipOut);
+                        chapterFiles.remove(chapterFile);
+                    };
+            if (workers <= 1) {
+                for (int i = 0; i < bookmarks.size(); i++) {
+                    consumer.accept(i, task.process(sourceDocument, i));
+                }
+            } else {
+                ConcurrentPageProcessor.process(
+                        sourceDocument,
+                        bookmarks.size(),
+                        workers,
+                        source -> source,
+                        task,
+                        consumer);
             }
         } catch (Exception e) {
-            log.error("Failed writing to zip", e);
+            log.error("Failed splitting documents and saving them", e);
+            Files.deleteIfExists(zipFile);
             throw e;
+        } finally {
+            for (Path chapterFile : chapterFiles) {
+                Files.deleteIfExists(chapterFile);
+            }
         }
 
         log.info("Successfully created zip file with split documents: {}", zipFile);
         return zipFile;
     }
 
-    public List<ByteArrayOutputStream> getSplitDocumentsBoas(
-            PDDocument sourceDocument, List<Bookmark> bookmarks, boolean includeMetadata)
-            throws Exception {
-        List<ByteArrayOutputStream> splitDocumentsBoas = new ArrayList<>();
-        PdfMetadata metadata = null;
-        if (includeMetadata) {
-            metadata = pdfMetadataService.extractMetadataFromPdf(sourceDocument);
+    private void writeToZip(String fileName, Path chapterFile, ZipOutputStream zipOut)
+            throws IOException {
+        try {
+            zipOut.putNextEntry(new ZipEntry(fileName));
+            Files.copy(chapterFile, zipOut);
+            zipOut.closeEntry();
+            log.info("Wrote split document {} to zip file", fileName);
+        } finally {
+            Files.deleteIfExists(chapterFile);
         }
-        for (Bookmark bookmark : bookmarks) {
-            try (PDDocument splitDocument = new PDDocument()) {
-                boolean isSinglePage = (bookmark.getStartPage() == bookmark.getEndPage());
-
-                for (int i = bookmark.getStartPage();
-                        i < bookmark.getEndPage() + (isSinglePage ? 1 : 0);
-                        i++) {
-                    PDPage page = sourceDocument.getPage(i);
-                    splitDocument.addPage(page);
-                    log.info("Adding page {} to split document", i);
-                }
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                if (includeMetadata) {
-                    pdfMetadataService.setMetadataToPdf(splitDocument, metadata);
-                }
-
-                splitDocument.save(baos);
+    }
 
-                splitDocumentsBoas.add(baos);
-            } catch (Exception e) {
-                log.error("Failed splitting documents and saving them", e);
-                throw e;
+    /**
+     * Saves the pages of one chapter. The pages are added by reference, so fonts and images shared
+     * by several pages are written once per chapter rather than copied for every page.
+     */
+    private void saveChapter(
+            PDDocument sourceDocument,
+            Bookmark bookmark,
+            COSDictionary documentInformation,
+            Path chapterFile)
+            throws IOException {
+        try (PDDocument splitDocument = new PDDocument()) {
+            boolean isSinglePage = (bookmark.getStartPage() == bookmark.getEndPage());
+
+            for (int i = bookmark.getStartPage();
+                    i < bookmark.getEndPage() + (isSinglePage ? 1 : 0);
+                    i++) {
+                PDPage page = sourceDocument.getPage(i);
+                splitDocument.addPage(page);
+                log.debug("Adding page {} to split document", i);
             }
+            if (documentInformation != null) {
+                COSDictionary information = new COSDictionary();
+                information.addAll(documentInformation);
+                splitDocument.setDocumentInformation(new PDDocumentInformation(information));
+            }
+
+            splitDocument.save(chapterFile.toFile());
         }
-        return splitDocumentsBoas;
     }
 }
 
@@ -1,12 +1,21 @@
 package stirling.software.SPDF.controller.api.converters;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,8 +23,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import stirling.software.SPDF.config.RuntimePathConfig;
 import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.api.converters.BatchHtmlToPdfRequest;
 import stirling.software.SPDF.model.api.converters.HTMLToPdfRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.HtmlConversionService;
 import stirling.software.SPDF.utils.FileToPdf;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -30,15 +41,19 @@ public class ConvertHtmlToPDF {
 
     private final RuntimePathConfig runtimePathConfig;
 
+    private final HtmlConversionService htmlConversionService;
+
     @Autowired
     public ConvertHtmlToPDF(
             CustomPDFDocumentFactory pdfDocumentFactory,
             ApplicationProperties applicationProperties,
-            RuntimePathConfig runtimePathConfig) {
+            RuntimePathConfig runtimePathConfig,
+            HtmlConversionService htmlConversionService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
 
         this.applicationProperties = applicationProperties;
         this.runtimePathConfig = runtimePathConfig;
+        this.htmlConversionService = htmlConversionService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/html/pdf")
@@ -81,4 +96,58 @@ public class ConvertHtmlToPDF {
 
         return WebResponseUtils.bytesToWebResponse(pdfBytes, outputFilename);
     }
+
+    @PostMapping(consumes = "multipart/form-data", value = "/html/pdf/batch")
+    @Operation(
+            summary = "Convert many HTML, Markdown or ZIP files to PDF",
+            description =
+                    "This endpoint converts HTML, Markdown and ZIP (containing HTML and CSS) files"
+                            + " to PDF and returns them as a zip. The documents are rendered by"
+                            + " long-lived WeasyPrint workers, and assets shared by several ZIP"
+                            + " files are only stored and read once. Input:HTML Output:ZIP-PDF"
+                            + " Type:MIMO")
+    public ResponseEntity<StreamingResponseBody> htmlToPdfBatch(
+            @ModelAttribute BatchHtmlToPdfRequest request) throws Exception {
+        MultipartFile[] files = request.getFileInput();
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("Please provide files for conversion.");
+        }
+        boolean disableSanitize =
+                Boolean.TRUE.equals(applicationProperties.getSystem().getDisableSanitize());
+
+        Path zipFile = Files.createTempFile("converted_documents", ".zip");
+        try {
+            try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+                Set<String> entryNames = new HashSet<>();
+                htmlConversionService.convertBatch(
+                        files,
+                        disableSanitize,
+                        (index, pdf) -> {
+                            String baseName =
+                                    Filenames.toSimpleFileName(files[index].getOriginalFilename())
+                                            .replaceFirst("[.][^.]+$", "");
+                            String entryName = baseName + ".pdf";
+                            for (int i = 2; !entryNames.add(entryName); i++) {
+                                entryName = baseName + "_" + i + ".pdf";
+                            }
+                            zipOut.putNextEntry(new ZipEntry(entryName));
+                            zipOut.write(pdfDocumentFactory.createNewBytesBasedOnOldDocument(pdf));
+                            zipOut.closeEntry();
+                        });
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(zipFile);
+            throw e;
+        }
+        return WebResponseUtils.streamingWebResponse(
+                outputStream -> {
+                    try {
+                        Files.copy(zipFile, outputStream);
+                    } finally {
+                        Files.deleteIfExists(zipFile);
+                    }
+                },
+                "converted_documents.zip",
+                MediaType.APPLICATION_OCTET_STREAM);
+    }
 }
@@ -1,15 +1,5 @@
 package stirling.software.SPDF.controller.api.converters;
 
-import java.util.List;
-import java.util.Map;
-
-import org.commonmark.Extension;
-import org.commonmark.ext.gfm.tables.TableBlock;
-import org.commonmark.ext.gfm.tables.TablesExtension;
-import org.commonmark.node.Node;
-import org.commonmark.parser.Parser;
-import org.commonmark.renderer.html.AttributeProvider;
-import org.commonmark.renderer.html.HtmlRenderer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -26,6 +16,7 @@ import stirling.software.SPDF.config.RuntimePathConfig;
 import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.api.GeneralFile;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.HtmlConversionService;
 import stirling.software.SPDF.utils.FileToPdf;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -38,16 +29,19 @@ public class ConvertMarkdownToPdf {
 
     private final ApplicationProperties applicationProperties;
     private final RuntimePathConfig runtimePathConfig;
+    private final HtmlConversionService htmlConversionService;
 
     @Autowired
     public ConvertMarkdownToPdf(
             CustomPDFDocumentFactory pdfDocumentFactory,
             ApplicationProperties applicationProperties,
-            RuntimePathConfig runtimePathConfig) {
+            RuntimePathConfig runtimePathConfig,
+            HtmlConversionService htmlConversionService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
 
         this.applicationProperties = applicationProperties;
         this.runtimePathConfig = runtimePathConfig;
+        this.htmlConversionService = htmlConversionService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/markdown/pdf")
@@ -70,17 +64,7 @@ public class ConvertMarkdownToPdf {
         }
 
         // Convert Markdown to HTML using CommonMark
-        List<Extension> extensions = List.of(TablesExtension.create());
-        Parser parser = Parser.builder().extensions(extensions).build();
-
-        Node document = parser.parse(new String(fileInput.getBytes()));
-        HtmlRenderer renderer =
-                HtmlRenderer.builder()
-                        .attributeProviderFactory(context -> new TableAttributeProvider())
-                        .extensions(extensions)
-                        .build();
-
-        String htmlContent = renderer.render(document);
+        String htmlContent = htmlConversionService.markdownToHtml(new String(fileInput.getBytes()));
 
         boolean disableSanitize =
                 Boolean.TRUE.equals(applicationProperties.getSystem().getDisableSanitize());
@@ -99,12 +83,3 @@ public class ConvertMarkdownToPdf {
         return WebResponseUtils.bytesToWebResponse(pdfBytes, outputFilename);
     }
 }
-
-class TableAttributeProvider implements AttributeProvider {
-    @Override
-    public void setAttributes(Node node, String tagName, Map<String, String> attributes) {
-        if (node instanceof TableBlock) {
-            attributes.put("class", "table table-striped");
-        }
-    }
-}
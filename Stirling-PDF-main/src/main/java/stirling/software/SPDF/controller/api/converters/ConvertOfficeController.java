@@ -4,10 +4,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,18 +15,19 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
-import stirling.software.SPDF.config.RuntimePathConfig;
 import stirling.software.SPDF.model.api.GeneralFile;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
-import stirling.software.SPDF.utils.ProcessExecutor;
-import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
+import stirling.software.SPDF.service.LibreOfficeConverterPool;
+import stirling.software.SPDF.service.job.AsyncJobService;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
@@ -35,13 +36,17 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 public class ConvertOfficeController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
-    private final RuntimePathConfig runtimePathConfig;
+    private final LibreOfficeConverterPool converterPool;
+    private final AsyncJobService asyncJobService;
 
     @Autowired
     public ConvertOfficeController(
-            CustomPDFDocumentFactory pdfDocumentFactory, RuntimePathConfig runtimePathConfig) {
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            LibreOfficeConverterPool converterPool,
+            AsyncJobService asyncJobService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
-        this.runtimePathConfig = runtimePathConfig;
+        this.converterPool = converterPool;
+        this.asyncJobService = asyncJobService;
     }
 
     public File convertToPdf(MultipartFile inputFile) throws IOException, InterruptedException {
@@ -57,30 +62,25 @@ public class ConvertOfficeController {
                 Files.createTempFile("input_", "." + FilenameUtils.getExtension(originalFilename));
         inputFile.transferTo(tempInputFile);
 
-        // Prepare the output file path
-        Path tempOutputFile = Files.createTempFile("output_", ".pdf");
+        // LibreOffice names the output after the input
+        Path tempOutputDir = Files.createTempDirectory("output_");
 
         try {
-            // Run the LibreOffice command
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    runtimePathConfig.getUnoConvertPath(),
-                                    "--port",
-                                    "2003",
-                                    "--convert-to",
-                                    "pdf",
-                                    tempInputFile.toString(),
-                                    tempOutputFile.toString()));
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
-                            .runCommandWithOutputHandling(command);
-
-            // Read the converted PDF file
+            converterPool.convert(List.of(tempInputFile), "pdf", tempOutputDir);
+            String inputName = tempInputFile.getFileName().toString();
+            Path convertedFile =
+                    tempOutputDir.resolve(
+                            inputName.substring(0, inputName.lastIndexOf('.')) + ".pdf");
+            if (!Files.isRegularFile(convertedFile)) {
+                throw new IOException("LibreOffice could not convert " + originalFilename);
+            }
+            Path tempOutputFile = Files.createTempFile("output_", ".pdf");
+            Files.move(convertedFile, tempOutputFile, StandardCopyOption.REPLACE_EXISTING);
             return tempOutputFile.toFile();
         } finally {
             // Clean up the temporary files
-            if (tempInputFile != null) Files.deleteIfExists(tempInputFile);
+            Files.deleteIfExists(tempInputFile);
+            FileUtils.deleteQuietly(tempOutputDir.toFile());
         }
     }
 
@@ -95,8 +95,21 @@ public class ConvertOfficeController {
             description =
                     "This endpoint converts a given file to a PDF using LibreOffice API  Input:ANY"
                             + " Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> processFileToPDF(@ModelAttribute GeneralFile request)
+    public ResponseEntity<byte[]> processFileToPDF(
+            @ModelAttribute GeneralFile request,
+            @Parameter(description = "Process in the background and return a job id")
+                    @RequestParam(defaultValue = "false")
+                    boolean async)
             throws Exception {
+        if (async && asyncJobService.isEnabled()) {
+            return asyncJobService.submit(
+                    "file-pdf",
+                    request.getFileInput(),
+                    input -> {
+                        request.setFileInput(input);
+                        return processFileToPDF(request, false);
+                    });
+        }
         MultipartFile inputFile = request.getFileInput();
         // unused but can start server instance if startup time is to long
         // LibreOfficeListener.getInstance().start();
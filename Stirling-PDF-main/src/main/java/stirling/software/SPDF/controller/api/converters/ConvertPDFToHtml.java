@@ -6,10 +6,12 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.api.PDFFile;
 import stirling.software.SPDF.utils.PDFToFile;
 
@@ -18,15 +20,26 @@ import stirling.software.SPDF.utils.PDFToFile;
 @RequestMapping("/api/v1/convert")
 public class ConvertPDFToHtml {
 
+    private final ApplicationProperties applicationProperties;
+
+    public ConvertPDFToHtml(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/pdf/html")
     @Operation(
             summary = "Convert PDF to HTML",
             description =
                     "This endpoint converts a PDF file to HTML format. Input:PDF Output:HTML Type:SISO")
-    public ResponseEntity<byte[]> processPdfToHTML(@ModelAttribute PDFFile request)
+    public ResponseEntity<StreamingResponseBody> processPdfToHTML(@ModelAttribute PDFFile request)
             throws Exception {
         MultipartFile inputFile = request.getFileInput();
-        PDFToFile pdfToFile = new PDFToFile();
+        PDFToFile pdfToFile =
+                new PDFToFile(
+                        applicationProperties
+                                .getProcessExecutor()
+                                .getSessionLimit()
+                                .getPdfToHtmlSessionLimit());
         return pdfToFile.processPdfToHtml(inputFile);
     }
 }
@@ -22,6 +22,7 @@ import stirling.software.SPDF.model.api.converters.PdfToPresentationRequest;
 import stirling.software.SPDF.model.api.converters.PdfToTextOrRTFRequest;
 import stirling.software.SPDF.model.api.converters.PdfToWordRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.LibreOfficeConverterPool;
 import stirling.software.SPDF.utils.PDFToFile;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
@@ -32,9 +33,13 @@ public class ConvertPDFToOffice {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final LibreOfficeConverterPool converterPool;
+
     @Autowired
-    public ConvertPDFToOffice(CustomPDFDocumentFactory pdfDocumentFactory) {
+    public ConvertPDFToOffice(
+            CustomPDFDocumentFactory pdfDocumentFactory, LibreOfficeConverterPool converterPool) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.converterPool = converterPool;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/pdf/presentation")
@@ -48,7 +53,7 @@ public class ConvertPDFToOffice {
             throws IOException, InterruptedException {
         MultipartFile inputFile = request.getFileInput();
         String outputFormat = request.getOutputFormat();
-        PDFToFile pdfToFile = new PDFToFile();
+        PDFToFile pdfToFile = new PDFToFile(converterPool);
         return pdfToFile.processPdfToOfficeFormat(inputFile, outputFormat, "impress_pdf_import");
     }
 
@@ -75,7 +80,7 @@ public class ConvertPDFToOffice {
                         MediaType.TEXT_PLAIN);
             }
         } else {
-            PDFToFile pdfToFile = new PDFToFile();
+            PDFToFile pdfToFile = new PDFToFile(converterPool);
             return pdfToFile.processPdfToOfficeFormat(inputFile, outputFormat, "writer_pdf_import");
         }
     }
@@ -90,7 +95,7 @@ public class ConvertPDFToOffice {
             throws IOException, InterruptedException {
         MultipartFile inputFile = request.getFileInput();
         String outputFormat = request.getOutputFormat();
-        PDFToFile pdfToFile = new PDFToFile();
+        PDFToFile pdfToFile = new PDFToFile(converterPool);
         return pdfToFile.processPdfToOfficeFormat(inputFile, outputFormat, "writer_pdf_import");
     }
 
@@ -104,7 +109,7 @@ public class ConvertPDFToOffice {
             throws Exception {
         MultipartFile inputFile = request.getFileInput();
 
-        PDFToFile pdfToFile = new PDFToFile();
+        PDFToFile pdfToFile = new PDFToFile(converterPool);
         return pdfToFile.processPdfToOfficeFormat(inputFile, "xml", "writer_pdf_import");
     }
 }
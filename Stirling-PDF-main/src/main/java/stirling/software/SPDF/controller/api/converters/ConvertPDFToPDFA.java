@@ -1,11 +1,21 @@
 package stirling.software.SPDF.controller.api.converters;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.springframework.http.MediaType;
@@ -13,18 +23,22 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 
+import stirling.software.SPDF.model.api.converters.BatchPdfToPdfARequest;
 import stirling.software.SPDF.model.api.converters.PdfToPdfARequest;
-import stirling.software.SPDF.utils.ProcessExecutor;
-import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
+import stirling.software.SPDF.service.LibreOfficeConverterPool;
+import stirling.software.SPDF.service.job.AsyncJobService;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
@@ -33,13 +47,39 @@ import stirling.software.SPDF.utils.WebResponseUtils;
 @Tag(name = "Convert", description = "Convert APIs")
 public class ConvertPDFToPDFA {
 
+    // Most files LibreOffice converts in one run, sharing its startup cost
+    private static final int MAX_FILES_PER_RUN = 8;
+
+    private final AsyncJobService asyncJobService;
+
+    private final LibreOfficeConverterPool converterPool;
+
+    public ConvertPDFToPDFA(
+            AsyncJobService asyncJobService, LibreOfficeConverterPool converterPool) {
+        this.asyncJobService = asyncJobService;
+        this.converterPool = converterPool;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/pdf/pdfa")
     @Operation(
             summary = "Convert a PDF to a PDF/A",
             description =
                     "This endpoint converts a PDF file to a PDF/A file using LibreOffice. PDF/A is a format designed for long-term archiving of digital documents. Input:PDF Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> pdfToPdfA(@ModelAttribute PdfToPdfARequest request)
+    public ResponseEntity<byte[]> pdfToPdfA(
+            @ModelAttribute PdfToPdfARequest request,
+            @Parameter(description = "Process in the background and return a job id")
+                    @RequestParam(defaultValue = "false")
+                    boolean async)
             throws Exception {
+        if (async && asyncJobService.isEnabled()) {
+            return asyncJobService.submit(
+                    "pdf-to-pdfa",
+                    request.getFileInput(),
+                    input -> {
+                        request.setFileInput(input);
+                        return pdfToPdfA(request, false);
+                    });
+        }
         MultipartFile inputFile = request.getFileInput();
         String outputFormat = request.getOutputFormat();
 
@@ -49,16 +89,6 @@ public class ConvertPDFToPDFA {
             throw new IllegalArgumentException("Input file must be a PDF");
         }
 
-        // Get the original filename without extension
-        String originalFileName = Filenames.toSimpleFileName(inputFile.getOriginalFilename());
-        if (originalFileName == null || originalFileName.trim().isEmpty()) {
-            originalFileName = "output.pdf";
-        }
-        String baseFileName =
-                originalFileName.contains(".")
-                        ? originalFileName.substring(0, originalFileName.lastIndexOf('.'))
-                        : originalFileName;
-
         Path tempInputFile = null;
         Path tempOutputDir = null;
         byte[] fileBytes;
@@ -71,33 +101,7 @@ public class ConvertPDFToPDFA {
             // Create temp output directory
             tempOutputDir = Files.createTempDirectory("output_");
 
-            // Determine PDF/A filter based on requested format
-            String pdfFilter =
-                    "pdfa".equals(outputFormat)
-                            ? "pdf:writer_pdf_Export:{\"SelectPdfVersion\":{\"type\":\"long\",\"value\":\"2\"}}"
-                            : "pdf:writer_pdf_Export:{\"SelectPdfVersion\":{\"type\":\"long\",\"value\":\"1\"}}";
-
-            // Prepare LibreOffice command
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "soffice",
-                                    "--headless",
-                                    "--nologo",
-                                    "--convert-to",
-                                    pdfFilter,
-                                    "--outdir",
-                                    tempOutputDir.toString(),
-                                    tempInputFile.toString()));
-
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
-                            .runCommandWithOutputHandling(command);
-
-            if (returnCode.getRc() != 0) {
-                log.error("PDF/A conversion failed with return code: {}", returnCode.getRc());
-                throw new RuntimeException("PDF/A conversion failed");
-            }
+            converterPool.convert(List.of(tempInputFile), pdfFilter(outputFormat), tempOutputDir);
 
             // Get the output file
             File[] outputFiles = tempOutputDir.toFile().listFiles();
@@ -107,8 +111,8 @@ public class ConvertPDFToPDFA {
                                 + (outputFiles == null ? "none" : outputFiles.length));
             }
 
-            fileBytes = FileUtils.readFileToByteArray(outputFiles[0]);
-            String outputFilename = baseFileName + "_PDFA.pdf";
+            fileBytes = Files.readAllBytes(outputFiles[0].toPath());
+            String outputFilename = outputName(inputFile, new HashSet<>());
 
             return WebResponseUtils.bytesToWebResponse(
                     fileBytes, outputFilename, MediaType.APPLICATION_PDF);
@@ -123,4 +127,156 @@ public class ConvertPDFToPDFA {
             }
         }
     }
+
+    @PostMapping(consumes = "multipart/form-data", value = "/pdf/pdfa/batch")
+    @Operation(
+            summary = "Convert several PDFs to PDF/A",
+            description =
+                    "This endpoint converts several PDF files to PDF/A files using LibreOffice and"
+                            + " returns them as a zip. The files are shared out between parallel"
+                            + " LibreOffice instances, each converting several files per run, and"
+                            + " every converted file is added to the zip as soon as its run"
+                            + " completes. Files that cannot be converted are listed in an"
+                            + " errors.txt entry instead. Input:PDF Output:ZIP-PDF Type:MIMO")
+    public ResponseEntity<StreamingResponseBody> pdfsToPdfA(
+            @ModelAttribute BatchPdfToPdfARequest request) throws Exception {
+        MultipartFile[] inputFiles = request.getFileInput();
+        if (inputFiles == null || inputFiles.length == 0) {
+            throw new IllegalArgumentException("At least one PDF file must be provided");
+        }
+        for (MultipartFile inputFile : inputFiles) {
+            if (!"application/pdf".equals(inputFile.getContentType())) {
+                log.error("Invalid input file type: {}", inputFile.getContentType());
+                throw new IllegalArgumentException("Input files must be PDFs");
+            }
+        }
+        String pdfFilter = pdfFilter(request.getOutputFormat());
+
+        // The uploads are copied while the request is open, the conversions run while streaming
+        Path workDir = Files.createTempDirectory("pdfa_batch_");
+        List<Path> inputs = new ArrayList<>(inputFiles.length);
+        List<String> outputNames = new ArrayList<>(inputFiles.length);
+        try {
+            Path inputDir = Files.createDirectory(workDir.resolve("input"));
+            Set<String> usedNames = new HashSet<>();
+            for (int i = 0; i < inputFiles.length; i++) {
+                Path input = inputDir.resolve(i + ".pdf");
+                inputFiles[i].transferTo(input);
+                inputs.add(input);
+                outputNames.add(outputName(inputFiles[i], usedNames));
+            }
+        } catch (Exception e) {
+            FileUtils.deleteQuietly(workDir.toFile());
+            throw e;
+        }
+
+        int slots = converterPool.size();
+        int filesPerRun =
+                Math.max(1, Math.min(MAX_FILES_PER_RUN, -Math.floorDiv(-inputs.size(), slots)));
+        StreamingResponseBody body =
+                outputStream -> {
+                    ExecutorService executor = Executors.newFixedThreadPool(slots);
+                    try (ZipOutputStream zipOut = new ZipOutputStream(outputStream)) {
+                        CompletionService<ConvertedRun> runs =
+                                new ExecutorCompletionService<>(executor);
+                        int runCount = 0;
+                        for (int start = 0; start < inputs.size(); start += filesPerRun) {
+                            int from = start;
+                            int to = Math.min(start + filesPerRun, inputs.size());
+                            Path outputDir = workDir.resolve("output-" + runCount++);
+                            runs.submit(() -> convertRun(inputs, from, to, pdfFilter, outputDir));
+                        }
+                        // Runs are added as they finish, so the zip is not in upload order.
+                        // The response has already started, so failures can only be reported
+                        // in the zip itself
+                        List<String> errors = new ArrayList<>();
+                        for (int i = 0; i < runCount; i++) {
+                            ConvertedRun run = awaitRun(runs);
+                            for (int index = run.from(); index < run.to(); index++) {
+                                Path output = run.outputDir().resolve(index + ".pdf");
+                                if (run.error() != null) {
+                                    errors.add(outputNames.get(index) + ": " + run.error());
+                                } else if (!Files.isRegularFile(output)) {
+                                    // LibreOffice skips files it cannot open without failing
+                                    errors.add(
+                                            outputNames.get(index)
+                                                    + ": PDF/A conversion produced no output");
+                                } else {
+                                    zipOut.putNextEntry(new ZipEntry(outputNames.get(index)));
+                                    Files.copy(output, zipOut);
+                                    zipOut.closeEntry();
+                                }
+                            }
+                            FileUtils.deleteDirectory(run.outputDir().toFile());
+                        }
+                        if (!errors.isEmpty()) {
+                            zipOut.putNextEntry(new ZipEntry("errors.txt"));
+                            zipOut.write(
+                                    (String.join("\n", errors) + "\n")
+                                            .getBytes(StandardCharsets.UTF_8));
+                            zipOut.closeEntry();
+                        }
+                    } finally {
+                        executor.shutdownNow();
+                        FileUtils.deleteQuietly(workDir.toFile());
+                    }
+                };
+        return WebResponseUtils.streamingWebResponse(
+                body, "pdfa_documents.zip", MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * Converts inputs {@code from} to {@code to}, exclusive, in one LibreOffice run. A failed run
+     * is returned with its error rather than thrown, so that the other runs still complete.
+     */
+    private ConvertedRun convertRun(
+            List<Path> inputs, int from, int to, String pdfFilter, Path outputDir)
+            throws IOException, InterruptedException {
+        Files.createDirectory(outputDir);
+        try {
+            converterPool.convert(inputs.subList(from, to), pdfFilter, outputDir);
+        } catch (IOException | RuntimeException e) {
+            log.error("PDF/A conversion of files {} to {} failed", from + 1, to, e);
+            return new ConvertedRun(outputDir, from, to, "PDF/A conversion failed");
+        }
+        return new ConvertedRun(outputDir, from, to, null);
+    }
+
+    private ConvertedRun awaitRun(CompletionService<ConvertedRun> runs) throws IOException {
+        try {
+            return runs.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting files", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("PDF/A conversion failed", e.getCause());
+        }
+    }
+
+    private static String pdfFilter(String outputFormat) {
+        return "pdfa".equals(outputFormat)
+                ? "pdf:writer_pdf_Export:{\"SelectPdfVersion\":{\"type\":\"long\",\"value\":\"2\"}}"
+                : "pdf:writer_pdf_Export:{\"SelectPdfVersion\":{\"type\":\"long\",\"value\":\"1\"}}";
+    }
+
+    private static String outputName(MultipartFile inputFile, Set<String> usedNames) {
+        String originalFileName = Filenames.toSimpleFileName(inputFile.getOriginalFilename());
+        if (originalFileName == null || originalFileName.trim().isEmpty()) {
+            originalFileName = "output.pdf";
+        }
+        String baseFileName =
+                originalFileName.contains(".")
+                        ? originalFileName.substring(0, originalFileName.lastIndexOf('.'))
+                        : originalFileName;
+        String name = baseFileName + "_PDFA.pdf";
+        for (int i = 2; !usedNames.add(name); i++) {
+            name = baseFileName + "_PDFA_" + i + ".pdf";
+        }
+        return name;
+    }
+
+    private record ConvertedRun(Path outputDir, int from, int to, String error) {}
 }
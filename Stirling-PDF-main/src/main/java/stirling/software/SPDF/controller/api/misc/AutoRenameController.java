@@ -6,7 +6,6 @@ import java.util.Comparator;
 import java.util.List;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +24,7 @@ import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.misc.ExtractHeaderRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.misc.StreamingTextStripper;
 
 @RestController
 @RequestMapping("/api/v1/misc")
@@ -54,87 +54,7 @@ public class AutoRenameController {
         Boolean useFirstTextAsFallback = request.isUseFirstTextAsFallback();
 
         PDDocument document = pdfDocumentFactory.load(file);
-        PDFTextStripper reader =
-                new PDFTextStripper() {
-                    List<LineInfo> lineInfos = new ArrayList<>();
-                    StringBuilder lineBuilder = new StringBuilder();
-                    float lastY = -1;
-                    float maxFontSizeInLine = 0.0f;
-                    int lineCount = 0;
-
-                    @Override
-                    protected void processTextPosition(TextPosition text) {
-                        if (lastY != text.getY() && lineCount < LINE_LIMIT) {
-                            processLine();
-                            lineBuilder = new StringBuilder(text.getUnicode());
-                            maxFontSizeInLine = text.getFontSizeInPt();
-                            lastY = text.getY();
-                            lineCount++;
-                        } else if (lineCount < LINE_LIMIT) {
-                            lineBuilder.append(text.getUnicode());
-                            if (text.getFontSizeInPt() > maxFontSizeInLine) {
-                                maxFontSizeInLine = text.getFontSizeInPt();
-                            }
-                        }
-                    }
-
-                    private void processLine() {
-                        if (lineBuilder.length() > 0 && lineCount < LINE_LIMIT) {
-                            lineInfos.add(new LineInfo(lineBuilder.toString(), maxFontSizeInLine));
-                        }
-                    }
-
-                    @Override
-                    public String getText(PDDocument doc) throws IOException {
-                        this.lineInfos.clear();
-                        this.lineBuilder = new StringBuilder();
-                        this.lastY = -1;
-                        this.maxFontSizeInLine = 0.0f;
-                        this.lineCount = 0;
-                        super.getText(doc);
-                        processLine(); // Process the last line
-
-                        // Merge lines with same font size
-                        List<LineInfo> mergedLineInfos = new ArrayList<>();
-                        for (int i = 0; i < lineInfos.size(); i++) {
-                            String mergedText = lineInfos.get(i).text;
-                            float fontSize = lineInfos.get(i).fontSize;
-                            while (i + 1 < lineInfos.size()
-                                    && lineInfos.get(i + 1).fontSize == fontSize) {
-                                mergedText += " " + lineInfos.get(i + 1).text;
-                                i++;
-                            }
-                            mergedLineInfos.add(new LineInfo(mergedText, fontSize));
-                        }
-
-                        // Sort lines by font size in descending order and get the first one
-                        mergedLineInfos.sort(
-                                Comparator.comparing((LineInfo li) -> li.fontSize).reversed());
-                        String title =
-                                mergedLineInfos.isEmpty() ? null : mergedLineInfos.get(0).text;
-
-                        return title != null
-                                ? title
-                                : (useFirstTextAsFallback
-                                        ? (mergedLineInfos.isEmpty()
-                                                ? null
-                                                : mergedLineInfos.get(mergedLineInfos.size() - 1)
-                                                        .text)
-                                        : null);
-                    }
-
-                    class LineInfo {
-                        String text;
-                        float fontSize;
-
-                        LineInfo(String text, float fontSize) {
-                            this.text = text;
-                            this.fontSize = fontSize;
-                        }
-                    }
-                };
-
-        String header = reader.getText(document);
+        String header = new HeaderStripper().findHeader(document, useFirstTextAsFallback);
 
         // Sanitize the header string by removing characters not allowed in a filename.
         if (header != null && header.length() < 255) {
@@ -146,4 +66,75 @@ public class AutoRenameController {
                     document, Filenames.toSimpleFileName(file.getOriginalFilename()));
         }
     }
+
+    /**
+     * Collects the lines of the first page that has any text, together with the largest font size
+     * used on each line. Later pages are never parsed.
+     */
+    private static class HeaderStripper extends StreamingTextStripper {
+        private final List<LineInfo> lineInfos = new ArrayList<>();
+        private StringBuilder lineBuilder = new StringBuilder();
+        private float lastY = -1;
+        private float maxFontSizeInLine = 0.0f;
+        private int lineCount = 0;
+
+        @Override
+        protected void processTextPosition(TextPosition text) {
+            if (lastY != text.getY() && lineCount < LINE_LIMIT) {
+                processLine();
+                lineBuilder = new StringBuilder(text.getUnicode());
+                maxFontSizeInLine = text.getFontSizeInPt();
+                lastY = text.getY();
+                lineCount++;
+            } else if (lineCount < LINE_LIMIT) {
+                lineBuilder.append(text.getUnicode());
+                if (text.getFontSizeInPt() > maxFontSizeInLine) {
+                    maxFontSizeInLine = text.getFontSizeInPt();
+                }
+            }
+        }
+
+        private void processLine() {
+            if (lineBuilder.length() > 0 && lineCount < LINE_LIMIT) {
+                lineInfos.add(new LineInfo(lineBuilder.toString(), maxFontSizeInLine));
+            }
+            lineBuilder = new StringBuilder();
+        }
+
+        String findHeader(PDDocument doc, boolean useFirstTextAsFallback) throws IOException {
+            stream(
+                    doc,
+                    (pageNumber, pageText) -> {
+                        processLine(); // Process the last line of the page
+                        // Stop as soon as a page with text has been read
+                        return lineInfos.isEmpty();
+                    });
+
+            // Merge lines with same font size
+            List<LineInfo> mergedLineInfos = new ArrayList<>();
+            for (int i = 0; i < lineInfos.size(); i++) {
+                String mergedText = lineInfos.get(i).text;
+                float fontSize = lineInfos.get(i).fontSize;
+                while (i + 1 < lineInfos.size() && lineInfos.get(i + 1).fontSize == fontSize) {
+                    mergedText += " " + lineInfos.get(i + 1).text;
+                    i++;
+                }
+                mergedLineInfos.add(new LineInfo(mergedText, fontSize));
+            }
+
+            // Sort lines by font size in descending order and get the first one
+            mergedLineInfos.sort(Comparator.comparing((LineInfo li) -> li.fontSize).reversed());
+            String title = mergedLineInfos.isEmpty() ? null : mergedLineInfos.get(0).text;
+
+            return title != null
+                    ? title
+                    : (useFirstTextAsFallback
+                            ? (mergedLineInfos.isEmpty()
+                                    ? null
+                                    : mergedLineInfos.get(mergedLineInfos.size() - 1).text)
+                            : null);
+        }
+
+        private record LineInfo(String text, float fontSize) {}
+    }
 }
@@ -36,11 +36,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.AllArgsConstructor;
@@ -52,6 +54,7 @@ import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.config.EndpointConfiguration;
 import stirling.software.SPDF.model.api.misc.OptimizePdfRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.job.AsyncJobService;
 import stirling.software.SPDF.utils.GeneralUtils;
 import stirling.software.SPDF.utils.ProcessExecutor;
 import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
@@ -65,11 +68,14 @@ public class CompressController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
     private final boolean qpdfEnabled;
+    private final AsyncJobService asyncJobService;
 
     public CompressController(
             CustomPDFDocumentFactory pdfDocumentFactory,
-            EndpointConfiguration endpointConfiguration) {
+            EndpointConfiguration endpointConfiguration,
+            AsyncJobService asyncJobService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.asyncJobService = asyncJobService;
         this.qpdfEnabled = endpointConfiguration.isGroupEnabled("qpdf");
     }
 
@@ -653,8 +659,21 @@ public class CompressController {
             description =
                     "This endpoint accepts a PDF file and optimizes it based on the provided"
                             + " parameters. Input:PDF Output:PDF Type:SISO")
-    public ResponseEntity<byte[]> optimizePdf(@ModelAttribute OptimizePdfRequest request)
+    public ResponseEntity<byte[]> optimizePdf(
+            @ModelAttribute OptimizePdfRequest request,
+            @Parameter(description = "Process in the background and return a job id")
+                    @RequestParam(defaultValue = "false")
+                    boolean async)
             throws Exception {
+        if (async && asyncJobService.isEnabled()) {
+            return asyncJobService.submit(
+                    "compress-pdf",
+                    request.getFileInput(),
+                    input -> {
+                        request.setFileInput(input);
+                        return optimizePdf(request, false);
+                    });
+        }
         MultipartFile inputFile = request.getFileInput();
         Integer optimizeLevel = request.getOptimizeLevel();
         String expectedOutputSizeString = request.getExpectedOutputSize();
@@ -1,16 +1,7 @@
 package stirling.software.SPDF.controller.api.misc;
 
-import java.awt.image.BufferedImage;
-import java.io.IOException;
-
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -27,6 +18,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.model.api.misc.FlattenRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.PdfRasterizationService;
+import stirling.software.SPDF.service.PdfRasterizationService.ImageEncoding;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
@@ -37,9 +30,14 @@ public class FlattenController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final PdfRasterizationService rasterizationService;
+
     @Autowired
-    public FlattenController(CustomPDFDocumentFactory pdfDocumentFactory) {
+    public FlattenController(
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            PdfRasterizationService rasterizationService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.rasterizationService = rasterizationService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/flatten")
@@ -64,28 +62,15 @@ public class FlattenController {
         } else {
             // flatten whole page aka convert each page to image and readd it (making text
             // unselectable)
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
             PDDocument newDocument =
                     pdfDocumentFactory.createNewDocumentBasedOnOldDocument(document);
-            int numPages = document.getNumberOfPages();
-            for (int i = 0; i < numPages; i++) {
-                try {
-                    BufferedImage image = pdfRenderer.renderImageWithDPI(i, 300, ImageType.RGB);
-                    PDPage page = new PDPage();
-                    page.setMediaBox(document.getPage(i).getMediaBox());
-                    newDocument.addPage(page);
-                    try (PDPageContentStream contentStream =
-                            new PDPageContentStream(newDocument, page)) {
-                        PDImageXObject pdImage = JPEGFactory.createFromImage(newDocument, image);
-                        float pageWidth = page.getMediaBox().getWidth();
-                        float pageHeight = page.getMediaBox().getHeight();
-
-                        contentStream.drawImage(pdImage, 0, 0, pageWidth, pageHeight);
-                    }
-                } catch (IOException e) {
-                    log.error("exception", e);
-                }
-            }
+            rasterizationService.rasterizeToDocument(
+                    document,
+                    newDocument,
+                    PdfRasterizationService.DEFAULT_DPI,
+                    ImageEncoding.JPEG,
+                    null);
+            document.close();
             return WebResponseUtils.pdfDocToWebResponse(
                     newDocument, Filenames.toSimpleFileName(file.getOriginalFilename()));
         }
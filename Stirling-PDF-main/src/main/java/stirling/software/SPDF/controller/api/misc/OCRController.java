@@ -20,12 +20,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.github.pixee.security.BoundedLineReader;
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +35,7 @@ import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.api.misc.ProcessPdfWithOcrRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.job.AsyncJobService;
 
 @RestController
 @RequestMapping("/api/v1/misc")
@@ -44,11 +47,15 @@ public class OCRController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final AsyncJobService asyncJobService;
+
     public OCRController(
             ApplicationProperties applicationProperties,
-            CustomPDFDocumentFactory pdfDocumentFactory) {
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            AsyncJobService asyncJobService) {
         this.applicationProperties = applicationProperties;
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.asyncJobService = asyncJobService;
     }
 
     /** Gets the list of available Tesseract languages from the tessdata directory */
@@ -73,8 +80,20 @@ public class OCRController {
                             + " (skip-text/force-ocr), and returns the processed PDF. Input:PDF"
                             + " Output:PDF Type:SISO")
     public ResponseEntity<byte[]> processPdfWithOCR(
-            @ModelAttribute ProcessPdfWithOcrRequest request)
+            @ModelAttribute ProcessPdfWithOcrRequest request,
+            @Parameter(description = "Process in the background and return a job id")
+                    @RequestParam(defaultValue = "false")
+                    boolean async)
             throws IOException, InterruptedException {
+        if (async && asyncJobService.isEnabled()) {
+            return asyncJobService.submit(
+                    "ocr-pdf",
+                    request.getFileInput(),
+                    input -> {
+                        request.setFileInput(input);
+                        return processPdfWithOCR(request, false);
+                    });
+        }
         MultipartFile inputFile = request.getFileInput();
         List<String> languages = request.getLanguages();
         String ocrType = request.getOcrType();
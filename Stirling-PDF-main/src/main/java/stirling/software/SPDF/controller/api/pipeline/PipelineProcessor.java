@@ -11,11 +11,13 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -36,6 +38,8 @@ import stirling.software.SPDF.model.PipelineConfig;
 import stirling.software.SPDF.model.PipelineOperation;
 import stirling.software.SPDF.model.PipelineResult;
 import stirling.software.SPDF.model.Role;
+import stirling.software.SPDF.utils.FileBackedMultipartFile;
+import stirling.software.SPDF.utils.UploadSpool;
 
 @Service
 @Slf4j
@@ -316,14 +320,29 @@ public class PipelineProcessor {
         }
         List<Resource> outputFiles = new ArrayList<>();
         for (MultipartFile file : files) {
-            Resource fileResource =
-                    new ByteArrayResource(file.getBytes()) {
+            String filename = Filenames.toSimpleFileName(file.getOriginalFilename());
+            Optional<FileBackedMultipartFile> onDisk = UploadSpool.onDisk(file);
+            Resource fileResource;
+            if (onDisk.isPresent()) {
+                // Streamed from the upload's on-disk copy instead of being held in memory
+                fileResource =
+                        new FileSystemResource(onDisk.get().getPath()) {
 
-                        @Override
-                        public String getFilename() {
-                            return Filenames.toSimpleFileName(file.getOriginalFilename());
-                        }
-                    };
+                            @Override
+                            public String getFilename() {
+                                return filename;
+                            }
+                        };
+            } else {
+                fileResource =
+                        new ByteArrayResource(file.getBytes()) {
+
+                            @Override
+                            public String getFilename() {
+                                return filename;
+                            }
+                        };
+            }
             outputFiles.add(fileResource);
         }
         log.info("Files successfully loaded. Starting processing...");
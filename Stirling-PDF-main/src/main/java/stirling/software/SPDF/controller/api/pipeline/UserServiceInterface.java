@@ -5,5 +5,7 @@ public interface UserServiceInterface {
 
     String getCurrentUsername();
 
+    boolean isCurrentUserAdmin();
+
     long getTotalUsersCount();
 }
@@ -3,15 +3,26 @@ package stirling.software.SPDF.controller.api.security;
 import java.awt.*;
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
 import java.util.Calendar;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.pdfbox.examples.signature.CreateSignatureBase;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -54,12 +65,16 @@ import org.bouncycastle.pkcs.PKCS8EncryptedPrivateKeyInfo;
 import org.bouncycastle.pkcs.PKCSException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 import io.swagger.v3.oas.annotations.Operation;
@@ -67,8 +82,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import lombok.extern.slf4j.Slf4j;
 
+import stirling.software.SPDF.controller.api.pipeline.UserServiceInterface;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.api.security.BatchSignPDFWithCertRequest;
 import stirling.software.SPDF.model.api.security.SignPDFWithCertRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.utils.UploadSpool;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
@@ -81,11 +100,29 @@ public class CertSignController {
         Security.addProvider(new BouncyCastleProvider());
     }
 
+    // Signed files allowed to wait for the zip writer, per worker
+    private static final int IN_FLIGHT_FILES_PER_WORKER = 2;
+
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final ApplicationProperties applicationProperties;
+
+    // Signing identity loaded from the server keystore, reused until the file changes
+    private volatile ServerSigningIdentity serverSigningIdentity;
+
+    private record ServerSigningIdentity(
+            Path file, long lastModified, CreateSignature createSignature) {}
+
+    private final UserServiceInterface userService;
+
     @Autowired
-    public CertSignController(CustomPDFDocumentFactory pdfDocumentFactory) {
+    public CertSignController(
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            ApplicationProperties applicationProperties,
+            @Autowired(required = false) UserServiceInterface userService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.applicationProperties = applicationProperties;
+        this.userService = userService;
     }
 
     private static void sign(
@@ -99,6 +136,35 @@ public class CertSignController {
             String location,
             String reason,
             Boolean showLogo) {
+        try {
+            signDocument(
+                    pdfDocumentFactory,
+                    input,
+                    output,
+                    instance,
+                    showSignature,
+                    pageNumber,
+                    name,
+                    location,
+                    reason,
+                    showLogo);
+        } catch (Exception e) {
+            log.error("exception", e);
+        }
+    }
+
+    private static void signDocument(
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            MultipartFile input,
+            OutputStream output,
+            CreateSignature instance,
+            Boolean showSignature,
+            Integer pageNumber,
+            String name,
+            String location,
+            String reason,
+            Boolean showLogo)
+            throws IOException {
         try (PDDocument doc = pdfDocumentFactory.load(input)) {
             PDSignature signature = new PDSignature();
             signature.setFilter(PDSignature.FILTER_ADOBE_PPKLITE);
@@ -120,8 +186,6 @@ public class CertSignController {
                 doc.addSignature(signature, instance);
             }
             doc.saveIncremental(output);
-        } catch (Exception e) {
-            log.error("exception", e);
         }
     }
 
@@ -152,8 +216,226 @@ public class CertSignController {
             throw new IllegalArgumentException("Cert type must be provided");
         }
 
-        KeyStore ks = null;
+        KeyStore ks = loadKeyStore(certType, privateKeyFile, certFile, p12File, jksfile, password);
+
+        CreateSignature createSignature = new CreateSignature(ks, password.toCharArray());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        sign(
+                pdfDocumentFactory,
+                pdf,
+                baos,
+                createSignature,
+                showSignature,
+                pageNumber,
+                name,
+                location,
+                reason,
+                showLogo);
+        return WebResponseUtils.boasToWebResponse(
+                baos,
+                Filenames.toSimpleFileName(pdf.getOriginalFilename()).replaceFirst("[.][^.]+$", "")
+                        + "_signed.pdf");
+    }
+
+    @PostMapping(consumes = "multipart/form-data", value = "/cert-sign/batch")
+    @Operation(
+            summary = "Sign several PDFs with one digital certificate",
+            description =
+                    "This endpoint signs every uploaded PDF file with the same digital certificate"
+                            + " and returns the signed files as a zip. The certificate is either"
+                            + " uploaded with the batch or taken from the keystore configured on"
+                            + " the server, and is only loaded once. The files are signed"
+                            + " concurrently, each with its own incremental save."
+                            + " Input:PDF Output:ZIP-PDF Type:MIMO")
+    public ResponseEntity<StreamingResponseBody> signPDFsWithCert(
+            @ModelAttribute BatchSignPDFWithCertRequest request) throws Exception {
+        MultipartFile[] pdfs = request.getFileInput();
+        if (pdfs == null || pdfs.length == 0) {
+            throw new IllegalArgumentException("At least one PDF file must be provided");
+        }
+
+        CreateSignature createSignature;
+        if (request.isUseServerCertificate()) {
+            checkServerSignatureAllowed();
+            createSignature = getServerSignature();
+        } else {
+            if (request.getCertType() == null) {
+                throw new IllegalArgumentException("Cert type must be provided");
+            }
+            String password = request.getPassword();
+            KeyStore ks =
+                    loadKeyStore(
+                            request.getCertType(),
+                            request.getPrivateKeyFile(),
+                            request.getCertFile(),
+                            request.getP12File(),
+                            request.getJksFile(),
+                            password);
+            createSignature = new CreateSignature(ks, password.toCharArray());
+        }
 
+        Boolean showSignature = request.isShowSignature();
+        Integer pageNumber = request.getPageNumber() != null ? request.getPageNumber() - 1 : 0;
+        Boolean showLogo = request.isShowLogo();
+
+        int workers = Math.min(Runtime.getRuntime().availableProcessors(), pdfs.length);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        Path zipFile = Files.createTempFile("signed_documents", ".zip");
+        try {
+            try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+                Set<String> entryNames = new HashSet<>();
+                int nextToWrite = 0;
+                for (MultipartFile upload : pdfs) {
+                    // Workers have no request, so they get the request's on-disk copy directly
+                    MultipartFile pdf =
+                            UploadSpool.onDisk(upload)
+                                    .<MultipartFile>map(onDisk -> onDisk)
+                                    .orElse(upload);
+                    inFlight.add(
+                            executor.submit(
+                                    () -> {
+                                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                                        signDocument(
+                                                pdfDocumentFactory,
+                                                pdf,
+                                                baos,
+                                                createSignature,
+                                                showSignature,
+                                                pageNumber,
+                                                request.getName(),
+                                                request.getLocation(),
+                                                request.getReason(),
+                                                showLogo);
+                                        return baos.toByteArray();
+                                    }));
+                    if (inFlight.size() >= workers * IN_FLIGHT_FILES_PER_WORKER) {
+                        writeSignedEntry(zipOut, entryNames, pdfs[nextToWrite++], inFlight.poll());
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    writeSignedEntry(zipOut, entryNames, pdfs[nextToWrite++], inFlight.poll());
+                }
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(zipFile);
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Every file is signed before the response starts, so failures still get an error status,
+        // and the zip is streamed from disk rather than held in memory
+        StreamingResponseBody body =
+                outputStream -> {
+                    try {
+                        Files.copy(zipFile, outputStream);
+                    } finally {
+                        Files.deleteIfExists(zipFile);
+                    }
+                };
+        return WebResponseUtils.streamingWebResponse(
+                body, "signed_documents.zip", MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    private void writeSignedEntry(
+            ZipOutputStream zipOut,
+            Set<String> entryNames,
+            MultipartFile pdf,
+            Future<byte[]> signed)
+            throws IOException {
+        String baseName =
+                Filenames.toSimpleFileName(pdf.getOriginalFilename()).replaceFirst("[.][^.]+$", "");
+        byte[] signedPdf;
+        try {
+            signedPdf = signed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while signing files", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to sign " + baseName, e.getCause());
+        }
+        String entryName = baseName + "_signed.pdf";
+        for (int i = 2; !entryNames.add(entryName); i++) {
+            entryName = baseName + "_signed_" + i + ".pdf";
+        }
+        zipOut.putNextEntry(new ZipEntry(entryName));
+        zipOut.write(signedPdf);
+        zipOut.closeEntry();
+    }
+
+    /**
+     * Signing with the server's key vouches for the document in the server's name, so it is limited
+     * to admins and the users configured for it, and never available without login.
+     */
+    private void checkServerSignatureAllowed() {
+        if (userService == null
+                || !Boolean.TRUE.equals(applicationProperties.getSecurity().getEnableLogin())) {
+            throw new ResponseStatusException(
+                    HttpStatus.FORBIDDEN, "Signing with the server keystore requires login");
+        }
+        String username = userService.getCurrentUsername();
+        List<String> allowedUsers =
+                applicationProperties.getSystem().getSigningKeystore().getAllowedUsers();
+        if (!userService.isCurrentUserAdmin()
+                && (username == null || allowedUsers == null || !allowedUsers.contains(username))) {
+            throw new ResponseStatusException(
+                    HttpStatus.FORBIDDEN, "Not allowed to sign with the server keystore");
+        }
+    }
+
+    /**
+     * Returns the signing identity of the keystore configured on the server. The keystore is only
+     * read and its private key unlocked again when the file changes.
+     */
+    private CreateSignature getServerSignature() throws Exception {
+        ApplicationProperties.SigningKeystore config =
+                applicationProperties.getSystem().getSigningKeystore();
+        if (config.getFile() == null || config.getFile().isBlank()) {
+            throw new IllegalArgumentException("No signing keystore is configured on the server");
+        }
+        Path file = Paths.get(config.getFile());
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        ServerSigningIdentity identity = serverSigningIdentity;
+        if (identity == null
+                || !identity.file().equals(file)
+                || identity.lastModified() != lastModified) {
+            synchronized (this) {
+                identity = serverSigningIdentity;
+                if (identity == null
+                        || !identity.file().equals(file)
+                        || identity.lastModified() != lastModified) {
+                    char[] password =
+                            config.getPassword() != null
+                                    ? config.getPassword().toCharArray()
+                                    : new char[0];
+                    KeyStore ks = KeyStore.getInstance(config.getType());
+                    try (InputStream is = Files.newInputStream(file)) {
+                        ks.load(is, password);
+                    }
+                    identity =
+                            new ServerSigningIdentity(
+                                    file, lastModified, new CreateSignature(ks, password));
+                    serverSigningIdentity = identity;
+                    log.info("Loaded server signing keystore {}", file);
+                }
+            }
+        }
+        // The certificate may have expired since it was loaded
+        ((X509Certificate) identity.createSignature().getCertificateChain()[0]).checkValidity();
+        return identity.createSignature();
+    }
+
+    private KeyStore loadKeyStore(
+            String certType,
+            MultipartFile privateKeyFile,
+            MultipartFile certFile,
+            MultipartFile p12File,
+            MultipartFile jksfile,
+            String password)
+            throws Exception {
+        KeyStore ks;
         switch (certType) {
             case "PEM":
                 ks = KeyStore.getInstance("JKS");
@@ -174,24 +456,7 @@ public class CertSignController {
             default:
                 throw new IllegalArgumentException("Invalid cert type: " + certType);
         }
-
-        CreateSignature createSignature = new CreateSignature(ks, password.toCharArray());
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        sign(
-                pdfDocumentFactory,
-                pdf,
-                baos,
-                createSignature,
-                showSignature,
-                pageNumber,
-                name,
-                location,
-                reason,
-                showLogo);
-        return WebResponseUtils.boasToWebResponse(
-                baos,
-                Filenames.toSimpleFileName(pdf.getOriginalFilename()).replaceFirst("[.][^.]+$", "")
-                        + "_signed.pdf");
+        return ks;
     }
 
     private PrivateKey getPrivateKeyFromPEM(byte[] pemBytes, String password)
@@ -224,7 +489,7 @@ public class CertSignController {
     }
 
     class CreateSignature extends CreateSignatureBase {
-        File logoFile;
+        private final byte[] logo;
 
         public CreateSignature(KeyStore keystore, char[] pin)
                 throws KeyStoreException,
@@ -235,8 +500,7 @@ public class CertSignController {
             super(keystore, pin);
             ClassPathResource resource = new ClassPathResource("static/images/signature.png");
             try (InputStream is = resource.getInputStream()) {
-                logoFile = Files.createTempFile("signature", ".png").toFile();
-                FileUtils.copyInputStreamToFile(is, logoFile);
+                logo = is.readAllBytes();
             } catch (IOException e) {
                 log.error("Failed to load image signature file");
                 throw e;
@@ -291,7 +555,7 @@ public class CertSignController {
                         cs.setGraphicsStateParameters(extState);
                         cs.transform(Matrix.getScaleInstance(0.08f, 0.08f));
                         PDImageXObject img =
-                                PDImageXObject.createFromFileByExtension(logoFile, doc);
+                                PDImageXObject.createFromByteArray(doc, logo, "signature.png");
                         cs.drawImage(img, 100, 0);
                         cs.restoreGraphicsState();
                     }
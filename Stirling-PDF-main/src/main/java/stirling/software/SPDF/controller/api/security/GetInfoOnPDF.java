@@ -38,7 +38,6 @@ import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlin
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineNode;
 import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.pdmodel.interactive.form.PDField;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.xmpbox.XMPMetadata;
 import org.apache.xmpbox.xml.DomXmpParser;
 import org.apache.xmpbox.xml.XmpParsingException;
@@ -64,6 +63,7 @@ import lombok.extern.slf4j.Slf4j;
 import stirling.software.SPDF.model.api.PDFFile;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
 import stirling.software.SPDF.utils.WebResponseUtils;
+import stirling.software.SPDF.utils.misc.TextStatistics;
 
 @RestController
 @RequestMapping("/api/v1/security")
@@ -154,16 +154,15 @@ public class GetInfoOnPDF {
             long fileSizeInBytes = inputFile.getSize();
             basicInfo.put("FileSizeInBytes", fileSizeInBytes);
 
-            // Number of words, paragraphs, and images in the entire document
-            String fullText = new PDFTextStripper().getText(pdfBoxDoc);
-            String[] words = fullText.split("\\s+");
-            int wordCount = words.length;
-            int paragraphCount = fullText.split("\r\n|\r|\n").length;
-            basicInfo.put("WordCount", wordCount);
-            basicInfo.put("ParagraphCount", paragraphCount);
+            // Number of words, paragraphs and characters in the entire document, read one page at
+            // a time (large documents are split across workers, each with its own copy)
+            TextStatistics textStatistics =
+                    TextStatistics.collect(
+                            pdfBoxDoc, () -> pdfDocumentFactory.load(inputFile, readonly));
+            basicInfo.put("WordCount", textStatistics.getWordCount());
+            basicInfo.put("ParagraphCount", textStatistics.getLineCount());
             // Number of characters in the entire document (including spaces and special characters)
-            int charCount = fullText.length();
-            basicInfo.put("CharacterCount", charCount);
+            basicInfo.put("CharacterCount", textStatistics.getCharacterCount());
 
             // Initialize the flags and types
             boolean hasCompression = false;
@@ -406,12 +405,8 @@ public class GetInfoOnPDF {
                 pageInfo.put("ArtBox", artBox == null ? "Undefined" : artBox.toString());
 
                 // Content Extraction
-                PDFTextStripper textStripper = new PDFTextStripper();
-                textStripper.setStartPage(pageNum + 1);
-                textStripper.setEndPage(pageNum + 1);
-                String pageText = textStripper.getText(pdfBoxDoc);
-
-                pageInfo.put("Text Characters Count", pageText.length()); //
+                pageInfo.put(
+                        "Text Characters Count", textStatistics.getPageCharacterCount(pageNum + 1));
 
                 // Annotations
 
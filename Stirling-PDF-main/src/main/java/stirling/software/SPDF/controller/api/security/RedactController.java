@@ -36,8 +36,8 @@ import stirling.software.SPDF.model.api.security.RedactPdfRequest;
 import stirling.software.SPDF.model.api.security.RedactionArea;
 import stirling.software.SPDF.pdf.TextFinder;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.PdfRasterizationService;
 import stirling.software.SPDF.utils.GeneralUtils;
-import stirling.software.SPDF.utils.PdfUtils;
 import stirling.software.SPDF.utils.WebResponseUtils;
 import stirling.software.SPDF.utils.propertyeditor.StringToArrayListPropertyEditor;
 
@@ -49,9 +49,14 @@ public class RedactController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final PdfRasterizationService rasterizationService;
+
     @Autowired
-    public RedactController(CustomPDFDocumentFactory pdfDocumentFactory) {
+    public RedactController(
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            PdfRasterizationService rasterizationService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.rasterizationService = rasterizationService;
     }
 
     @InitBinder
@@ -80,7 +85,7 @@ public class RedactController {
         redactAreas(redactionAreas, document, allPages);
 
         if (request.isConvertPDFToImage()) {
-            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(document);
+            PDDocument convertedPdf = rasterizationService.convertToImagePdf(document);
             document.close();
             document = convertedPdf;
         }
@@ -232,7 +237,7 @@ public class RedactController {
         }
 
         if (convertPDFToImage) {
-            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(document);
+            PDDocument convertedPdf = rasterizationService.convertToImagePdf(document);
             document.close();
             document = convertedPdf;
         }
@@ -1,7 +1,9 @@
 package stirling.software.SPDF.controller.api.security;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
@@ -9,13 +11,16 @@ import java.security.interfaces.RSAPublicKey;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cms.CMSProcessable;
-import org.bouncycastle.cms.CMSProcessableByteArray;
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.SignerInformation;
 import org.bouncycastle.cms.SignerInformationStore;
@@ -36,6 +41,8 @@ import stirling.software.SPDF.model.api.security.SignatureValidationRequest;
 import stirling.software.SPDF.model.api.security.SignatureValidationResult;
 import stirling.software.SPDF.service.CertificateValidationService;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.utils.FileBackedMultipartFile;
+import stirling.software.SPDF.utils.UploadSpool;
 
 @RestController
 @RequestMapping("/api/v1/security")
@@ -76,17 +83,19 @@ public class ValidateSignatureController {
             }
         }
 
-        try (PDDocument document = pdfDocumentFactory.load(file.getInputStream())) {
+        // Every signature's byte ranges are read from one view of the upload
+        try (PDDocument document = pdfDocumentFactory.load(file, true);
+                RandomAccessRead upload = openUpload(file)) {
             List<PDSignature> signatures = document.getSignatureDictionaries();
 
             for (PDSignature sig : signatures) {
                 SignatureValidationResult result = new SignatureValidationResult();
 
                 try {
-                    byte[] signedContent = sig.getSignedContent(file.getInputStream());
-                    byte[] signatureBytes = sig.getContents(file.getInputStream());
+                    // The signature itself was already parsed with the signature dictionary
+                    byte[] signatureBytes = sig.getContents();
 
-                    CMSProcessable content = new CMSProcessableByteArray(signedContent);
+                    CMSProcessable content = new SignedRanges(upload, sig.getByteRange());
                     CMSSignedData signedData = new CMSSignedData(content, signatureBytes);
 
                     Store<X509CertificateHolder> certStore = signedData.getCertificates();
@@ -178,4 +187,42 @@ public class ValidateSignatureController {
 
         return ResponseEntity.ok(results);
     }
+
+    private RandomAccessRead openUpload(MultipartFile file) throws IOException {
+        Optional<FileBackedMultipartFile> onDisk = UploadSpool.onDisk(file);
+        if (onDisk.isPresent()) {
+            return new RandomAccessReadBufferedFile(onDisk.get().getPath().toFile());
+        }
+        return new RandomAccessReadBuffer(file.getInputStream());
+    }
+
+    /**
+     * The byte ranges covered by a signature, streamed from the upload while the digest is computed
+     * instead of being copied into one array first.
+     */
+    private record SignedRanges(RandomAccessRead source, int[] byteRange)
+            implements CMSProcessable {
+
+        @Override
+        public void write(OutputStream out) throws IOException {
+            byte[] buffer = new byte[64 * 1024];
+            for (int i = 0; i + 1 < byteRange.length; i += 2) {
+                source.seek(byteRange[i]);
+                long remaining = byteRange[i + 1];
+                while (remaining > 0) {
+                    int read = source.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException("Signed byte range exceeds the file");
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+
+        @Override
+        public Object getContent() {
+            return byteRange.clone();
+        }
+    }
 }
@@ -37,7 +37,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 
 import stirling.software.SPDF.model.api.security.AddWatermarkRequest;
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
-import stirling.software.SPDF.utils.PdfUtils;
+import stirling.software.SPDF.service.PdfRasterizationService;
 import stirling.software.SPDF.utils.WebResponseUtils;
 
 @RestController
@@ -47,9 +47,14 @@ public class WatermarkController {
 
     private final CustomPDFDocumentFactory pdfDocumentFactory;
 
+    private final PdfRasterizationService rasterizationService;
+
     @Autowired
-    public WatermarkController(CustomPDFDocumentFactory pdfDocumentFactory) {
+    public WatermarkController(
+            CustomPDFDocumentFactory pdfDocumentFactory,
+            PdfRasterizationService rasterizationService) {
         this.pdfDocumentFactory = pdfDocumentFactory;
+        this.rasterizationService = rasterizationService;
     }
 
     @PostMapping(consumes = "multipart/form-data", value = "/add-watermark")
@@ -119,7 +124,7 @@ public class WatermarkController {
         }
 
         if (convertPdfToImage) {
-            PDDocument convertedPdf = PdfUtils.convertPdfToPdfImage(document);
+            PDDocument convertedPdf = rasterizationService.convertToImagePdf(document);
             document.close();
             document = convertedPdf;
         }
@@ -112,6 +112,7 @@ public class ApplicationProperties {
         private long loginResetTimeMinutes;
         private String loginMethod = "all";
         private String customGlobalAPIKey;
+        private RateLimit rateLimit = new RateLimit();
 
         public Boolean isAltLogin() {
             return saml2.getEnabled() || oauth2.getEnabled();
@@ -152,6 +153,14 @@ public class ApplicationProperties {
                     && !loginMethod.equalsIgnoreCase(LoginMethods.NORMAL.toString()));
         }
 
+        @Data
+        public static class RateLimit {
+            private String backend = "memory";
+            private int maxEntries = 100000;
+            private boolean costWeighted = false;
+            private int megabytesPerCostUnit = 10;
+        }
+
         @Data
         public static class InitialLogin {
             private String username;
@@ -289,13 +298,33 @@ public class ApplicationProperties {
         private Datasource datasource;
         private Boolean disableSanitize;
         private Boolean enableUrlToPDF;
+        private boolean virtualThreads;
         private CustomPaths customPaths = new CustomPaths();
+        private AsyncJobs asyncJobs = new AsyncJobs();
+        private SigningKeystore signingKeystore = new SigningKeystore();
 
         public boolean isAnalyticsEnabled() {
             return this.getEnableAnalytics() != null && this.getEnableAnalytics();
         }
     }
 
+    @Data
+    public static class AsyncJobs {
+        private boolean enabled = true;
+        private int concurrency = 2;
+        private int queueCapacity = 50;
+        private int resultRetentionMinutes = 60;
+        private String directory;
+    }
+
+    @Data
+    public static class SigningKeystore {
+        private String file;
+        private String type = "PKCS12";
+        private String password;
+        private List<String> allowedUsers = new ArrayList<>();
+    }
+
     @Data
     public static class CustomPaths {
         private Pipeline pipeline = new Pipeline();
@@ -311,7 +340,6 @@ public class ApplicationProperties {
         @Data
         public static class Operations {
             private String weasyprint;
-            private String unoconvert;
         }
     }
 
@@ -509,7 +537,10 @@ public class ApplicationProperties {
             }
 
             public int getLibreOfficeSessionLimit() {
-                return libreOfficeSessionLimit > 0 ? libreOfficeSessionLimit : 1;
+                // Every session has its own LibreOffice profile, so they can run side by side
+                return libreOfficeSessionLimit > 0
+                        ? libreOfficeSessionLimit
+                        : Runtime.getRuntime().availableProcessors();
             }
 
             public int getPdfToHtmlSessionLimit() {
@@ -0,0 +1,22 @@
+package stirling.software.SPDF.model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+@Entity
+@Data
+@Table(name = "rate_limit_counters")
+public class RateLimitCounter implements Serializable {
+    // Scope, hashed identifier and window start, see RateLimitService
+    @Id private String bucketId;
+
+    // Epoch millis after which the counter can be deleted
+    private long windowEnd;
+
+    private long requestCount;
+}
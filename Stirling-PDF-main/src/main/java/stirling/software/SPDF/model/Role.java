@@ -6,37 +6,58 @@ import java.util.Map;
 public enum Role {
 
     // Unlimited access
-    ADMIN("ROLE_ADMIN", Integer.MAX_VALUE, Integer.MAX_VALUE, "adminUserSettings.admin"),
+    ADMIN(
+            "ROLE_ADMIN",
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            "adminUserSettings.admin"),
 
     // Unlimited access
-    USER("ROLE_USER", Integer.MAX_VALUE, Integer.MAX_VALUE, "adminUserSettings.user"),
+    USER(
+            "ROLE_USER",
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            "adminUserSettings.user"),
 
-    // 40 API calls Per Day, 40 web calls
-    LIMITED_API_USER("ROLE_LIMITED_API_USER", 40, 40, "adminUserSettings.apiUser"),
+    // 40 API calls Per Day, 40 web calls, 10 units per heavy operation group
+    LIMITED_API_USER("ROLE_LIMITED_API_USER", 40, 40, 10, "adminUserSettings.apiUser"),
 
-    // 20 API calls Per Day, 20 web calls
-    EXTRA_LIMITED_API_USER("ROLE_EXTRA_LIMITED_API_USER", 20, 20, "adminUserSettings.extraApiUser"),
+    // 20 API calls Per Day, 20 web calls, 5 units per heavy operation group
+    EXTRA_LIMITED_API_USER(
+            "ROLE_EXTRA_LIMITED_API_USER", 20, 20, 5, "adminUserSettings.extraApiUser"),
 
-    // 0 API calls per day and 20 web calls
-    WEB_ONLY_USER("ROLE_WEB_ONLY_USER", 0, 20, "adminUserSettings.webOnlyUser"),
+    // 0 API calls per day and 20 web calls, 5 units per heavy operation group
+    WEB_ONLY_USER("ROLE_WEB_ONLY_USER", 0, 20, 5, "adminUserSettings.webOnlyUser"),
 
     INTERNAL_API_USER(
             "STIRLING-PDF-BACKEND-API-USER",
             Integer.MAX_VALUE,
             Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
             "adminUserSettings.internalApiUser"),
 
-    DEMO_USER("ROLE_DEMO_USER", 100, 100, "adminUserSettings.demoUser");
+    DEMO_USER("ROLE_DEMO_USER", 100, 100, 25, "adminUserSettings.demoUser");
 
     private final String roleId;
     private final int apiCallsPerDay;
     private final int webCallsPerDay;
+    // Budget for each heavy operation group (OCR, LibreOffice, compression) when cost weighted
+    // rate limiting is enabled
+    private final int heavyUnitsPerDay;
     private final String roleName;
 
-    Role(String roleId, int apiCallsPerDay, int webCallsPerDay, String roleName) {
+    Role(
+            String roleId,
+            int apiCallsPerDay,
+            int webCallsPerDay,
+            int heavyUnitsPerDay,
+            String roleName) {
         this.roleId = roleId;
         this.apiCallsPerDay = apiCallsPerDay;
         this.webCallsPerDay = webCallsPerDay;
+        this.heavyUnitsPerDay = heavyUnitsPerDay;
         this.roleName = roleName;
     }
 
@@ -78,6 +99,10 @@ public enum Role {
         return webCallsPerDay;
     }
 
+    public int getHeavyUnitsPerDay() {
+        return heavyUnitsPerDay;
+    }
+
     public String getRoleName() {
         return roleName;
     }
@@ -0,0 +1,22 @@
+package stirling.software.SPDF.model.api;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AnalysisRequest extends PDFFile {
+
+    @Schema(
+            description =
+                    "Sections to compute, comma separated. When empty, every section except"
+                            + " TEXT_STATISTICS, PAGE_FONTS and PAGE_IMAGES is computed",
+            example = "PAGE_COUNT,DOCUMENT_PROPERTIES,TEXT_STATISTICS",
+            requiredMode = RequiredMode.NOT_REQUIRED)
+    private List<AnalysisSection> sections;
+}
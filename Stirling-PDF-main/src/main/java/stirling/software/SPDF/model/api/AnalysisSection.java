@@ -0,0 +1,41 @@
+package stirling.software.SPDF.model.api;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+
+/** Sections that can be computed by the batched analysis endpoint. */
+@Getter
+public enum AnalysisSection {
+    PAGE_COUNT("pageCount", false),
+    BASIC_INFO("basicInfo", false),
+    DOCUMENT_PROPERTIES("documentProperties", false),
+    PAGE_DIMENSIONS("pageDimensions", false),
+    FORM_FIELDS("formFields", false),
+    ANNOTATION_INFO("annotationInfo", false),
+    FONT_INFO("fontInfo", false),
+    SECURITY_INFO("securityInfo", false),
+    // Sections below walk page content and are only computed when explicitly requested
+    TEXT_STATISTICS("textStatistics", true),
+    PAGE_FONTS("pageFonts", true),
+    PAGE_IMAGES("pageImages", true);
+
+    private final String key;
+
+    private final boolean expensive;
+
+    AnalysisSection(String key, boolean expensive) {
+        this.key = key;
+        this.expensive = expensive;
+    }
+
+    /** The sections computed when a request does not name any. */
+    public static Set<AnalysisSection> defaults() {
+        return Arrays.stream(values())
+                .filter(section -> !section.isExpensive())
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(AnalysisSection.class)));
+    }
+}
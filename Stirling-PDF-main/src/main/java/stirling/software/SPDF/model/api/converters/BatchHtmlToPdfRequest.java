@@ -0,0 +1,21 @@
+package stirling.software.SPDF.model.api.converters;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@Data
+@EqualsAndHashCode
+@NoArgsConstructor
+public class BatchHtmlToPdfRequest {
+
+    @Schema(
+            description = "The input HTML, Markdown or ZIP (containing HTML and CSS) files",
+            type = "array",
+            format = "binary")
+    private MultipartFile[] fileInput;
+}
@@ -0,0 +1,18 @@
+package stirling.software.SPDF.model.api.converters;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import stirling.software.SPDF.model.api.MultiplePDFFiles;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BatchPdfToPdfARequest extends MultiplePDFFiles {
+
+    @Schema(
+            description = "The output PDF/A type",
+            allowableValues = {"pdfa", "pdfa-1"})
+    private String outputFormat;
+}
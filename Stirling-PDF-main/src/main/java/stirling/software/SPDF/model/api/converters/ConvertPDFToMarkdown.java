@@ -10,6 +10,7 @@ import org.springframework.web.multipart.MultipartFile;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import stirling.software.SPDF.model.ApplicationProperties;
 import stirling.software.SPDF.model.api.PDFFile;
 import stirling.software.SPDF.utils.PDFToFile;
 
@@ -18,6 +19,12 @@ import stirling.software.SPDF.utils.PDFToFile;
 @RequestMapping("/api/v1/convert")
 public class ConvertPDFToMarkdown {
 
+    private final ApplicationProperties applicationProperties;
+
+    public ConvertPDFToMarkdown(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
     @PostMapping(consumes = "multipart/form-data", value = "/pdf/markdown")
     @Operation(
             summary = "Convert PDF to Markdown",
@@ -26,7 +33,12 @@ public class ConvertPDFToMarkdown {
     public ResponseEntity<byte[]> processPdfToMarkdown(@ModelAttribute PDFFile request)
             throws Exception {
         MultipartFile inputFile = request.getFileInput();
-        PDFToFile pdfToFile = new PDFToFile();
+        PDFToFile pdfToFile =
+                new PDFToFile(
+                        applicationProperties
+                                .getProcessExecutor()
+                                .getSessionLimit()
+                                .getPdfToHtmlSessionLimit());
         return pdfToFile.processPdfToMarkdown(inputFile);
     }
 }
@@ -1,35 +1,84 @@
 package stirling.software.SPDF.service;
 
 import java.io.*;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.*;
 import java.util.*;
 
+import javax.security.auth.x500.X500Principal;
+
 import org.springframework.stereotype.Service;
 
 import io.github.pixee.security.BoundedLineReader;
 
 import jakarta.annotation.PostConstruct;
 
+/**
+ * Validates signing certificates against the Mozilla trust store.
+ *
+ * <p>The trust anchors and PKIX parameters are built once at startup, trusted certificates are
+ * indexed by subject and fingerprint, and chain validation results are cached per certificate for
+ * {@link #RESULT_TIME_TO_LIVE_MILLIS}, so validating many documents signed with the same
+ * certificate only runs the PKIX validator once.
+ */
 @Service
 public class CertificateValidationService {
-    private KeyStore trustStore;
+
+    static final int MAX_CACHED_RESULTS = 1024;
+
+    static final long RESULT_TIME_TO_LIVE_MILLIS = 60 * 60 * 1000L;
+
+    private Set<X500Principal> trustedSubjects = Set.of();
+    private Set<String> trustedFingerprints = Set.of();
+    private PKIXParameters pkixParameters;
+
+    private record CachedResult(boolean valid, long expiresAt) {}
+
+    private final Map<String, CachedResult> chainResults =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                    return size() > MAX_CACHED_RESULTS;
+                }
+            };
 
     @PostConstruct
     private void initializeTrustStore() throws Exception {
-        trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
-        trustStore.load(null, null);
-        loadMozillaCertificates();
+        setTrustedCertificates(loadMozillaCertificates());
     }
 
-    private void loadMozillaCertificates() throws Exception {
+    /** Builds the anchors, PKIX parameters and lookup indexes for {@code certificates}. */
+    void setTrustedCertificates(List<X509Certificate> certificates)
+            throws GeneralSecurityException {
+        Set<TrustAnchor> anchors = new HashSet<>();
+        Set<X500Principal> subjects = new HashSet<>();
+        Set<String> fingerprints = new HashSet<>();
+        for (X509Certificate certificate : certificates) {
+            anchors.add(new TrustAnchor(certificate, null));
+            subjects.add(certificate.getSubjectX500Principal());
+            fingerprints.add(fingerprint(certificate));
+        }
+        PKIXParameters params = new PKIXParameters(anchors);
+        params.setRevocationEnabled(false);
+
+        trustedSubjects = subjects;
+        trustedFingerprints = fingerprints;
+        pkixParameters = params;
+        synchronized (chainResults) {
+            chainResults.clear();
+        }
+    }
+
+    private List<X509Certificate> loadMozillaCertificates() throws Exception {
+        List<X509Certificate> certificates = new ArrayList<>();
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
         try (InputStream is = getClass().getResourceAsStream("/certdata.txt")) {
             BufferedReader reader = new BufferedReader(new InputStreamReader(is));
             String line;
             StringBuilder certData = new StringBuilder();
             boolean inCert = false;
-            int certCount = 0;
 
             while ((line = BoundedLineReader.readLine(reader, 5_000_000)) != null) {
                 if (line.startsWith("CKA_VALUE MULTILINE_OCTAL")) {
@@ -42,12 +91,10 @@ public class CertificateValidationService {
                         inCert = false;
                         byte[] certBytes = parseOctalData(certData.toString());
                         if (certBytes != null) {
-                            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-                            X509Certificate cert =
+                            certificates.add(
                                     (X509Certificate)
                                             cf.generateCertificate(
-                                                    new ByteArrayInputStream(certBytes));
-                            trustStore.setCertificateEntry("mozilla-cert-" + certCount++, cert);
+                                                    new ByteArrayInputStream(certBytes)));
                         }
                     } else {
                         certData.append(line).append("\n");
@@ -55,6 +102,7 @@ public class CertificateValidationService {
                 }
             }
         }
+        return certificates;
     }
 
     private byte[] parseOctalData(String data) {
@@ -74,24 +122,43 @@ public class CertificateValidationService {
     }
 
     public boolean validateCertificateChain(X509Certificate cert) {
+        String fingerprint;
         try {
-            CertPathValidator validator = CertPathValidator.getInstance("PKIX");
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            List<X509Certificate> certList = Arrays.asList(cert);
-            CertPath certPath = cf.generateCertPath(certList);
-
-            Set<TrustAnchor> anchors = new HashSet<>();
-            Enumeration<String> aliases = trustStore.aliases();
-            while (aliases.hasMoreElements()) {
-                Object trustCert = trustStore.getCertificate(aliases.nextElement());
-                if (trustCert instanceof X509Certificate x509Cert) {
-                    anchors.add(new TrustAnchor(x509Cert, null));
-                }
+            fingerprint = fingerprint(cert);
+        } catch (CertificateEncodingException e) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (chainResults) {
+            CachedResult cached = chainResults.get(fingerprint);
+            if (cached != null && cached.expiresAt() > now) {
+                return cached.valid();
             }
+        }
 
-            PKIXParameters params = new PKIXParameters(anchors);
-            params.setRevocationEnabled(false);
-            validator.validate(certPath, params);
+        boolean valid = isIssuedByTrustedCertificate(cert) && validateWithPkix(cert);
+        // A valid chain stops being valid when the certificate expires
+        long expiresAt = now + RESULT_TIME_TO_LIVE_MILLIS;
+        if (valid) {
+            expiresAt = Math.min(expiresAt, cert.getNotAfter().getTime());
+        }
+        synchronized (chainResults) {
+            chainResults.put(fingerprint, new CachedResult(valid, expiresAt));
+        }
+        return valid;
+    }
+
+    // The path only holds the certificate itself, so one of its issuers has to be an anchor
+    private boolean isIssuedByTrustedCertificate(X509Certificate cert) {
+        return trustedSubjects.contains(cert.getIssuerX500Principal());
+    }
+
+    private boolean validateWithPkix(X509Certificate cert) {
+        try {
+            CertPathValidator validator = CertPathValidator.getInstance("PKIX");
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            CertPath certPath = cf.generateCertPath(List.of(cert));
+            validator.validate(certPath, pkixParameters);
             return true;
         } catch (Exception e) {
             return false;
@@ -100,19 +167,21 @@ public class CertificateValidationService {
 
     public boolean validateTrustStore(X509Certificate cert) {
         try {
-            Enumeration<String> aliases = trustStore.aliases();
-            while (aliases.hasMoreElements()) {
-                Object trustCert = trustStore.getCertificate(aliases.nextElement());
-                if (trustCert instanceof X509Certificate && cert.equals(trustCert)) {
-                    return true;
-                }
-            }
-            return false;
-        } catch (KeyStoreException e) {
+            return trustedFingerprints.contains(fingerprint(cert));
+        } catch (CertificateEncodingException e) {
             return false;
         }
     }
 
+    private static String fingerprint(X509Certificate cert) throws CertificateEncodingException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(cert.getEncoded()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     public boolean isRevoked(X509Certificate cert) {
         try {
             cert.checkValidity();
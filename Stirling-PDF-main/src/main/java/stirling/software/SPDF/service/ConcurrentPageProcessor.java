@@ -0,0 +1,184 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Processes the pages of a document, or other parts of it such as its chapters, on several threads.
+ *
+ * <p>A {@link PDDocument} must not be shared across threads, so every worker reads from its own
+ * read-only copy, loaded from a snapshot of the document. The snapshot is saved without encryption,
+ * as the password the document was opened with is not known here. The caller may therefore modify
+ * the document while the workers run, even when it receives the results itself. Results are handed
+ * back in page order on the calling thread, and only a bounded number of them wait to be taken at
+ * any time, so memory use does not grow with the page count.
+ */
+public final class ConcurrentPageProcessor {
+
+    // Processed pages allowed to wait for the consumer, per worker
+    private static final int IN_FLIGHT_PAGES_PER_WORKER = 2;
+
+    /** Processes one page using the state of the worker it runs on. */
+    @FunctionalInterface
+    public interface PageTask<W, R> {
+        R process(W worker, int pageIndex) throws IOException;
+    }
+
+    /** Receives the result of each page, in page order. */
+    @FunctionalInterface
+    public interface PageConsumer<R> {
+        void accept(int pageIndex, R result) throws IOException;
+    }
+
+    private ConcurrentPageProcessor() {}
+
+    /**
+     * Runs {@code task} for every page of {@code document} on {@code workers} threads.
+     *
+     * @param document the document to process
+     * @param workers number of threads, each loading its own copy of the document
+     * @param workerFactory creates the state of a worker, such as a renderer, from its copy
+     * @param task processes one page
+     * @param consumer receives the results, always on the calling thread
+     * @throws IOException if loading the copies, processing a page or consuming a result fails
+     */
+    static <W, R> void processPages(
+            PDDocument document,
+            int workers,
+            Function<PDDocument, W> workerFactory,
+            PageTask<W, R> task,
+            PageConsumer<R> consumer)
+            throws IOException {
+        process(document, document.getNumberOfPages(), workers, workerFactory, task, consumer);
+    }
+
+    /**
+     * Runs {@code task} for every index below {@code count} on {@code workers} threads, for work
+     * split into parts other than single pages. Results are handed to {@code consumer} in index
+     * order, as with {@link #processPages}.
+     *
+     * @param document the document to process
+     * @param count number of parts, each identified by its index
+     * @param workers number of threads, each loading its own copy of the document
+     * @param workerFactory creates the state of a worker from its copy
+     * @param task processes one part
+     * @param consumer receives the results, always on the calling thread
+     * @throws IOException if loading the copies, processing a part or consuming a result fails
+     */
+    public static <W, R> void process(
+            PDDocument document,
+            int count,
+            int workers,
+            Function<PDDocument, W> workerFactory,
+            PageTask<W, R> task,
+            PageConsumer<R> consumer)
+            throws IOException {
+        Path snapshot = Files.createTempFile("page-workers-", ".pdf");
+        List<PDDocument> copies = new ArrayList<>(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            saveDecrypted(document, snapshot);
+            BlockingQueue<W> idleWorkers = new ArrayBlockingQueue<>(workers);
+            for (int i = 0; i < workers; i++) {
+                PDDocument copy =
+                        Loader.loadPDF(
+                                new RandomAccessReadBufferedFile(snapshot.toFile()),
+                                "",
+                                null,
+                                null,
+                                IOUtils.createTempFileOnlyStreamCache());
+                copies.add(copy);
+                idleWorkers.add(workerFactory.apply(copy));
+            }
+
+            int maxInFlight = workers * IN_FLIGHT_PAGES_PER_WORKER;
+            Deque<Future<R>> inFlight = new ArrayDeque<>(maxInFlight);
+            int nextToConsume = 0;
+            for (int i = 0; i < count; i++) {
+                if (inFlight.size() >= maxInFlight) {
+                    consumer.accept(nextToConsume++, await(inFlight.poll()));
+                }
+                final int pageIndex = i;
+                inFlight.add(
+                        executor.submit(
+                                () -> {
+                                    W worker = idleWorkers.take();
+                                    try {
+                                        return task.process(worker, pageIndex);
+                                    } finally {
+                                        idleWorkers.put(worker);
+                                    }
+                                }));
+            }
+            while (!inFlight.isEmpty()) {
+                consumer.accept(nextToConsume++, await(inFlight.poll()));
+            }
+        } finally {
+            // Copies are only closed once no worker reads them any more
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (PDDocument copy : copies) {
+                IOUtils.closeQuietly(copy);
+            }
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    private static void saveDecrypted(PDDocument document, Path snapshot) throws IOException {
+        if (!document.isEncrypted()) {
+            document.save(snapshot.toFile());
+            return;
+        }
+        // Saving without security drops the encryption dictionary from the trailer, so it is put
+        // back and the caller still decides how the document itself is saved
+        boolean securityRemoved = document.isAllSecurityToBeRemoved();
+        COSDictionary trailer = document.getDocument().getTrailer();
+        COSBase encrypt = trailer.getItem(COSName.ENCRYPT);
+        document.setAllSecurityToBeRemoved(true);
+        try {
+            document.save(snapshot.toFile());
+        } finally {
+            document.setAllSecurityToBeRemoved(securityRemoved);
+            trailer.setItem(COSName.ENCRYPT, encrypt);
+        }
+    }
+
+    private static <R> R await(Future<R> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing pages", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to process page", e.getCause());
+        }
+    }
+}
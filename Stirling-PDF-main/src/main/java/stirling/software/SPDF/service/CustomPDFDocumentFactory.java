@@ -7,6 +7,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.pdfbox.Loader;
@@ -22,6 +23,8 @@ import org.springframework.web.multipart.MultipartFile;
 import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.model.api.PDFFile;
+import stirling.software.SPDF.utils.FileBackedMultipartFile;
+import stirling.software.SPDF.utils.UploadSpool;
 
 /**
  * Adaptive PDF document factory that optimizes memory usage based on file size and available system
@@ -215,6 +218,10 @@ public class CustomPDFDocumentFactory {
 
     /** Load from a MultipartFile with read-only option */
     public PDDocument load(MultipartFile pdfFile, boolean readOnly) throws IOException {
+        Optional<FileBackedMultipartFile> onDisk = UploadSpool.onDisk(pdfFile);
+        if (onDisk.isPresent()) {
+            return loadSharedFile(onDisk.get().getPath(), "", readOnly);
+        }
         return load(pdfFile.getInputStream(), readOnly);
     }
 
@@ -226,9 +233,34 @@ public class CustomPDFDocumentFactory {
     /** Load with password from MultipartFile with read-only option */
     public PDDocument load(MultipartFile fileInput, String password, boolean readOnly)
             throws IOException {
+        Optional<FileBackedMultipartFile> onDisk = UploadSpool.onDisk(fileInput);
+        if (onDisk.isPresent()) {
+            return loadSharedFile(onDisk.get().getPath(), password, readOnly);
+        }
         return load(fileInput.getInputStream(), password, readOnly);
     }
 
+    /**
+     * Load an upload's shared on-disk copy. Unlike the other file based loaders this leaves the
+     * file in place, as other code handling the request may still read it.
+     */
+    private PDDocument loadSharedFile(Path path, String password, boolean readOnly)
+            throws IOException {
+        long fileSize = Files.size(path);
+        log.debug("Loading PDF from upload, size: {}MB", fileSize / (1024 * 1024));
+        StreamCacheCreateFunction cacheFunction = getStreamCacheFunction(fileSize);
+        PDDocument doc;
+        if (fileSize <= SMALL_FILE_THRESHOLD) {
+            doc = Loader.loadPDF(Files.readAllBytes(path), password, null, null, cacheFunction);
+        } else {
+            doc = Loader.loadPDF(path.toFile(), password, null, null, cacheFunction);
+        }
+        if (!readOnly) {
+            postProcessDocument(doc);
+        }
+        return doc;
+    }
+
     /**
      * Determine the appropriate caching strategy based on file size and available memory. This
      * common method is used by both password and non-password loading paths.
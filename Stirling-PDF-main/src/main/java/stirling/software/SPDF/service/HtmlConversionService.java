@@ -0,0 +1,367 @@
+package stirling.software.SPDF.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.commonmark.Extension;
+import org.commonmark.ext.gfm.tables.TableBlock;
+import org.commonmark.ext.gfm.tables.TablesExtension;
+import org.commonmark.node.Node;
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.AttributeProvider;
+import org.commonmark.renderer.html.HtmlRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import io.github.pixee.security.Filenames;
+import io.github.pixee.security.ZipSecurity;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.config.RuntimePathConfig;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.CheckProgramInstall;
+import stirling.software.SPDF.utils.CustomHtmlSanitizer;
+import stirling.software.SPDF.utils.FileToPdf;
+import stirling.software.SPDF.utils.ProcessExecutor;
+import stirling.software.SPDF.utils.WeasyPrintWorker;
+
+/**
+ * Converts batches of HTML pages, Markdown files and zipped HTML bundles to PDF.
+ *
+ * <p>Documents are rendered by long-lived WeasyPrint workers instead of a new WeasyPrint process
+ * per document. Assets of zipped bundles are stored once per content hash and linked into every
+ * bundle that contains them, so the workers read stylesheets, fonts and images shared by many
+ * bundles only once. Markdown is parsed and rendered with one shared parser and renderer. Without
+ * Python or the worker script, every document falls back to the WeasyPrint command line.
+ */
+@Service
+@Slf4j
+public class HtmlConversionService {
+
+    static final Path WORKER_SCRIPT = Paths.get("./scripts/weasyprint_worker.py");
+
+    // Documents allowed to wait for the writer, per worker
+    private static final int IN_FLIGHT_DOCUMENTS_PER_WORKER = 2;
+
+    private static final List<Extension> MARKDOWN_EXTENSIONS = List.of(TablesExtension.create());
+
+    // Both are immutable and safe to share between threads
+    private static final Parser MARKDOWN_PARSER =
+            Parser.builder().extensions(MARKDOWN_EXTENSIONS).build();
+    private static final HtmlRenderer MARKDOWN_RENDERER =
+            HtmlRenderer.builder()
+                    .attributeProviderFactory(context -> new TableAttributeProvider())
+                    .extensions(MARKDOWN_EXTENSIONS)
+                    .build();
+
+    /** Receives the converted documents of a batch in input order. */
+    @FunctionalInterface
+    public interface DocumentWriter {
+        void write(int index, byte[] pdf) throws IOException;
+    }
+
+    private final String weasyprintPath;
+    private final BlockingQueue<WeasyPrintWorker> workers;
+    private final List<WeasyPrintWorker> allWorkers;
+    private final int workerCount;
+
+    @Autowired
+    public HtmlConversionService(
+            ApplicationProperties applicationProperties, RuntimePathConfig runtimePathConfig) {
+        this(
+                Math.min(
+                        applicationProperties
+                                .getProcessExecutor()
+                                .getSessionLimit()
+                                .getWeasyPrintSessionLimit(),
+                        Runtime.getRuntime().availableProcessors()),
+                workerCommand(runtimePathConfig.getWeasyPrintPath()),
+                runtimePathConfig.getWeasyPrintPath(),
+                TimeUnit.MINUTES.toMillis(
+                        applicationProperties
+                                .getProcessExecutor()
+                                .getTimeoutMinutes()
+                                .getWeasyPrintTimeoutMinutes()));
+    }
+
+    HtmlConversionService(
+            int workerCount,
+            List<String> workerCommand,
+            String weasyprintPath,
+            long timeoutMillis) {
+        this.workerCount = Math.max(1, workerCount);
+        this.weasyprintPath = weasyprintPath;
+        this.allWorkers = new ArrayList<>();
+        if (workerCommand != null) {
+            this.workers = new ArrayBlockingQueue<>(this.workerCount);
+            for (int i = 0; i < this.workerCount; i++) {
+                WeasyPrintWorker worker = new WeasyPrintWorker(workerCommand, timeoutMillis);
+                allWorkers.add(worker);
+                workers.add(worker);
+            }
+        } else {
+            log.info("WeasyPrint worker unavailable, converting with one process per document");
+            this.workers = null;
+        }
+    }
+
+    /**
+     * Runs the worker script with the Python next to WeasyPrint, which has WeasyPrint installed, or
+     * with the Python on the path.
+     */
+    private static List<String> workerCommand(String weasyprintPath) {
+        if (!Files.isRegularFile(WORKER_SCRIPT)) {
+            return null;
+        }
+        Path venvPython = Paths.get(weasyprintPath).resolveSibling("python3");
+        String python =
+                Files.isExecutable(venvPython)
+                        ? venvPython.toString()
+                        : CheckProgramInstall.getAvailablePythonCommand();
+        return python != null ? List.of(python, WORKER_SCRIPT.toString()) : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        allWorkers.forEach(WeasyPrintWorker::close);
+    }
+
+    /** Renders Markdown to an HTML fragment with the shared parser and renderer. */
+    public String markdownToHtml(String markdown) {
+        Node document = MARKDOWN_PARSER.parse(markdown);
+        return MARKDOWN_RENDERER.render(document);
+    }
+
+    /**
+     * Converts every file to a PDF. Files ending in {@code .html} or {@code .htm} are single pages,
+     * {@code .md} files are Markdown and {@code .zip} files are bundles whose {@code index.html},
+     * or otherwise first HTML file, is rendered.
+     *
+     * @param files the documents to convert
+     * @param disableSanitize whether to keep scripts and other unsafe HTML
+     * @param writer receives the PDFs in the order of {@code files}, on the calling thread
+     * @throws IllegalArgumentException if a file has an unsupported type or a bundle has no page
+     * @throws IOException if a document cannot be converted
+     */
+    public void convertBatch(MultipartFile[] files, boolean disableSanitize, DocumentWriter writer)
+            throws IOException {
+        Path workDir = Files.createTempDirectory("html_batch_");
+        int poolSize = Math.min(workerCount, files.length);
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            AssetStore assets = new AssetStore(Files.createDirectory(workDir.resolve("assets")));
+            int maxInFlight = poolSize * IN_FLIGHT_DOCUMENTS_PER_WORKER;
+            Deque<Future<byte[]>> inFlight = new ArrayDeque<>(maxInFlight);
+            int nextToWrite = 0;
+            for (int i = 0; i < files.length; i++) {
+                if (inFlight.size() >= maxInFlight) {
+                    writer.write(nextToWrite++, await(inFlight.poll()));
+                }
+                // Prepared on this thread, which still has the upload
+                Path documentDir = Files.createDirectory(workDir.resolve("doc-" + i));
+                Path page = prepare(files[i], documentDir, assets, disableSanitize);
+                Path output = workDir.resolve("doc-" + i + ".pdf");
+                inFlight.add(
+                        executor.submit(
+                                () -> {
+                                    render(page, output);
+                                    try {
+                                        return Files.readAllBytes(output);
+                                    } finally {
+                                        Files.deleteIfExists(output);
+                                    }
+                                }));
+            }
+            while (!inFlight.isEmpty()) {
+                writer.write(nextToWrite++, await(inFlight.poll()));
+            }
+            log.debug(
+                    "Converted {} documents, {} of {} bundle assets were shared",
+                    files.length,
+                    assets.reused,
+                    assets.stored + assets.reused);
+        } finally {
+            executor.shutdownNow();
+            FileUtils.deleteQuietly(workDir.toFile());
+        }
+    }
+
+    /** Writes the file's page and assets to {@code documentDir}, returning the page to render. */
+    private Path prepare(
+            MultipartFile file, Path documentDir, AssetStore assets, boolean disableSanitize)
+            throws IOException {
+        String name = Filenames.toSimpleFileName(file.getOriginalFilename());
+        String lowerName = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        if (lowerName.endsWith(".html") || lowerName.endsWith(".htm")) {
+            return writePage(
+                    documentDir.resolve("index.html"),
+                    new String(file.getBytes(), StandardCharsets.UTF_8),
+                    disableSanitize);
+        } else if (lowerName.endsWith(".md")) {
+            return writePage(
+                    documentDir.resolve("index.html"),
+                    markdownToHtml(new String(file.getBytes(), StandardCharsets.UTF_8)),
+                    disableSanitize);
+        } else if (lowerName.endsWith(".zip")) {
+            return extractBundle(file, documentDir, assets, disableSanitize);
+        }
+        throw new IllegalArgumentException(
+                "File must be in .html, .htm, .md or .zip format: " + name);
+    }
+
+    private Path extractBundle(
+            MultipartFile file, Path documentDir, AssetStore assets, boolean disableSanitize)
+            throws IOException {
+        List<Path> pages = new ArrayList<>();
+        try (ZipInputStream zipIn =
+                ZipSecurity.createHardenedInputStream(new ByteArrayInputStream(file.getBytes()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                String entryName = FileToPdf.sanitizeZipFilename(entry.getName());
+                if (entry.isDirectory() || entryName.isEmpty()) {
+                    continue;
+                }
+                Path target = documentDir.resolve(entryName).normalize();
+                if (!target.startsWith(documentDir)) {
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                String lowerName = entryName.toLowerCase(Locale.ROOT);
+                if (lowerName.endsWith(".html") || lowerName.endsWith(".htm")) {
+                    pages.add(
+                            writePage(
+                                    target,
+                                    new String(zipIn.readAllBytes(), StandardCharsets.UTF_8),
+                                    disableSanitize));
+                } else {
+                    assets.link(zipIn.readAllBytes(), target);
+                }
+            }
+        }
+        return pages.stream()
+                .filter(page -> page.equals(documentDir.resolve("index.html")))
+                .findFirst()
+                .or(() -> pages.stream().sorted().findFirst())
+                .orElseThrow(
+                        () ->
+                                new IllegalArgumentException(
+                                        "No HTML file found in " + file.getOriginalFilename()));
+    }
+
+    private static Path writePage(Path target, String html, boolean disableSanitize)
+            throws IOException {
+        String content = disableSanitize ? html : CustomHtmlSanitizer.sanitize(html);
+        return Files.writeString(target, content, StandardCharsets.UTF_8);
+    }
+
+    private void render(Path page, Path output) throws IOException, InterruptedException {
+        if (workers == null) {
+            List<String> command =
+                    List.of(
+                            weasyprintPath,
+                            "-e",
+                            "utf-8",
+                            "-v",
+                            "--pdf-forms",
+                            page.toString(),
+                            output.toString());
+            ProcessExecutor.getInstance(ProcessExecutor.Processes.WEASYPRINT)
+                    .runCommandWithOutputHandling(command);
+            return;
+        }
+        WeasyPrintWorker worker = workers.take();
+        try {
+            worker.convert(page, output, page.getParent());
+        } finally {
+            // Never blocks, as the worker was taken from this queue
+            workers.offer(worker);
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting documents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to convert document", e.getCause());
+        }
+    }
+
+    /** Keeps one copy of each asset, named by its content hash, and links bundles to it. */
+    static final class AssetStore {
+
+        private final Path dir;
+        private final MessageDigest digest;
+        int stored;
+        int reused;
+
+        AssetStore(Path dir) {
+            this.dir = dir;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void link(byte[] content, Path target) throws IOException {
+            String name = target.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            String extension = dot >= 0 ? name.substring(dot) : "";
+            Path asset = dir.resolve(HexFormat.of().formatHex(digest.digest(content)) + extension);
+            if (Files.exists(asset)) {
+                reused++;
+            } else {
+                Files.write(asset, content);
+                stored++;
+            }
+            try {
+                Files.createSymbolicLink(target, asset);
+            } catch (UnsupportedOperationException | IOException e) {
+                // Without links the bundle gets its own copy, which is only read once per bundle
+                Files.copy(asset, target);
+            }
+        }
+    }
+
+    private static class TableAttributeProvider implements AttributeProvider {
+        @Override
+        public void setAttributes(Node node, String tagName, Map<String, String> attributes) {
+            if (node instanceof TableBlock) {
+                attributes.put("class", "table table-striped");
+            }
+        }
+    }
+}
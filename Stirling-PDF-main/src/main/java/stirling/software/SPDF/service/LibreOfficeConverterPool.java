@@ -0,0 +1,177 @@
+package stirling.software.SPDF.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.ProcessExecutor;
+
+/**
+ * Runs LibreOffice conversions in a fixed number of slots, one per allowed LibreOffice session.
+ *
+ * <p>LibreOffice locks its user profile while it runs, so instances sharing a profile wait for each
+ * other or fail. Each slot has a profile directory of its own, which lets the slots convert at the
+ * same time. The profiles are kept between conversions, so only the first conversion of a slot pays
+ * for setting its profile up.
+ *
+ * <p>With a meter registry available, the time spent waiting for a slot, the duration and number of
+ * files of each slot's runs, and the number of busy slots are published under {@code
+ * libreoffice.*}.
+ */
+@Service
+@Slf4j
+public class LibreOfficeConverterPool {
+
+    private final int size;
+
+    private final String sofficeCommand;
+
+    private final BlockingQueue<Slot> freeSlots;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer slotWait;
+
+    private record Slot(int index, Path profile) {}
+
+    @Autowired
+    public LibreOfficeConverterPool(
+            ApplicationProperties applicationProperties, Optional<MeterRegistry> meterRegistry)
+            throws IOException {
+        this(
+                applicationProperties
+                        .getProcessExecutor()
+                        .getSessionLimit()
+                        .getLibreOfficeSessionLimit(),
+                Paths.get(System.getProperty("java.io.tmpdir"), "stirling-pdf-libreoffice"),
+                "soffice",
+                meterRegistry.orElse(null));
+    }
+
+    LibreOfficeConverterPool(
+            int size, Path profileRoot, String sofficeCommand, MeterRegistry meterRegistry)
+            throws IOException {
+        this.size = size;
+        this.sofficeCommand = sofficeCommand;
+        this.meterRegistry = meterRegistry;
+        this.freeSlots = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            freeSlots.add(new Slot(i, Files.createDirectories(profileRoot.resolve("slot-" + i))));
+        }
+        if (meterRegistry != null) {
+            slotWait =
+                    Timer.builder("libreoffice.slot.wait")
+                            .description("Time conversions waited for a free LibreOffice slot")
+                            .register(meterRegistry);
+            Gauge.builder("libreoffice.slots.busy", this, pool -> pool.busySlots())
+                    .description("LibreOffice slots running a conversion")
+                    .register(meterRegistry);
+            Gauge.builder("libreoffice.slots", this, pool -> pool.size())
+                    .description("LibreOffice conversions that can run at the same time")
+                    .register(meterRegistry);
+        } else {
+            slotWait = null;
+        }
+        log.info("LibreOffice conversions run in {} slots under {}", size, profileRoot);
+    }
+
+    /** Number of conversions that can run at the same time. */
+    public int size() {
+        return size;
+    }
+
+    /** Number of slots running a conversion right now. */
+    public int busySlots() {
+        return size - freeSlots.size();
+    }
+
+    /**
+     * Converts {@code inputs} with a single LibreOffice run, waiting for a free slot first. Each
+     * output is written to {@code outputDir} under its input's name, with the extension of the
+     * target format.
+     *
+     * @param inputs the files to convert; their names must differ
+     * @param filter the {@code --convert-to} argument, e.g. {@code pdf:writer_pdf_Export}
+     * @param outputDir the directory receiving the converted files
+     * @throws IOException if LibreOffice fails or times out
+     */
+    public void convert(List<Path> inputs, String filter, Path outputDir)
+            throws IOException, InterruptedException {
+        convert(inputs, null, filter, outputDir);
+    }
+
+    /**
+     * Same as {@link #convert(List, String, Path)}, opening the inputs with the import filter
+     * {@code inputFilter}, e.g. {@code writer_pdf_import}, instead of the one LibreOffice detects.
+     */
+    public void convert(List<Path> inputs, String inputFilter, String filter, Path outputDir)
+            throws IOException, InterruptedException {
+        long waitStart = System.nanoTime();
+        Slot slot = freeSlots.take();
+        long runStart = System.nanoTime();
+        boolean success = false;
+        try {
+            if (slotWait != null) {
+                slotWait.record(runStart - waitStart, TimeUnit.NANOSECONDS);
+            }
+            List<String> command = new ArrayList<>();
+            command.add(sofficeCommand);
+            command.add("-env:UserInstallation=" + slot.profile().toUri());
+            command.add("--headless");
+            command.add("--nologo");
+            if (inputFilter != null) {
+                command.add("--infilter=" + inputFilter);
+            }
+            command.add("--convert-to");
+            command.add(filter);
+            command.add("--outdir");
+            command.add(outputDir.toString());
+            for (Path input : inputs) {
+                command.add(input.toString());
+            }
+            ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
+                    .runCommandWithOutputHandling(command);
+            success = true;
+        } finally {
+            // Never blocks, as the slot was taken from this queue
+            freeSlots.offer(slot);
+            recordRun(slot, inputs.size(), System.nanoTime() - runStart, success);
+        }
+    }
+
+    private void recordRun(Slot slot, int files, long nanos, boolean success) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String slotTag = String.valueOf(slot.index());
+        Timer.builder("libreoffice.conversion")
+                .description("LibreOffice runs per slot")
+                .tag("slot", slotTag)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("libreoffice.conversion.files")
+                .description("Files converted by LibreOffice per slot")
+                .tag("slot", slotTag)
+                .register(meterRegistry)
+                .increment(success ? files : 0);
+    }
+}
@@ -0,0 +1,288 @@
+package stirling.software.SPDF.service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.util.Matrix;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders every page of a document to an image and writes the images back as page content.
+ *
+ * <p>Pages are rendered concurrently by a {@link ConcurrentPageProcessor}, each worker owning a
+ * {@link PDFRenderer} bound to its own copy of the source. Images are encoded on the workers and
+ * wrapped directly as {@link PDImageXObject}s, without going through temporary image files.
+ */
+@Service
+@Slf4j
+public class PdfRasterizationService {
+
+    public static final float DEFAULT_DPI = 300;
+
+    // Each worker loads its own copy of the document, which only pays off over several pages
+    private static final int MIN_PAGES_PER_WORKER = 4;
+
+    private static final float JPEG_QUALITY = 0.75f;
+
+    /** How the rendered page images are encoded in the output document. */
+    public enum ImageEncoding {
+        LOSSLESS,
+        JPEG
+    }
+
+    private final int workers;
+
+    public PdfRasterizationService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    PdfRasterizationService(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Renders every page of {@code source} and appends one image-only page per source page to
+     * {@code target}.
+     *
+     * @param source the document to render, left unchanged
+     * @param target the document receiving the new pages
+     * @param dpi render resolution
+     * @param encoding how the page images are stored
+     * @param pageFilter optional in-place transformation applied to each rendered image
+     * @throws IOException if rendering or writing a page fails
+     */
+    public void rasterizeToDocument(
+            PDDocument source,
+            PDDocument target,
+            float dpi,
+            ImageEncoding encoding,
+            UnaryOperator<BufferedImage> pageFilter)
+            throws IOException {
+        rasterize(
+                source,
+                target,
+                dpi,
+                encoding,
+                pageFilter,
+                (pageIndex, image) -> {
+                    PDPage sourcePage = source.getPage(pageIndex);
+                    PDPage newPage = new PDPage(copyOf(sourcePage.getMediaBox()));
+                    newPage.setCropBox(copyOf(sourcePage.getCropBox()));
+                    newPage.setRotation(sourcePage.getRotation());
+                    target.addPage(newPage);
+                    drawFullPage(target, newPage, image, AppendMode.APPEND);
+                });
+    }
+
+    /**
+     * Replaces the content of every page of {@code document} with a rendered image of that page.
+     * Page-level objects such as annotations are kept.
+     *
+     * @param document the document to rasterize in place
+     * @param dpi render resolution
+     * @param encoding how the page images are stored
+     * @param pageFilter optional in-place transformation applied to each rendered image
+     * @throws IOException if rendering or writing a page fails
+     */
+    public void rasterizeInPlace(
+            PDDocument document,
+            float dpi,
+            ImageEncoding encoding,
+            UnaryOperator<BufferedImage> pageFilter)
+            throws IOException {
+        rasterize(
+                document,
+                document,
+                dpi,
+                encoding,
+                pageFilter,
+                (pageIndex, image) ->
+                        drawFullPage(
+                                document,
+                                document.getPage(pageIndex),
+                                image,
+                                AppendMode.OVERWRITE));
+    }
+
+    /**
+     * Converts a document to one consisting only of lossless page images, so that no text or vector
+     * content survives.
+     *
+     * @param document to be converted. Note: the caller is responsible for closing the document
+     * @return converted document to PDF-Image
+     * @throws IOException if conversion fails
+     */
+    public PDDocument convertToImagePdf(PDDocument document) throws IOException {
+        PDDocument imageDocument = new PDDocument();
+        try {
+            rasterizeToDocument(document, imageDocument, DEFAULT_DPI, ImageEncoding.LOSSLESS, null);
+        } catch (IOException e) {
+            imageDocument.close();
+            throw e;
+        }
+        return imageDocument;
+    }
+
+    private void rasterize(
+            PDDocument source,
+            PDDocument target,
+            float dpi,
+            ImageEncoding encoding,
+            UnaryOperator<BufferedImage> pageFilter,
+            PageWriter pageWriter)
+            throws IOException {
+        int pageCount = source.getNumberOfPages();
+        int poolSize = Math.min(workers, pageCount / MIN_PAGES_PER_WORKER);
+
+        if (poolSize <= 1) {
+            PDFRenderer renderer = createRenderer(source);
+            for (int i = 0; i < pageCount; i++) {
+                BufferedImage image = renderer.renderImageWithDPI(i, dpi, ImageType.RGB);
+                pageWriter.write(i, encodePage(image, encoding, pageFilter).toImage(target));
+            }
+            return;
+        }
+
+        log.debug("Rasterizing {} pages with {} workers", pageCount, poolSize);
+        ConcurrentPageProcessor.processPages(
+                source,
+                poolSize,
+                this::createRenderer,
+                (renderer, pageIndex) ->
+                        encodePage(
+                                renderer.renderImageWithDPI(pageIndex, dpi, ImageType.RGB),
+                                encoding,
+                                pageFilter),
+                (pageIndex, page) -> pageWriter.write(pageIndex, page.toImage(target)));
+    }
+
+    private PDFRenderer createRenderer(PDDocument document) {
+        PDFRenderer renderer = new PDFRenderer(document);
+        renderer.setSubsamplingAllowed(true);
+        return renderer;
+    }
+
+    private EncodedPage encodePage(
+            BufferedImage image, ImageEncoding encoding, UnaryOperator<BufferedImage> pageFilter)
+            throws IOException {
+        if (pageFilter != null) {
+            image = pageFilter.apply(image);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (encoding == ImageEncoding.JPEG) {
+            return new EncodedPage(encodeJpeg(image), COSName.DCT_DECODE, width, height);
+        }
+        return new EncodedPage(deflateRgb(image), COSName.FLATE_DECODE, width, height);
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(baos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return baos.toByteArray();
+    }
+
+    private byte[] deflateRgb(BufferedImage image) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        byte[] rgb = new byte[width * 3];
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out =
+                new DeflaterOutputStream(baos, new Deflater(Deflater.DEFAULT_COMPRESSION))) {
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int x = 0; x < width; x++) {
+                    int pixel = row[x];
+                    rgb[x * 3] = (byte) (pixel >> 16);
+                    rgb[x * 3 + 1] = (byte) (pixel >> 8);
+                    rgb[x * 3 + 2] = (byte) pixel;
+                }
+                out.write(rgb);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    private static PDRectangle copyOf(PDRectangle box) {
+        return new PDRectangle(
+                box.getLowerLeftX(), box.getLowerLeftY(), box.getWidth(), box.getHeight());
+    }
+
+    /**
+     * Draws a rendered page image over the visible area of {@code page}. The renderer shows the
+     * crop box as the page is displayed, so the image is turned back against the page rotation.
+     */
+    private void drawFullPage(
+            PDDocument document, PDPage page, PDImageXObject image, AppendMode appendMode)
+            throws IOException {
+        PDRectangle cropBox = page.getCropBox();
+        float x = cropBox.getLowerLeftX();
+        float y = cropBox.getLowerLeftY();
+        float width = cropBox.getWidth();
+        float height = cropBox.getHeight();
+        Matrix placement =
+                switch (Math.floorMod(page.getRotation(), 360)) {
+                    case 90 -> new Matrix(0, height, -width, 0, x + width, y);
+                    case 180 -> new Matrix(-width, 0, 0, -height, x + width, y + height);
+                    case 270 -> new Matrix(0, -height, width, 0, x, y + height);
+                    default -> new Matrix(width, 0, 0, height, x, y);
+                };
+        try (PDPageContentStream contentStream =
+                new PDPageContentStream(document, page, appendMode, true, true)) {
+            contentStream.drawImage(image, placement);
+        }
+    }
+
+    /** Encoded page image waiting to be written; safe to hand between threads. */
+    private record EncodedPage(byte[] data, COSName filter, int width, int height) {
+
+        PDImageXObject toImage(PDDocument target) throws IOException {
+            return new PDImageXObject(
+                    target,
+                    new ByteArrayInputStream(data),
+                    filter,
+                    width,
+                    height,
+                    8,
+                    PDDeviceRGB.INSTANCE);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageWriter {
+        void write(int pageIndex, PDImageXObject image) throws IOException;
+    }
+}
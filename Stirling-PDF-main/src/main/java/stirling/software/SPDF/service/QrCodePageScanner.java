@@ -0,0 +1,309 @@
+package stirling.software.SPDF.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Service;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.DetectorResult;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.detector.Detector;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the QR code on each page of a document.
+ *
+ * <p>A page that only draws a single scanned image is read from that image, without rendering the
+ * page. Every other page is rendered in greyscale at {@link #OVERVIEW_DPI}. When a code is found
+ * there but cannot be read at that resolution, only the area around it is rendered again at {@link
+ * #DETAIL_DPI}. When no code is found but parts of one may have been, as with codes too small to be
+ * read at the lower resolution, the whole page is rendered again at {@link #DETAIL_DPI}; pages
+ * without anything resembling a code are rendered only once. Pages are scanned concurrently by a
+ * {@link ConcurrentPageProcessor}.
+ */
+@Service
+@Slf4j
+public class QrCodePageScanner {
+
+    static final float OVERVIEW_DPI = 96;
+
+    static final float DETAIL_DPI = 150;
+
+    // Each worker loads its own copy of the document, which only pays off over several pages
+    private static final int MIN_PAGES_PER_WORKER = 8;
+
+    // Content streams of plain scans only position and draw the image
+    private static final int MAX_SCANNED_PAGE_CONTENT_LENGTH = 256;
+
+    // Extra space kept around the detected finder patterns, relative to the code's size
+    private static final float REGION_MARGIN = 0.6f;
+
+    private static final Map<DecodeHintType, Object> HINTS =
+            Map.of(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+
+    private final int workers;
+
+    private final Function<PDDocument, PDFRenderer> rendererFactory;
+
+    public QrCodePageScanner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    QrCodePageScanner(int workers) {
+        this(workers, PDFRenderer::new);
+    }
+
+    QrCodePageScanner(int workers, Function<PDDocument, PDFRenderer> rendererFactory) {
+        this.workers = workers;
+        this.rendererFactory = rendererFactory;
+    }
+
+    /**
+     * Returns the text of the QR code on every page of {@code document}, or {@code null} for pages
+     * without a readable code. The document is left unchanged.
+     */
+    public List<String> scanPages(PDDocument document) throws IOException {
+        int pageCount = document.getNumberOfPages();
+        String[] results = new String[pageCount];
+        int poolSize = Math.min(workers, pageCount / MIN_PAGES_PER_WORKER);
+
+        if (poolSize <= 1) {
+            PageScanner scanner = new PageScanner(document, rendererFactory.apply(document));
+            for (int i = 0; i < pageCount; i++) {
+                results[i] = scanner.scan(i);
+            }
+            return Arrays.asList(results);
+        }
+
+        log.debug("Scanning {} pages for QR codes with {} workers", pageCount, poolSize);
+        ConcurrentPageProcessor.processPages(
+                document,
+                poolSize,
+                copy -> new PageScanner(copy, rendererFactory.apply(copy)),
+                PageScanner::scan,
+                (pageIndex, text) -> results[pageIndex] = text);
+        return Arrays.asList(results);
+    }
+
+    /** Scans the pages of one document; not safe for use by several threads. */
+    private static final class PageScanner {
+
+        private final PDDocument document;
+        private final PDFRenderer renderer;
+
+        PageScanner(PDDocument document, PDFRenderer renderer) {
+            this.document = document;
+            this.renderer = renderer;
+            renderer.setSubsamplingAllowed(true);
+        }
+
+        String scan(int pageIndex) throws IOException {
+            PDPage page = document.getPage(pageIndex);
+            PDImageXObject scannedImage = findScannedImage(page);
+            if (scannedImage != null) {
+                return scanImage(scannedImage, page);
+            }
+            return scanRendered(pageIndex);
+        }
+
+        private String scanRendered(int pageIndex) throws IOException {
+            BufferedImage overview =
+                    renderer.renderImageWithDPI(pageIndex, OVERVIEW_DPI, ImageType.GRAY);
+            Decoded decoded = decode(overview);
+            if (decoded.text() != null) {
+                return decoded.text();
+            }
+            if (decoded.region() == null) {
+                if (!decoded.finderPatternsSeen()) {
+                    return null;
+                }
+                return decode(renderer.renderImageWithDPI(pageIndex, DETAIL_DPI, ImageType.GRAY))
+                        .text();
+            }
+
+            float scale = DETAIL_DPI / OVERVIEW_DPI;
+            Rectangle region = scale(decoded.region(), scale);
+            BufferedImage detail =
+                    new BufferedImage(region.width, region.height, BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D graphics = detail.createGraphics();
+            try {
+                graphics.setBackground(Color.WHITE);
+                graphics.clearRect(0, 0, region.width, region.height);
+                graphics.translate(-region.x, -region.y);
+                renderer.renderPageToGraphics(pageIndex, graphics, DETAIL_DPI / 72);
+            } finally {
+                graphics.dispose();
+            }
+            return decode(detail).text();
+        }
+
+        private String scanImage(PDImageXObject image, PDPage page) throws IOException {
+            PDRectangle cropBox = page.getCropBox();
+            float pageInches = Math.max(cropBox.getWidth(), cropBox.getHeight()) / 72;
+            int imagePixels = Math.max(image.getWidth(), image.getHeight());
+
+            int overviewSubsampling = subsampling(imagePixels, pageInches * OVERVIEW_DPI);
+            Decoded decoded = decode(toGray(image.getImage(null, overviewSubsampling)));
+            if (decoded.text() != null) {
+                return decoded.text();
+            }
+            int detailSubsampling = subsampling(imagePixels, pageInches * DETAIL_DPI);
+            if (decoded.region() == null) {
+                return decoded.finderPatternsSeen() && detailSubsampling < overviewSubsampling
+                        ? decode(toGray(image.getImage(null, detailSubsampling))).text()
+                        : null;
+            }
+
+            Rectangle region =
+                    scale(decoded.region(), overviewSubsampling)
+                            .intersection(new Rectangle(image.getWidth(), image.getHeight()));
+            return decode(toGray(image.getImage(region, detailSubsampling))).text();
+        }
+    }
+
+    /**
+     * Returns the image of a page that does nothing but draw one image, as a scanned page does, or
+     * {@code null} if the page has other content.
+     */
+    private static PDImageXObject findScannedImage(PDPage page) throws IOException {
+        PDResources resources = page.getResources();
+        if (resources == null || resources.getFontNames().iterator().hasNext()) {
+            return null;
+        }
+        PDImageXObject image = null;
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (image != null || !(xObject instanceof PDImageXObject imageXObject)) {
+                return null;
+            }
+            image = imageXObject;
+        }
+        if (image == null || image.isStencil()) {
+            return null;
+        }
+        try (InputStream contents = page.getContents()) {
+            if (contents.readNBytes(MAX_SCANNED_PAGE_CONTENT_LENGTH + 1).length
+                    > MAX_SCANNED_PAGE_CONTENT_LENGTH) {
+                return null;
+            }
+        }
+        return image;
+    }
+
+    private static int subsampling(int imagePixels, float targetPixels) {
+        return Math.max(1, (int) (imagePixels / targetPixels));
+    }
+
+    private static Rectangle scale(Rectangle region, float factor) {
+        return new Rectangle(
+                (int) (region.x * factor),
+                (int) (region.y * factor),
+                (int) Math.ceil(region.width * factor),
+                (int) Math.ceil(region.height * factor));
+    }
+
+    private static BufferedImage toGray(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray =
+                new BufferedImage(
+                        image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return gray;
+    }
+
+    /**
+     * Reads the QR code in a greyscale image. If a code is found but cannot be read, the result
+     * holds the area worth looking at more closely instead, and if none is found, whether anything
+     * resembling one of its finder patterns was.
+     */
+    private static Decoded decode(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        // The grey pixels are used as the luminance plane directly, without copying them
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        BinaryBitmap bitmap =
+                new BinaryBitmap(
+                        new HybridBinarizer(
+                                new PlanarYUVLuminanceSource(
+                                        pixels, width, height, 0, 0, width, height, false)));
+        List<ResultPoint> candidates = new ArrayList<>();
+        Map<DecodeHintType, Object> hints =
+                Map.of(
+                        DecodeHintType.TRY_HARDER,
+                        Boolean.TRUE,
+                        DecodeHintType.NEED_RESULT_POINT_CALLBACK,
+                        (ResultPointCallback) candidates::add);
+        try {
+            return new Decoded(new QRCodeReader().decode(bitmap, hints).getText(), null, true);
+        } catch (NotFoundException e) {
+            return new Decoded(null, null, !candidates.isEmpty());
+        } catch (ChecksumException | FormatException e) {
+            return new Decoded(null, locate(bitmap, width, height), true);
+        }
+    }
+
+    private static Rectangle locate(BinaryBitmap bitmap, int width, int height) {
+        try {
+            DetectorResult detected = new Detector(bitmap.getBlackMatrix()).detect(HINTS);
+            float minX = Float.MAX_VALUE;
+            float minY = Float.MAX_VALUE;
+            float maxX = 0;
+            float maxY = 0;
+            for (ResultPoint point : detected.getPoints()) {
+                minX = Math.min(minX, point.getX());
+                minY = Math.min(minY, point.getY());
+                maxX = Math.max(maxX, point.getX());
+                maxY = Math.max(maxY, point.getY());
+            }
+            float margin = REGION_MARGIN * Math.max(maxX - minX, maxY - minY);
+            Rectangle region =
+                    new Rectangle(
+                            (int) (minX - margin),
+                            (int) (minY - margin),
+                            (int) Math.ceil(maxX - minX + 2 * margin),
+                            (int) Math.ceil(maxY - minY + 2 * margin));
+            region = region.intersection(new Rectangle(width, height));
+            return region.isEmpty() ? null : region;
+        } catch (NotFoundException | FormatException e) {
+            return null;
+        }
+    }
+
+    private record Decoded(String text, Rectangle region, boolean finderPatternsSeen) {}
+}
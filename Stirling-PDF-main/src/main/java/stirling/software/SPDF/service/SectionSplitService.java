@@ -0,0 +1,169 @@
+package stirling.software.SPDF.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDPageContentStream.AppendMode;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.util.Matrix;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Splits every page of a document into a grid of smaller pages.
+ *
+ * <p>Each source page is imported once as a form XObject, and every tile of that page draws the
+ * same form with its own clip and offset, so the page's content and resources are stored once no
+ * matter how many tiles it is cut into. When every tile is written as a document of its own, pages
+ * are processed concurrently by a {@link ConcurrentPageProcessor}.
+ */
+@Service
+@Slf4j
+public class SectionSplitService {
+
+    // Each worker loads its own copy of the document, which only pays off over several pages
+    private static final int MIN_PAGES_PER_WORKER = 4;
+
+    /** Receives the tiles of a split document in page order, then tile order. */
+    @FunctionalInterface
+    public interface TileWriter {
+        void write(int pageIndex, int tileIndex, byte[] pdf) throws IOException;
+    }
+
+    private final int workers;
+
+    public SectionSplitService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    SectionSplitService(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Appends the tiles of every page of {@code source} to {@code target}. Tiles are ordered column
+     * by column, top to bottom within a column.
+     *
+     * @param source the document to split, left unchanged
+     * @param target the document receiving one page per tile
+     * @param columns number of tiles across each page
+     * @param rows number of tiles down each page
+     * @throws IOException if a page cannot be imported
+     */
+    public void splitToDocument(PDDocument source, PDDocument target, int columns, int rows)
+            throws IOException {
+        LayerUtility layerUtility = new LayerUtility(target);
+        for (int i = 0; i < source.getNumberOfPages(); i++) {
+            PDFormXObject form = layerUtility.importPageAsForm(source, i);
+            addTiles(target, form, source.getPage(i).getMediaBox(), columns, rows);
+        }
+    }
+
+    /**
+     * Writes every tile of {@code source} as a single page document, in the same order as {@link
+     * #splitToDocument}.
+     *
+     * @param source the document to split, left unchanged
+     * @param columns number of tiles across each page
+     * @param rows number of tiles down each page
+     * @param tileWriter receives the saved tiles, always on the calling thread
+     * @throws IOException if splitting a page or writing a tile fails
+     */
+    public void splitToDocuments(PDDocument source, int columns, int rows, TileWriter tileWriter)
+            throws IOException {
+        int pageCount = source.getNumberOfPages();
+        int poolSize = Math.min(workers, pageCount / MIN_PAGES_PER_WORKER);
+
+        if (poolSize <= 1) {
+            for (int i = 0; i < pageCount; i++) {
+                writeTiles(i, splitPage(source, i, columns, rows), tileWriter);
+            }
+            return;
+        }
+
+        log.debug("Splitting {} pages with {} workers", pageCount, poolSize);
+        ConcurrentPageProcessor.processPages(
+                source,
+                poolSize,
+                copy -> copy,
+                (copy, pageIndex) -> splitPage(copy, pageIndex, columns, rows),
+                (pageIndex, tiles) -> writeTiles(pageIndex, tiles, tileWriter));
+    }
+
+    /** Saves each tile of one page as its own document. */
+    private List<byte[]> splitPage(PDDocument source, int pageIndex, int columns, int rows)
+            throws IOException {
+        List<byte[]> tiles = new ArrayList<>(columns * rows);
+        // The tiles only reference the imported form, so it is kept in one scratch document
+        try (PDDocument pageForms = new PDDocument()) {
+            PDFormXObject form = new LayerUtility(pageForms).importPageAsForm(source, pageIndex);
+            PDRectangle mediaBox = source.getPage(pageIndex).getMediaBox();
+            for (int i = 0; i < columns * rows; i++) {
+                try (PDDocument tile = new PDDocument()) {
+                    addTile(tile, form, mediaBox, columns, rows, i / rows, i % rows);
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    tile.save(baos);
+                    tiles.add(baos.toByteArray());
+                }
+            }
+        }
+        return tiles;
+    }
+
+    private void writeTiles(int pageIndex, List<byte[]> tiles, TileWriter tileWriter)
+            throws IOException {
+        for (int i = 0; i < tiles.size(); i++) {
+            tileWriter.write(pageIndex, i, tiles.get(i));
+        }
+    }
+
+    private void addTiles(
+            PDDocument target, PDFormXObject form, PDRectangle mediaBox, int columns, int rows)
+            throws IOException {
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows; row++) {
+                addTile(target, form, mediaBox, columns, rows, column, row);
+            }
+        }
+    }
+
+    /** Adds a page showing one tile of {@code form}; row 0 is the top of the page. */
+    private void addTile(
+            PDDocument target,
+            PDFormXObject form,
+            PDRectangle mediaBox,
+            int columns,
+            int rows,
+            int column,
+            int row)
+            throws IOException {
+        float tileWidth = mediaBox.getWidth() / columns;
+        float tileHeight = mediaBox.getHeight() / rows;
+        PDPage tilePage = new PDPage(new PDRectangle(tileWidth, tileHeight));
+        target.addPage(tilePage);
+
+        try (PDPageContentStream contentStream =
+                new PDPageContentStream(target, tilePage, AppendMode.APPEND, true, true)) {
+            // Set clipping area and position
+            float translateX = -tileWidth * column;
+            float translateY = -tileHeight * (rows - 1 - row);
+
+            contentStream.saveGraphicsState();
+            contentStream.addRect(0, 0, tileWidth, tileHeight);
+            contentStream.clip();
+            contentStream.transform(new Matrix(1, 0, 0, 1, translateX, translateY));
+
+            // Draw the form
+            contentStream.drawForm(form);
+            contentStream.restoreGraphicsState();
+        }
+    }
+}
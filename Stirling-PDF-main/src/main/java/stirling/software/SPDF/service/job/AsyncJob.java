@@ -0,0 +1,40 @@
+package stirling.software.SPDF.service.job;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+/** State of a request that is processed in the background, as reported to polling clients. */
+@Data
+public class AsyncJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private String id;
+    private String operation;
+    private Status status;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Instant expiresAt;
+    private String error;
+    private String resultFileName;
+    private String resultContentType;
+    private long resultSize;
+
+    // The user who submitted the job, kept out of API responses
+    @JsonIgnore private String owner;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+}
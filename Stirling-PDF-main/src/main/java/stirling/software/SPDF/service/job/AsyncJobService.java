@@ -0,0 +1,351 @@
+package stirling.software.SPDF.service.job;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import stirling.software.SPDF.controller.api.pipeline.UserServiceInterface;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.FileBackedMultipartFile;
+
+/**
+ * Runs long conversions in the background so the HTTP request returns straight away with a job id.
+ * Inputs are spooled to disk before the request completes, results are written next to them, and
+ * finished jobs are removed once their retention period has passed.
+ */
+@Service
+@Slf4j
+public class AsyncJobService {
+
+    public static final String JOB_PATH = "/api/v1/general/job/";
+
+    // Longest error text kept from a failed response body
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /** The synchronous work of an endpoint, run against the spooled copy of its input. */
+    @FunctionalInterface
+    public interface JobTask {
+        ResponseEntity<byte[]> run(MultipartFile input) throws Exception;
+    }
+
+    private final boolean enabled;
+    private final Duration retention;
+    private final AsyncJobStore store;
+    private final ObjectMapper objectMapper;
+    private final TaskDecorator taskDecorator;
+    private final ThreadPoolExecutor executor;
+    private final UserServiceInterface userService;
+
+    private final Map<String, AsyncJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<AsyncJob>> completions = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> running = new ConcurrentHashMap<>();
+
+    public AsyncJobService(
+            ApplicationProperties applicationProperties,
+            ObjectMapper objectMapper,
+            ObjectProvider<TaskDecorator> taskDecorator,
+            @Autowired(required = false) UserServiceInterface userService)
+            throws IOException {
+        ApplicationProperties.AsyncJobs config = applicationProperties.getSystem().getAsyncJobs();
+        this.enabled = config.isEnabled();
+        this.retention = Duration.ofMinutes(Math.max(1, config.getResultRetentionMinutes()));
+        this.objectMapper = objectMapper;
+        this.userService = userService;
+        this.taskDecorator = taskDecorator.getIfUnique(() -> runnable -> runnable);
+        String directory = config.getDirectory();
+        Path root =
+                directory == null || directory.isBlank()
+                        ? Paths.get(System.getProperty("java.io.tmpdir"), "stirling-pdf-jobs")
+                        : Paths.get(directory);
+        this.store = new AsyncJobStore(root, objectMapper);
+
+        int concurrency = Math.max(1, config.getConcurrency());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor =
+                new ThreadPoolExecutor(
+                        concurrency,
+                        concurrency,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(
+                                            runnable, "async-job-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        restoreJobs();
+    }
+
+    /** Picks up jobs from a previous run; anything that had not finished is reported as failed. */
+    private void restoreJobs() throws IOException {
+        Instant now = Instant.now();
+        for (AsyncJob job : store.loadAll()) {
+            if (!job.isFinished()) {
+                job.setStatus(AsyncJob.Status.FAILED);
+                job.setError("Interrupted by a server restart");
+                job.setFinishedAt(now);
+                job.setExpiresAt(now.plus(retention));
+                store.save(job);
+            }
+            jobs.put(job.getId(), job);
+            completions.put(job.getId(), CompletableFuture.completedFuture(job));
+        }
+        if (!jobs.isEmpty()) {
+            log.info("Restored {} asynchronous jobs", jobs.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Spools the input to disk and queues the job.
+     *
+     * @return a 202 response pointing at the job status, with the job state as its body
+     */
+    public ResponseEntity<byte[]> submit(String operation, MultipartFile input, JobTask task)
+            throws IOException {
+        AsyncJob job = new AsyncJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setOperation(operation);
+        job.setStatus(AsyncJob.Status.QUEUED);
+        job.setCreatedAt(Instant.now());
+        job.setOwner(currentOwner());
+
+        Path directory = Files.createDirectories(store.jobDirectory(job.getId()));
+        MultipartFile spooled =
+                input != null
+                        ? FileBackedMultipartFile.copyOf(input, directory.resolve("input"))
+                        : null;
+        store.save(job);
+        jobs.put(job.getId(), job);
+        completions.put(job.getId(), new CompletableFuture<>());
+        try {
+            running.put(
+                    job.getId(),
+                    executor.submit(taskDecorator.decorate(() -> execute(job, spooled, task))));
+        } catch (RejectedExecutionException e) {
+            discard(job.getId());
+            throw new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Too many queued jobs, try again later");
+        }
+        log.debug("Queued {} job {}", operation, job.getId());
+
+        String location =
+                ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path(JOB_PATH + job.getId())
+                        .toUriString();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", location)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(objectMapper.writeValueAsBytes(job));
+    }
+
+    private void execute(AsyncJob job, MultipartFile input, JobTask task) {
+        update(job, AsyncJob.Status.RUNNING, null);
+        try {
+            ResponseEntity<byte[]> response = task.run(input);
+            if (job.isFinished()) {
+                // Cancelled while running, its files are already gone
+                return;
+            }
+            byte[] body = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful() || body == null) {
+                String error =
+                        body != null ? new String(body, StandardCharsets.UTF_8) : "No content";
+                complete(
+                        job,
+                        AsyncJob.Status.FAILED,
+                        response.getStatusCode().value()
+                                + ": "
+                                + error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH)));
+                return;
+            }
+            Files.write(store.resultFile(job.getId()), body);
+            ContentDisposition disposition = response.getHeaders().getContentDisposition();
+            MediaType contentType = response.getHeaders().getContentType();
+            job.setResultFileName(
+                    disposition.getFilename() != null ? disposition.getFilename() : "result");
+            job.setResultContentType(
+                    contentType != null
+                            ? contentType.toString()
+                            : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            job.setResultSize(body.length);
+            complete(job, AsyncJob.Status.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(job, AsyncJob.Status.CANCELLED, "Cancelled");
+        } catch (Exception e) {
+            log.warn("Job {} ({}) failed", job.getId(), job.getOperation(), e);
+            complete(job, AsyncJob.Status.FAILED, e.getMessage());
+        } finally {
+            running.remove(job.getId());
+            try {
+                Files.deleteIfExists(store.jobDirectory(job.getId()).resolve("input"));
+            } catch (IOException e) {
+                log.debug("Could not delete input of job {}", job.getId(), e);
+            }
+        }
+    }
+
+    private void update(AsyncJob job, AsyncJob.Status status, String error) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                return;
+            }
+            job.setStatus(status);
+            job.setError(error);
+            if (status == AsyncJob.Status.RUNNING) {
+                job.setStartedAt(Instant.now());
+            }
+            if (job.isFinished()) {
+                job.setFinishedAt(Instant.now());
+                job.setExpiresAt(job.getFinishedAt().plus(retention));
+            }
+            try {
+                store.save(job);
+            } catch (IOException e) {
+                log.warn("Could not persist state of job {}", job.getId(), e);
+            }
+        }
+    }
+
+    private void complete(AsyncJob job, AsyncJob.Status status, String error) {
+        update(job, status, error);
+        CompletableFuture<AsyncJob> completion = completions.get(job.getId());
+        if (completion != null) {
+            completion.complete(job);
+        }
+    }
+
+    /** Returns the job, if it exists and was submitted by the current user. */
+    public Optional<AsyncJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).filter(this::isOwnedByCurrentUser);
+    }
+
+    /**
+     * Jobs submitted without a signed in user, e.g. with login disabled, can be accessed by anyone
+     * who knows their id. Other jobs only by the user who submitted them.
+     */
+    private boolean isOwnedByCurrentUser(AsyncJob job) {
+        return job.getOwner() == null || job.getOwner().equals(currentOwner());
+    }
+
+    private String currentOwner() {
+        if (userService == null) {
+            return null;
+        }
+        try {
+            return userService.getCurrentUsername();
+        } catch (RuntimeException e) {
+            // No authentication in this context
+            return null;
+        }
+    }
+
+    /**
+     * Waits up to {@code timeout} for the job to finish, so clients can long-poll instead of
+     * repeatedly asking for the status.
+     */
+    public Optional<AsyncJob> awaitJob(String jobId, Duration timeout) throws InterruptedException {
+        CompletableFuture<AsyncJob> completion = completions.get(jobId);
+        if (completion == null || getJob(jobId).isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            completion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            // Report the current state instead
+        }
+        return getJob(jobId);
+    }
+
+    /** Returns the result file of a completed job. */
+    public Optional<Path> getResult(String jobId) {
+        AsyncJob job = getJob(jobId).orElse(null);
+        if (job == null || job.getStatus() != AsyncJob.Status.COMPLETED) {
+            return Optional.empty();
+        }
+        Path result = store.resultFile(jobId);
+        return Files.isRegularFile(result) ? Optional.of(result) : Optional.empty();
+    }
+
+    /** Cancels a job that has not finished yet, or deletes a finished job and its result. */
+    public boolean cancelOrDelete(String jobId) {
+        AsyncJob job = getJob(jobId).orElse(null);
+        if (job == null) {
+            return false;
+        }
+        Future<?> future = running.remove(jobId);
+        if (future != null) {
+            future.cancel(true);
+        }
+        complete(job, AsyncJob.Status.CANCELLED, "Cancelled");
+        discard(jobId);
+        return true;
+    }
+
+    private void discard(String jobId) {
+        jobs.remove(jobId);
+        completions.remove(jobId);
+        store.delete(jobId);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void removeExpiredJobs() {
+        Instant now = Instant.now();
+        for (AsyncJob job : jobs.values()) {
+            if (job.isFinished()
+                    && job.getExpiresAt() != null
+                    && job.getExpiresAt().isBefore(now)) {
+                log.debug("Removing expired job {}", job.getId());
+                discard(job.getId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
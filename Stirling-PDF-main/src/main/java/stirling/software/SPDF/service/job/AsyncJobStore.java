@@ -0,0 +1,90 @@
+package stirling.software.SPDF.service.job;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps each job in its own directory: the job state as {@code job.json}, the spooled input and the
+ * result. Jobs survive restarts, so results finished before a restart can still be fetched.
+ */
+@Slf4j
+class AsyncJobStore {
+
+    private static final String STATE_FILE = "job.json";
+    private static final String RESULT_FILE = "result";
+
+    private final Path root;
+    private final ObjectMapper objectMapper;
+
+    AsyncJobStore(Path root, ObjectMapper objectMapper) throws IOException {
+        this.root = root;
+        // Unlike API responses, the stored state includes the job's owner
+        this.objectMapper = objectMapper.copy().addMixIn(AsyncJob.class, StoredJob.class);
+        Files.createDirectories(root);
+    }
+
+    Path jobDirectory(String jobId) {
+        return root.resolve(jobId);
+    }
+
+    Path resultFile(String jobId) {
+        return jobDirectory(jobId).resolve(RESULT_FILE);
+    }
+
+    /** Writes the job state, replacing the previous state in one step. */
+    void save(AsyncJob job) throws IOException {
+        Path directory = Files.createDirectories(jobDirectory(job.getId()));
+        Path tempFile = Files.createTempFile(directory, STATE_FILE, ".tmp");
+        objectMapper.writeValue(tempFile.toFile(), job);
+        Files.move(
+                tempFile,
+                directory.resolve(STATE_FILE),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    List<AsyncJob> loadAll() throws IOException {
+        List<AsyncJob> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(root)) {
+            for (Path directory : directories) {
+                Path stateFile = directory.resolve(STATE_FILE);
+                if (!Files.isRegularFile(stateFile)) {
+                    continue;
+                }
+                try {
+                    jobs.add(objectMapper.readValue(stateFile.toFile(), AsyncJob.class));
+                } catch (IOException e) {
+                    log.warn("Ignoring unreadable job state {}", stateFile, e);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    void delete(String jobId) {
+        try {
+            FileUtils.deleteDirectory(jobDirectory(jobId).toFile());
+        } catch (IOException e) {
+            log.warn("Could not delete files of job {}", jobId, e);
+        }
+    }
+
+    private abstract static class StoredJob {
+        @JsonIgnore(false)
+        @JsonProperty
+        private String owner;
+    }
+}
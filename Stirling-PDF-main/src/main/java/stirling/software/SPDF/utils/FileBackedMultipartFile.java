@@ -0,0 +1,142 @@
+package stirling.software.SPDF.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * An uploaded file that lives on disk, so it can be read any number of times and by code running
+ * after the request that carried it has completed. The SHA-256 of the content is computed at most
+ * once, while copying when the content has to be copied anyway.
+ */
+public class FileBackedMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final Path path;
+    private volatile String sha256;
+
+    FileBackedMultipartFile(MultipartFile upload, Path path, String sha256) {
+        this.name = upload.getName();
+        this.originalFilename = upload.getOriginalFilename();
+        this.contentType = upload.getContentType();
+        this.path = path;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Places the content of {@code upload} at {@code target}, as a hard link to the request's
+     * on-disk copy where possible and as a streamed copy otherwise.
+     */
+    public static FileBackedMultipartFile copyOf(MultipartFile upload, Path target)
+            throws IOException {
+        FileBackedMultipartFile onDisk = UploadSpool.onDisk(upload).orElse(null);
+        if (onDisk != null) {
+            onDisk.linkOrCopyTo(target);
+            return new FileBackedMultipartFile(upload, target, onDisk.sha256);
+        }
+        MessageDigest digest = sha256Digest();
+        try (InputStream in = new DigestInputStream(upload.getInputStream(), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new FileBackedMultipartFile(
+                upload, target, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /** Makes the content available at {@code target} without copying it where possible. */
+    public void linkOrCopyTo(Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, path);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Different file system or no hard link support
+            Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /** Hex encoded SHA-256 of the content. */
+    public String getSha256() throws IOException {
+        String hash = sha256;
+        if (hash == null) {
+            MessageDigest digest = sha256Digest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+            sha256 = hash;
+        }
+        return hash;
+    }
+
+    static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
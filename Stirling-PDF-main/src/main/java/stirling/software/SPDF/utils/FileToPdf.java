@@ -188,7 +188,7 @@ public class FileToPdf {
         }
     }
 
-    static String sanitizeZipFilename(String entryName) {
+    public static String sanitizeZipFilename(String entryName) {
         if (entryName == null || entryName.trim().isEmpty()) {
             return "";
         }
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.core.io.Resource;
@@ -35,6 +36,12 @@ public class GeneralUtils {
 
     public static File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
         File tempFile = Files.createTempFile("temp", null).toFile();
+        Optional<FileBackedMultipartFile> onDisk = UploadSpool.onDisk(multipartFile);
+        if (onDisk.isPresent()) {
+            // A hard link to the shared copy, so deleting the returned file leaves it intact
+            onDisk.get().linkOrCopyTo(tempFile.toPath());
+            return tempFile;
+        }
         try (InputStream inputStream = multipartFile.getInputStream();
                 FileOutputStream outputStream = new FileOutputStream(tempFile)) {
 
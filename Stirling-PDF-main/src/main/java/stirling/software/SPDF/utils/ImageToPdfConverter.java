@@ -0,0 +1,192 @@
+package stirling.software.SPDF.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.web.multipart.MultipartFile;
+
+import io.github.pixee.security.Filenames;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adds uploaded images to a document, one page per image.
+ *
+ * <p>JPEG files that need no colour change are embedded as they are, as DCT streams, and their EXIF
+ * orientation is applied through the page transform instead of rotating pixels. All other images
+ * are decoded and encoded on a worker pool, each file into its own memory-only scratch document.
+ * The scratch documents hold the image data until the target document has been saved, so the
+ * converter must be closed only after that.
+ */
+@Slf4j
+class ImageToPdfConverter implements Closeable {
+
+    private final String fitOption;
+    private final boolean autoRotate;
+    private final String colorType;
+    private final int workers;
+
+    private final List<PDDocument> scratchDocuments = new ArrayList<>();
+
+    ImageToPdfConverter(String fitOption, boolean autoRotate, String colorType) {
+        this(fitOption, autoRotate, colorType, Runtime.getRuntime().availableProcessors());
+    }
+
+    ImageToPdfConverter(String fitOption, boolean autoRotate, String colorType, int workers) {
+        this.fitOption = fitOption;
+        this.autoRotate = autoRotate;
+        this.colorType = colorType;
+        this.workers = workers;
+    }
+
+    /** Adds a page for every image in {@code files}, in the order given. */
+    void addPages(PDDocument doc, MultipartFile[] files) throws IOException {
+        int poolSize = Math.min(workers, files.length);
+        if (poolSize <= 1) {
+            for (MultipartFile file : files) {
+                addPages(doc, convert(file));
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        Deque<Future<ConvertedFile>> inFlight = new ArrayDeque<>();
+        try {
+            for (MultipartFile file : files) {
+                inFlight.add(executor.submit(() -> convert(file)));
+                if (inFlight.size() >= poolSize * 2) {
+                    addPages(doc, await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                addPages(doc, await(inFlight.poll()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting images", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void addPages(PDDocument doc, ConvertedFile converted) throws IOException {
+        scratchDocuments.add(converted.scratch());
+        for (OrientedImage image : converted.images()) {
+            PdfUtils.addImageToDocument(
+                    doc, image.image(), image.orientation(), fitOption, autoRotate);
+        }
+    }
+
+    private static ConvertedFile await(Future<ConvertedFile> pending)
+            throws IOException, InterruptedException {
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Error converting image", e.getCause());
+        }
+    }
+
+    private ConvertedFile convert(MultipartFile file) throws IOException {
+        PDDocument scratch = new PDDocument();
+        try {
+            List<OrientedImage> images = new ArrayList<>();
+            String originalFilename = Filenames.toSimpleFileName(file.getOriginalFilename());
+            if (originalFilename != null
+                    && (originalFilename.toLowerCase().endsWith(".tiff")
+                            || originalFilename.toLowerCase().endsWith(".tif"))) {
+                ImageReader reader = ImageIO.getImageReadersByFormatName("tiff").next();
+                try (ImageInputStream input =
+                        ImageIO.createImageInputStream(file.getInputStream())) {
+                    reader.setInput(input);
+                    int numPages = reader.getNumImages(true);
+                    for (int i = 0; i < numPages; i++) {
+                        BufferedImage convertedImage =
+                                ImageProcessingUtils.convertColorType(reader.read(i), colorType);
+                        images.add(
+                                new OrientedImage(
+                                        LosslessFactory.createFromImage(scratch, convertedImage),
+                                        0));
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            } else {
+                byte[] bytes = file.getBytes();
+                int orientation =
+                        (int)
+                                ImageProcessingUtils.extractImageOrientation(
+                                        new ByteArrayInputStream(bytes));
+                images.add(new OrientedImage(createImage(scratch, bytes), orientation));
+            }
+            return new ConvertedFile(scratch, images);
+        } catch (IOException | RuntimeException e) {
+            scratch.close();
+            throw e;
+        }
+    }
+
+    private PDImageXObject createImage(PDDocument scratch, byte[] bytes) throws IOException {
+        boolean jpeg = isJpeg(bytes);
+        if (jpeg && !"blackwhite".equals(colorType)) {
+            // Embed the compressed data as is unless its colours have to change
+            PDImageXObject image = JPEGFactory.createFromByteArray(scratch, bytes);
+            if (!"greyscale".equals(colorType) || image.getColorSpace() instanceof PDDeviceGray) {
+                return image;
+            }
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+        BufferedImage convertedImage = ImageProcessingUtils.convertColorType(image, colorType);
+        // Use JPEGFactory if it's JPEG since JPEG is lossy
+        return jpeg
+                ? JPEGFactory.createFromImage(scratch, convertedImage)
+                : LosslessFactory.createFromImage(scratch, convertedImage);
+    }
+
+    private static boolean isJpeg(byte[] bytes) {
+        return bytes.length > 2
+                && (bytes[0] & 0xFF) == 0xFF
+                && (bytes[1] & 0xFF) == 0xD8
+                && (bytes[2] & 0xFF) == 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (PDDocument scratch : scratchDocuments) {
+            scratch.close();
+        }
+        scratchDocuments.clear();
+    }
+
+    /** An image together with the clockwise rotation needed to display it upright. */
+    private record OrientedImage(PDImageXObject image, int orientation) {}
+
+    private record ConvertedFile(PDDocument scratch, List<OrientedImage> images) {}
+}
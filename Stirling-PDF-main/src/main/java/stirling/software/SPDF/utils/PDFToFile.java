@@ -4,21 +4,36 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter;
 import com.vladsch.flexmark.util.data.MutableDataSet;
@@ -27,11 +42,44 @@ import io.github.pixee.security.Filenames;
 
 import lombok.extern.slf4j.Slf4j;
 
-import stirling.software.SPDF.utils.ProcessExecutor.ProcessExecutorResult;
+import stirling.software.SPDF.service.LibreOfficeConverterPool;
 
 @Slf4j
 public class PDFToFile {
 
+    // Pages each pdftohtml run converts at least, so shorter documents keep a single run
+    static final int MIN_PAGES_PER_RUN = 50;
+
+    private final LibreOfficeConverterPool converterPool;
+
+    private final int pdfToHtmlSessions;
+
+    String pdfToHtmlCommand = "pdftohtml";
+
+    public PDFToFile() {
+        this(null, 1);
+    }
+
+    /**
+     * Creates a converter that can also convert to office formats through {@code converterPool}.
+     */
+    public PDFToFile(LibreOfficeConverterPool converterPool) {
+        this(converterPool, 1);
+    }
+
+    /**
+     * Creates a converter that splits long documents into page ranges for HTML and Markdown output,
+     * converting up to {@code pdfToHtmlSessions} ranges at the same time.
+     */
+    public PDFToFile(int pdfToHtmlSessions) {
+        this(null, pdfToHtmlSessions);
+    }
+
+    private PDFToFile(LibreOfficeConverterPool converterPool, int pdfToHtmlSessions) {
+        this.converterPool = converterPool;
+        this.pdfToHtmlSessions = Math.max(1, pdfToHtmlSessions);
+    }
+
     public ResponseEntity<byte[]> processPdfToMarkdown(MultipartFile inputFile)
             throws IOException, InterruptedException {
         if (!"application/pdf".equals(inputFile.getContentType())) {
@@ -79,36 +127,47 @@ public class PDFToFile {
             inputFile.transferTo(tempInputFile);
             tempOutputDir = Files.createTempDirectory("output_");
 
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "pdftohtml",
-                                    "-s",
-                                    "-noframes",
-                                    "-c",
-                                    tempInputFile.toString(),
-                                    pdfBaseName));
-
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.PDFTOHTML)
-                            .runCommandWithOutputHandling(command, tempOutputDir.toFile());
-            // Process HTML files to Markdown
-            File[] outputFiles = Objects.requireNonNull(tempOutputDir.toFile().listFiles());
+            List<Path> outputDirs =
+                    runPdfToHtml(
+                            tempInputFile,
+                            pdfBaseName,
+                            List.of("-s", "-noframes", "-c"),
+                            tempOutputDir);
+            List<File> outputFiles = new ArrayList<>();
             List<File> markdownFiles = new ArrayList<>();
 
             // Convert HTML files to Markdown
-            for (File outputFile : outputFiles) {
-                if (outputFile.getName().endsWith(".html")) {
-                    String html = Files.readString(outputFile.toPath());
-                    String markdown = htmlToMarkdownConverter.convert(html);
-
-                    String mdFileName = outputFile.getName().replace(".html", ".md");
-                    File mdFile = new File(tempOutputDir.toFile(), mdFileName);
-                    Files.writeString(mdFile.toPath(), markdown);
-                    markdownFiles.add(mdFile);
+            for (Path outputDir : outputDirs) {
+                File[] dirFiles = Objects.requireNonNull(outputDir.toFile().listFiles());
+                Arrays.sort(dirFiles);
+                for (File outputFile : dirFiles) {
+                    outputFiles.add(outputFile);
+                    if (outputFile.getName().endsWith(".html")) {
+                        String html = Files.readString(outputFile.toPath());
+                        String markdown = htmlToMarkdownConverter.convert(html);
+
+                        String mdFileName = outputFile.getName().replace(".html", ".md");
+                        File mdFile = new File(outputDir.toFile(), mdFileName);
+                        Files.writeString(mdFile.toPath(), markdown);
+                        markdownFiles.add(mdFile);
+                    }
                 }
             }
 
+            if (outputDirs.size() > 1) {
+                // Each page range made one document; together they are the whole document
+                Path merged = tempOutputDir.resolve(pdfBaseName + ".md");
+                try (OutputStream out = Files.newOutputStream(merged)) {
+                    for (int i = 0; i < markdownFiles.size(); i++) {
+                        if (i > 0) {
+                            out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+                        }
+                        Files.copy(markdownFiles.get(i).toPath(), out);
+                    }
+                }
+                markdownFiles = List.of(merged.toFile());
+            }
+
             // If there's only one markdown file, return it directly
             if (markdownFiles.size() == 1) {
                 fileName = pdfBaseName + ".md";
@@ -149,7 +208,7 @@ public class PDFToFile {
                 fileBytes, fileName, MediaType.APPLICATION_OCTET_STREAM);
     }
 
-    public ResponseEntity<byte[]> processPdfToHtml(MultipartFile inputFile)
+    public ResponseEntity<StreamingResponseBody> processPdfToHtml(MultipartFile inputFile)
             throws IOException, InterruptedException {
         if (!"application/pdf".equals(inputFile.getContentType())) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -164,8 +223,6 @@ public class PDFToFile {
 
         Path tempInputFile = null;
         Path tempOutputDir = null;
-        byte[] fileBytes;
-        String fileName = "temp.file";
 
         try {
             // Save the uploaded file to a temporary location
@@ -176,45 +233,172 @@ public class PDFToFile {
             tempOutputDir = Files.createTempDirectory("output_");
 
             // Run the pdftohtml command with complex output
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "pdftohtml", "-c", tempInputFile.toString(), pdfBaseName));
+            List<Path> outputDirs =
+                    runPdfToHtml(tempInputFile, pdfBaseName, List.of("-c"), tempOutputDir);
+            stitchHtmlIndex(outputDirs, pdfBaseName);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (tempInputFile != null) Files.deleteIfExists(tempInputFile);
+            if (tempOutputDir != null) FileUtils.deleteDirectory(tempOutputDir.toFile());
+            throw e;
+        }
 
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.PDFTOHTML)
-                            .runCommandWithOutputHandling(command, tempOutputDir.toFile());
+        // The archive is written straight to the response, then the files are removed
+        Path inputToDelete = tempInputFile;
+        Path outputToDelete = tempOutputDir;
+        return WebResponseUtils.streamingWebResponse(
+                outputStream -> {
+                    try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                        Set<String> entryNames = new HashSet<>();
+                        for (Path outputDir : listRangeDirs(outputToDelete)) {
+                            File[] outputFiles =
+                                    Objects.requireNonNull(outputDir.toFile().listFiles());
+                            Arrays.sort(outputFiles);
+                            for (File outputFile : outputFiles) {
+                                // Later ranges repeat the frame pages of the first one
+                                if (!entryNames.add(outputFile.getName())) {
+                                    continue;
+                                }
+                                zipOutputStream.putNextEntry(new ZipEntry(outputFile.getName()));
+                                Files.copy(outputFile.toPath(), zipOutputStream);
+                                zipOutputStream.closeEntry();
+                            }
+                        }
+                    } finally {
+                        Files.deleteIfExists(inputToDelete);
+                        FileUtils.deleteDirectory(outputToDelete.toFile());
+                    }
+                },
+                pdfBaseName + "ToHtml.zip",
+                MediaType.APPLICATION_OCTET_STREAM);
+    }
 
-            // Get output files
-            File[] outputFiles = Objects.requireNonNull(tempOutputDir.toFile().listFiles());
-
-            // Return output files in a ZIP archive
-            fileName = pdfBaseName + "ToHtml.zip";
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-            try (ZipOutputStream zipOutputStream = new ZipOutputStream(byteArrayOutputStream)) {
-                for (File outputFile : outputFiles) {
-                    ZipEntry entry = new ZipEntry(outputFile.getName());
-                    zipOutputStream.putNextEntry(entry);
-                    try (FileInputStream fis = new FileInputStream(outputFile)) {
-                        IOUtils.copy(fis, zipOutputStream);
-                    } catch (IOException e) {
-                        log.error("Exception writing zip entry", e);
+    /**
+     * Runs pdftohtml with {@code options} over {@code input}. Long documents are split into page
+     * ranges, converted at the same time, each into its own directory under {@code workDir}.
+     * pdftohtml keeps the document's page numbers in the names of pages and images, so the outputs
+     * of different ranges do not collide.
+     *
+     * @return the output directories, in page order
+     */
+    private List<Path> runPdfToHtml(Path input, String baseName, List<String> options, Path workDir)
+            throws IOException, InterruptedException {
+        List<int[]> ranges = pageRanges(input);
+        if (ranges.size() <= 1) {
+            Path outputDir = Files.createDirectory(workDir.resolve("range-0"));
+            List<String> command = new ArrayList<>();
+            command.add(pdfToHtmlCommand);
+            command.addAll(options);
+            command.add(input.toString());
+            command.add(baseName);
+            ProcessExecutor.getInstance(ProcessExecutor.Processes.PDFTOHTML)
+                    .runCommandWithOutputHandling(command, outputDir.toFile());
+            return List.of(outputDir);
+        }
+
+        log.debug("Converting {} page ranges with pdftohtml", ranges.size());
+        List<Path> outputDirs = new ArrayList<>(ranges.size());
+        List<Future<?>> runs = new ArrayList<>(ranges.size());
+        ExecutorService executor = Executors.newFixedThreadPool(ranges.size());
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                int[] range = ranges.get(i);
+                Path outputDir = Files.createDirectory(workDir.resolve("range-" + i));
+                outputDirs.add(outputDir);
+                List<String> command = new ArrayList<>();
+                command.add(pdfToHtmlCommand);
+                command.add("-f");
+                command.add(String.valueOf(range[0]));
+                command.add("-l");
+                command.add(String.valueOf(range[1]));
+                command.addAll(options);
+                command.add(input.toString());
+                command.add(baseName);
+                runs.add(
+                        executor.submit(
+                                () ->
+                                        ProcessExecutor.getInstance(
+                                                        ProcessExecutor.Processes.PDFTOHTML)
+                                                .runCommandWithOutputHandling(
+                                                        command, outputDir.toFile())));
+            }
+            for (Future<?> run : runs) {
+                try {
+                    run.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
                     }
-                    zipOutputStream.closeEntry();
+                    throw new IOException("pdftohtml failed", e.getCause());
                 }
-            } catch (IOException e) {
-                log.error("Exception writing zip", e);
             }
-            fileBytes = byteArrayOutputStream.toByteArray();
-
         } finally {
-            // Clean up the temporary files
-            if (tempInputFile != null) Files.deleteIfExists(tempInputFile);
-            if (tempOutputDir != null) FileUtils.deleteDirectory(tempOutputDir.toFile());
+            executor.shutdownNow();
         }
+        return outputDirs;
+    }
 
-        return WebResponseUtils.bytesToWebResponse(
-                fileBytes, fileName, MediaType.APPLICATION_OCTET_STREAM);
+    /** Splits the document into one page range per session, or returns a single range. */
+    private List<int[]> pageRanges(Path input) {
+        int pageCount;
+        try (PDDocument document = Loader.loadPDF(input.toFile())) {
+            pageCount = document.getNumberOfPages();
+        } catch (IOException e) {
+            // pdftohtml may still read what PDFBox cannot, e.g. with a password
+            log.debug("Could not count pages, converting in one run", e);
+            return List.of();
+        }
+        int runs = Math.min(pdfToHtmlSessions, pageCount / MIN_PAGES_PER_RUN);
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            ranges.add(new int[] {i * pageCount / runs + 1, (i + 1) * pageCount / runs});
+        }
+        return ranges;
+    }
+
+    private static List<Path> listRangeDirs(Path workDir) {
+        File[] dirs = Objects.requireNonNull(workDir.toFile().listFiles(File::isDirectory));
+        return Arrays.stream(dirs)
+                .map(File::toPath)
+                .sorted(
+                        Comparator.comparingInt(
+                                dir -> Integer.parseInt(dir.getFileName().toString().substring(6))))
+                .toList();
+    }
+
+    /**
+     * The page index of the first range only links its own pages. Adds links to the pages of the
+     * later ranges, in the format pdftohtml uses.
+     */
+    private static void stitchHtmlIndex(List<Path> outputDirs, String baseName) throws IOException {
+        Path index = outputDirs.get(0).resolve(baseName + "_ind.html");
+        if (outputDirs.size() <= 1 || !Files.isRegularFile(index)) {
+            return;
+        }
+        Pattern pagePattern = Pattern.compile(Pattern.quote(baseName) + "-(\\d+)\\.html");
+        TreeSet<Integer> laterPages = new TreeSet<>();
+        for (Path outputDir : outputDirs.subList(1, outputDirs.size())) {
+            File[] files = Objects.requireNonNull(outputDir.toFile().listFiles());
+            for (File file : files) {
+                Matcher matcher = pagePattern.matcher(file.getName());
+                if (matcher.matches()) {
+                    laterPages.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        StringBuilder links = new StringBuilder();
+        for (int page : laterPages) {
+            links.append("<a href=\"")
+                    .append(baseName)
+                    .append('-')
+                    .append(page)
+                    .append(".html\" target=\"contents\" >Page ")
+                    .append(page)
+                    .append("</a><br/>\n");
+        }
+        String html = Files.readString(index, StandardCharsets.UTF_8);
+        int end = html.lastIndexOf("</body>");
+        html = end >= 0 ? html.substring(0, end) + links + html.substring(end) : html + links;
+        Files.writeString(index, html, StandardCharsets.UTF_8);
     }
 
     public ResponseEntity<byte[]> processPdfToOfficeFormat(
@@ -256,22 +440,11 @@ public class PDFToFile {
             // Prepare the output directory
             tempOutputDir = Files.createTempDirectory("output_");
 
-            // Run the LibreOffice command
-            List<String> command =
-                    new ArrayList<>(
-                            Arrays.asList(
-                                    "soffice",
-                                    "--headless",
-                                    "--nologo",
-                                    "--infilter=" + libreOfficeFilter,
-                                    "--convert-to",
-                                    outputFormat,
-                                    "--outdir",
-                                    tempOutputDir.toString(),
-                                    tempInputFile.toString()));
-            ProcessExecutorResult returnCode =
-                    ProcessExecutor.getInstance(ProcessExecutor.Processes.LIBRE_OFFICE)
-                            .runCommandWithOutputHandling(command);
+            if (converterPool == null) {
+                throw new IllegalStateException("Office conversion needs a LibreOffice pool");
+            }
+            converterPool.convert(
+                    List.of(tempInputFile), libreOfficeFilter, outputFormat, tempOutputDir);
 
             // Get output files
             List<File> outputFiles = Arrays.asList(tempOutputDir.toFile().listFiles());
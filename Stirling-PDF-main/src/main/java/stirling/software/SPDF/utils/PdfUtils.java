@@ -23,16 +23,13 @@ import org.apache.pdfbox.pdmodel.PDResources;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.PDXObject;
 import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
-import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
-import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.util.Matrix;
 import org.springframework.web.multipart.MultipartFile;
 
-import io.github.pixee.security.Filenames;
-
 import lombok.extern.slf4j.Slf4j;
 
 import stirling.software.SPDF.service.CustomPDFDocumentFactory;
@@ -264,35 +261,6 @@ public class PdfUtils {
         }
     }
 
-    /**
-     * Converts a given Pdf file to PDF-Image.
-     *
-     * @param document to be converted. Note: the caller is responsible for closing the document
-     * @return converted document to PDF-Image
-     * @throws IOException if conversion fails
-     */
-    public static PDDocument convertPdfToPdfImage(PDDocument document) throws IOException {
-        PDDocument imageDocument = new PDDocument();
-        PDFRenderer pdfRenderer = new PDFRenderer(document);
-        pdfRenderer.setSubsamplingAllowed(true);
-        for (int page = 0; page < document.getNumberOfPages(); ++page) {
-            BufferedImage bim = pdfRenderer.renderImageWithDPI(page, 300, ImageType.RGB);
-            PDPage originalPage = document.getPage(page);
-
-            float width = originalPage.getMediaBox().getWidth();
-            float height = originalPage.getMediaBox().getHeight();
-
-            PDPage newPage = new PDPage(new PDRectangle(width, height));
-            imageDocument.addPage(newPage);
-            PDImageXObject pdImage = LosslessFactory.createFromImage(imageDocument, bim);
-            PDPageContentStream contentStream =
-                    new PDPageContentStream(imageDocument, newPage, AppendMode.APPEND, true, true);
-            contentStream.drawImage(pdImage, 0, 0, width, height);
-            contentStream.close();
-        }
-        return imageDocument;
-    }
-
     private static BufferedImage prepareImageForPdfToImage(
             int maxWidth, int height, String imageType) {
         BufferedImage combined;
@@ -317,36 +285,10 @@ public class PdfUtils {
             String colorType,
             CustomPDFDocumentFactory pdfDocumentFactory)
             throws IOException {
-        try (PDDocument doc = pdfDocumentFactory.createNewDocument()) {
-            for (MultipartFile file : files) {
-                String contentType = file.getContentType();
-                String originalFilename = Filenames.toSimpleFileName(file.getOriginalFilename());
-                if (originalFilename != null
-                        && (originalFilename.toLowerCase().endsWith(".tiff")
-                                || originalFilename.toLowerCase().endsWith(".tif"))) {
-                    ImageReader reader = ImageIO.getImageReadersByFormatName("tiff").next();
-                    reader.setInput(ImageIO.createImageInputStream(file.getInputStream()));
-                    int numPages = reader.getNumImages(true);
-                    for (int i = 0; i < numPages; i++) {
-                        BufferedImage pageImage = reader.read(i);
-                        BufferedImage convertedImage =
-                                ImageProcessingUtils.convertColorType(pageImage, colorType);
-                        PDImageXObject pdImage =
-                                LosslessFactory.createFromImage(doc, convertedImage);
-                        addImageToDocument(doc, pdImage, fitOption, autoRotate);
-                    }
-                } else {
-                    BufferedImage image = ImageProcessingUtils.loadImageWithExifOrientation(file);
-                    BufferedImage convertedImage =
-                            ImageProcessingUtils.convertColorType(image, colorType);
-                    // Use JPEGFactory if it's JPEG since JPEG is lossy
-                    PDImageXObject pdImage =
-                            (contentType != null && "image/jpeg".equals(contentType))
-                                    ? JPEGFactory.createFromImage(doc, convertedImage)
-                                    : LosslessFactory.createFromImage(doc, convertedImage);
-                    addImageToDocument(doc, pdImage, fitOption, autoRotate);
-                }
-            }
+        try (PDDocument doc = pdfDocumentFactory.createNewDocument();
+                ImageToPdfConverter converter =
+                        new ImageToPdfConverter(fitOption, autoRotate, colorType)) {
+            converter.addPages(doc, files);
             ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
             doc.save(byteArrayOutputStream);
             log.info("PDF successfully saved to byte array");
@@ -357,7 +299,25 @@ public class PdfUtils {
     public static void addImageToDocument(
             PDDocument doc, PDImageXObject image, String fitOption, boolean autoRotate)
             throws IOException {
-        boolean imageIsLandscape = image.getWidth() > image.getHeight();
+        addImageToDocument(doc, image, 0, fitOption, autoRotate);
+    }
+
+    /**
+     * Adds a page showing {@code image} turned clockwise by {@code orientation} degrees, which must
+     * be a multiple of 90. The rotation is applied by the page transform, so the image data is
+     * embedded unchanged.
+     */
+    public static void addImageToDocument(
+            PDDocument doc,
+            PDImageXObject image,
+            int orientation,
+            String fitOption,
+            boolean autoRotate)
+            throws IOException {
+        boolean quarterTurn = orientation == 90 || orientation == 270;
+        float imageWidth = quarterTurn ? image.getHeight() : image.getWidth();
+        float imageHeight = quarterTurn ? image.getWidth() : image.getHeight();
+        boolean imageIsLandscape = imageWidth > imageHeight;
         PDRectangle pageSize = PDRectangle.A4;
 
         if (autoRotate && imageIsLandscape) {
@@ -365,7 +325,7 @@ public class PdfUtils {
         }
 
         if ("fitDocumentToImage".equals(fitOption)) {
-            pageSize = new PDRectangle(image.getWidth(), image.getHeight());
+            pageSize = new PDRectangle(imageWidth, imageHeight);
         }
 
         PDPage page = new PDPage(pageSize);
@@ -377,26 +337,29 @@ public class PdfUtils {
         try (PDPageContentStream contentStream =
                 new PDPageContentStream(doc, page, AppendMode.APPEND, true, true)) {
             if ("fillPage".equals(fitOption) || "fitDocumentToImage".equals(fitOption)) {
-                contentStream.drawImage(image, 0, 0, pageWidth, pageHeight);
+                contentStream.drawImage(
+                        image, imagePlacement(orientation, 0, 0, pageWidth, pageHeight));
             } else if ("maintainAspectRatio".equals(fitOption)) {
-                float imageAspectRatio = (float) image.getWidth() / (float) image.getHeight();
+                float imageAspectRatio = imageWidth / imageHeight;
                 float pageAspectRatio = pageWidth / pageHeight;
 
                 float scaleFactor = 1.0f;
                 if (imageAspectRatio > pageAspectRatio) {
-                    scaleFactor = pageWidth / image.getWidth();
+                    scaleFactor = pageWidth / imageWidth;
                 } else {
-                    scaleFactor = pageHeight / image.getHeight();
+                    scaleFactor = pageHeight / imageHeight;
                 }
 
-                float xPos = (pageWidth - (image.getWidth() * scaleFactor)) / 2;
-                float yPos = (pageHeight - (image.getHeight() * scaleFactor)) / 2;
+                float xPos = (pageWidth - (imageWidth * scaleFactor)) / 2;
+                float yPos = (pageHeight - (imageHeight * scaleFactor)) / 2;
                 contentStream.drawImage(
                         image,
-                        xPos,
-                        yPos,
-                        image.getWidth() * scaleFactor,
-                        image.getHeight() * scaleFactor);
+                        imagePlacement(
+                                orientation,
+                                xPos,
+                                yPos,
+                                imageWidth * scaleFactor,
+                                imageHeight * scaleFactor));
             }
         } catch (IOException e) {
             log.error("Error adding image to PDF", e);
@@ -404,6 +367,21 @@ public class PdfUtils {
         }
     }
 
+    // Maps the image's unit square onto the given box, turned clockwise by orientation degrees
+    private static Matrix imagePlacement(
+            int orientation, float x, float y, float width, float height) {
+        switch (orientation) {
+            case 90:
+                return new Matrix(0, -height, width, 0, x, y + height);
+            case 180:
+                return new Matrix(-width, 0, 0, -height, x + width, y + height);
+            case 270:
+                return new Matrix(0, height, -width, 0, x + width, y);
+            default:
+                return new Matrix(width, 0, 0, height, x, y);
+        }
+    }
+
     public static byte[] overlayImage(
             CustomPDFDocumentFactory pdfDocumentFactory,
             byte[] pdfBytes,
@@ -11,19 +11,25 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
 import io.github.pixee.security.BoundedLineReader;
 
 import lombok.extern.slf4j.Slf4j;
 
+import stirling.software.SPDF.config.ProcessingConcurrencyFilter;
 import stirling.software.SPDF.model.ApplicationProperties;
 
 @Slf4j
 public class ProcessExecutor {
 
     private static final Map<Processes, ProcessExecutor> instances = new ConcurrentHashMap<>();
-    private static ApplicationProperties applicationProperties = new ApplicationProperties();
+    private static volatile ApplicationProperties applicationProperties =
+            new ApplicationProperties();
+    private static volatile ThreadFactory streamReaderThreads = Thread::new;
     private final Semaphore semaphore;
     private final boolean liveUpdates;
     private long timeoutDuration;
@@ -34,6 +40,26 @@ public class ProcessExecutor {
         this.timeoutDuration = timeout;
     }
 
+    /**
+     * Uses the configured session limits and timeouts. Executors created before this call keep the
+     * defaults, so it is called once at startup.
+     */
+    public static void setApplicationProperties(ApplicationProperties properties) {
+        applicationProperties = properties;
+        instances.clear();
+    }
+
+    /**
+     * Switches the threads that drain the output of external processes to virtual threads, which
+     * only occupy a carrier thread while they have data to copy. Requires a Java 21 runtime.
+     */
+    public static void useVirtualThreads(boolean enabled) {
+        streamReaderThreads =
+                enabled
+                        ? new VirtualThreadTaskExecutor("process-output-").getVirtualThreadFactory()
+                        : Thread::new;
+    }
+
     public static ProcessExecutor getInstance(Processes processType) {
         return getInstance(processType, true);
     }
@@ -142,7 +168,15 @@ public class ProcessExecutor {
             List<String> command, File workingDirectory) throws IOException, InterruptedException {
         String messages = "";
         int exitCode = 1;
-        semaphore.acquire();
+        // Neither waiting for a slot nor for the tool itself needs the request's processing permit
+        ProcessingConcurrencyFilter.PermitRelease permitRelease =
+                ProcessingConcurrencyFilter.releaseHeldPermit();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            permitRelease.close();
+            throw e;
+        }
         try {
 
             log.info("Running command: " + String.join(" ", command));
@@ -159,7 +193,7 @@ public class ProcessExecutor {
             List<String> outputLines = new ArrayList<>();
 
             Thread errorReaderThread =
-                    new Thread(
+                    streamReaderThreads.newThread(
                             () -> {
                                 try (BufferedReader errorReader =
                                         new BufferedReader(
@@ -182,7 +216,7 @@ public class ProcessExecutor {
                             });
 
             Thread outputReaderThread =
-                    new Thread(
+                    streamReaderThreads.newThread(
                             () -> {
                                 try (BufferedReader outputReader =
                                         new BufferedReader(
@@ -266,6 +300,7 @@ public class ProcessExecutor {
             }
         } finally {
             semaphore.release();
+            permitRelease.close();
         }
         return new ProcessExecutorResult(exitCode, messages);
     }
@@ -0,0 +1,137 @@
+package stirling.software.SPDF.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gives every upload of the current request a single on-disk copy that all code handling the
+ * request shares, instead of each caller copying {@link MultipartFile#getInputStream()} into its
+ * own temporary file. Parts the servlet container already spooled to disk are moved rather than
+ * copied, and their hash is computed at most once. The copies are deleted when the request
+ * completes, unless a response that reads them later has {@linkplain #retain() retained} them.
+ */
+@Slf4j
+public final class UploadSpool {
+
+    private static final String ATTRIBUTE = UploadSpool.class.getName();
+
+    private UploadSpool() {}
+
+    /**
+     * Returns the on-disk copy of {@code upload}, creating it on first use. Empty when the upload
+     * is not file backed and there is no request to tie the copy's lifetime to.
+     */
+    public static Optional<FileBackedMultipartFile> onDisk(MultipartFile upload)
+            throws IOException {
+        if (upload instanceof FileBackedMultipartFile fileBacked) {
+            return Optional.of(fileBacked);
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (upload == null || attributes == null) {
+            return Optional.empty();
+        }
+        Spool spool = spool(attributes);
+        synchronized (spool) {
+            FileBackedMultipartFile onDisk = spool.files.get(upload);
+            if (onDisk == null) {
+                onDisk = spool(upload);
+                spool.files.put(upload, onDisk);
+            }
+            return Optional.of(onDisk);
+        }
+    }
+
+    /**
+     * Keeps the current request's copies past the end of the request, for a response that still
+     * reads them once the request has completed, such as a {@link
+     * org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody}. Closing the
+     * returned handle deletes them instead.
+     */
+    public static Closeable retain() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return () -> {};
+        }
+        Spool spool = spool(attributes);
+        synchronized (spool) {
+            spool.retained = true;
+        }
+        return () -> deleteAll(spool);
+    }
+
+    private static Spool spool(RequestAttributes attributes) {
+        // The session mutex would create a session for every upload, so the request is the lock
+        Object lock =
+                attributes instanceof ServletRequestAttributes servletAttributes
+                        ? servletAttributes.getRequest()
+                        : attributes;
+        synchronized (lock) {
+            Spool spool =
+                    (Spool) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (spool == null) {
+                Spool created = new Spool();
+                attributes.setAttribute(ATTRIBUTE, created, RequestAttributes.SCOPE_REQUEST);
+                attributes.registerDestructionCallback(
+                        ATTRIBUTE,
+                        () -> {
+                            synchronized (created) {
+                                if (created.retained) {
+                                    return;
+                                }
+                            }
+                            deleteAll(created);
+                        },
+                        RequestAttributes.SCOPE_REQUEST);
+                spool = created;
+            }
+            return spool;
+        }
+    }
+
+    private static FileBackedMultipartFile spool(MultipartFile upload) throws IOException {
+        Path target = Files.createTempFile("upload-", ".tmp");
+        try {
+            // Container parts already written to disk are moved instead of copied
+            upload.transferTo(target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return new FileBackedMultipartFile(upload, target, null);
+    }
+
+    private static void deleteAll(Spool spool) {
+        List<FileBackedMultipartFile> files;
+        synchronized (spool) {
+            files = new ArrayList<>(spool.files.values());
+            spool.files.clear();
+        }
+        for (FileBackedMultipartFile file : files) {
+            try {
+                Files.deleteIfExists(file.getPath());
+            } catch (IOException e) {
+                log.warn("Could not delete spooled upload {}", file.getPath(), e);
+            }
+        }
+    }
+
+    /** The copies made for one request. */
+    private static final class Spool {
+        private final Map<MultipartFile, FileBackedMultipartFile> files = new IdentityHashMap<>();
+        private boolean retained;
+    }
+}
@@ -0,0 +1,148 @@
+package stirling.software.SPDF.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A WeasyPrint process that stays up for many documents, driven through {@code
+ * scripts/weasyprint_worker.py}. Requests and answers are single JSON lines on the process's stdin
+ * and stdout.
+ *
+ * <p>The process is started on the first conversion and started again after it dies or times out. A
+ * worker converts one document at a time.
+ */
+@Slf4j
+public class WeasyPrintWorker implements Closeable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<String> command;
+    private final long timeoutMillis;
+    private final ExecutorService responseReader;
+
+    private Process process;
+    private BufferedWriter requests;
+    private BufferedReader responses;
+
+    public WeasyPrintWorker(List<String> command, long timeoutMillis) {
+        this.command = List.copyOf(command);
+        this.timeoutMillis = timeoutMillis;
+        this.responseReader =
+                Executors.newSingleThreadExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "weasyprint-worker");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+    }
+
+    /**
+     * Renders {@code input} to {@code output}, resolving relative links against {@code baseDir}.
+     *
+     * @throws IOException if the document cannot be rendered or the worker fails or times out
+     */
+    public synchronized void convert(Path input, Path output, Path baseDir) throws IOException {
+        if (process == null || !process.isAlive()) {
+            start();
+        }
+        String request =
+                MAPPER.writeValueAsString(
+                        Map.of(
+                                "input", input.toString(),
+                                "output", output.toString(),
+                                "base_url", baseDir.toUri().toString()));
+        String answer;
+        try {
+            requests.write(request);
+            requests.newLine();
+            requests.flush();
+            answer = readAnswer();
+        } catch (IOException e) {
+            stop();
+            throw e;
+        }
+        JsonNode response = MAPPER.readTree(answer);
+        if (!response.path("ok").asBoolean()) {
+            throw new IOException("WeasyPrint failed: " + response.path("error").asText());
+        }
+    }
+
+    private String readAnswer() throws IOException {
+        Future<String> line = responseReader.submit(responses::readLine);
+        try {
+            String answer = line.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (answer == null) {
+                throw new IOException("WeasyPrint worker exited unexpectedly");
+            }
+            return answer;
+        } catch (TimeoutException e) {
+            throw new IOException("Process timeout exceeded.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for WeasyPrint", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read WeasyPrint worker output", e.getCause());
+        }
+    }
+
+    private void start() throws IOException {
+        log.info("Starting WeasyPrint worker: {}", String.join(" ", command));
+        process =
+                new ProcessBuilder(command)
+                        // Only answers are read; log output would fill the pipe otherwise
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+        requests =
+                new BufferedWriter(
+                        new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        responses =
+                new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private void stop() {
+        if (process != null) {
+            // Also ends a read still waiting for the process
+            process.destroyForcibly();
+            process = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (process != null) {
+            try {
+                // The worker exits once its input ends
+                requests.close();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    log.warn("WeasyPrint worker did not exit, stopping it");
+                }
+            } catch (IOException e) {
+                log.debug("Failed to close WeasyPrint worker input", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stop();
+        }
+        responseReader.shutdownNow();
+    }
+}
@@ -1,9 +1,11 @@
 package stirling.software.SPDF.utils;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.springframework.http.HttpHeaders;
@@ -11,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.github.pixee.security.Filenames;
 
@@ -66,4 +69,36 @@ public class WebResponseUtils {
 
         return boasToWebResponse(baos, docName);
     }
+
+    /**
+     * Writes the document straight into the response instead of buffering it in memory. The
+     * document and {@code resources} are closed once it has been written.
+     */
+    public static ResponseEntity<StreamingResponseBody> pdfDocToStreamingWebResponse(
+            PDDocument document, String docName, List<? extends Closeable> resources)
+            throws IOException {
+        StreamingResponseBody body =
+                outputStream -> {
+                    try (document) {
+                        document.save(outputStream);
+                    } finally {
+                        for (Closeable resource : resources) {
+                            resource.close();
+                        }
+                    }
+                };
+        return streamingWebResponse(body, docName, MediaType.APPLICATION_PDF);
+    }
+
+    /** Sends whatever {@code body} writes as a download, without buffering it in memory. */
+    public static ResponseEntity<StreamingResponseBody> streamingWebResponse(
+            StreamingResponseBody body, String docName, MediaType mediaType) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(mediaType);
+        String encodedDocName =
+                URLEncoder.encode(docName, StandardCharsets.UTF_8.toString())
+                        .replaceAll("\\+", "%20");
+        headers.setContentDispositionFormData("attachment", encodedDocName);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
 }
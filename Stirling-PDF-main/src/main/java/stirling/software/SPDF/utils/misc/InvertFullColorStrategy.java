@@ -8,23 +8,25 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 
-import javax.imageio.ImageIO;
-
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.apache.pdfbox.rendering.PDFRenderer;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.web.multipart.MultipartFile;
 
 import stirling.software.SPDF.model.api.misc.ReplaceAndInvert;
+import stirling.software.SPDF.service.PdfRasterizationService;
+import stirling.software.SPDF.service.PdfRasterizationService.ImageEncoding;
 
 public class InvertFullColorStrategy extends ReplaceAndInvertColorStrategy {
 
-    public InvertFullColorStrategy(MultipartFile file, ReplaceAndInvert replaceAndInvert) {
+    private final PdfRasterizationService rasterizationService;
+
+    public InvertFullColorStrategy(
+            MultipartFile file,
+            ReplaceAndInvert replaceAndInvert,
+            PdfRasterizationService rasterizationService) {
         super(file, replaceAndInvert);
+        this.rasterizationService = rasterizationService;
     }
 
     @Override
@@ -41,42 +43,15 @@ public class InvertFullColorStrategy extends ReplaceAndInvertColorStrategy {
             // Load the uploaded PDF
             PDDocument document = Loader.loadPDF(file);
 
-            // Render each page and invert colors
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            for (int page = 0; page < document.getNumberOfPages(); page++) {
-                BufferedImage image =
-                        pdfRenderer.renderImageWithDPI(page, 300); // Render page at 300 DPI
-
-                // Invert the colors
-                invertImageColors(image);
-
-                // Create a new PDPage from the inverted image
-                PDPage pdPage = document.getPage(page);
-                File tempImageFile = null;
-                try {
-                    tempImageFile = convertToBufferedImageTpFile(image);
-                    PDImageXObject pdImage =
-                            PDImageXObject.createFromFileByContent(tempImageFile, document);
-
-                    PDPageContentStream contentStream =
-                            new PDPageContentStream(
-                                    document,
-                                    pdPage,
-                                    PDPageContentStream.AppendMode.OVERWRITE,
-                                    true);
-                    contentStream.drawImage(
-                            pdImage,
-                            0,
-                            0,
-                            pdPage.getMediaBox().getWidth(),
-                            pdPage.getMediaBox().getHeight());
-                    contentStream.close();
-                } finally {
-                    if (tempImageFile != null && tempImageFile.exists()) {
-                        Files.delete(tempImageFile.toPath());
-                    }
-                }
-            }
+            // Render each page and replace its content with the inverted image
+            rasterizationService.rasterizeInPlace(
+                    document,
+                    PdfRasterizationService.DEFAULT_DPI,
+                    ImageEncoding.LOSSLESS,
+                    image -> {
+                        invertImageColors(image);
+                        return image;
+                    });
 
             // Save the modified PDF to a ByteArrayOutputStream
             ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
@@ -112,11 +87,4 @@ public class InvertFullColorStrategy extends ReplaceAndInvertColorStrategy {
             }
         }
     }
-
-    // Helper method to convert BufferedImage to InputStream
-    private File convertToBufferedImageTpFile(BufferedImage image) throws IOException {
-        File file = File.createTempFile("image", ".png");
-        ImageIO.write(image, "png", file);
-        return file;
-    }
 }
@@ -0,0 +1,256 @@
+package stirling.software.SPDF.utils.misc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSDocument;
+import org.apache.pdfbox.cos.COSInputStream;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSObjectKey;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Removes the filters from every stream of a document.
+ *
+ * <p>The object graph is walked iteratively with identity-based visited tracking, so deep or cyclic
+ * structures neither overflow the stack nor pay for hashing COS objects. Small streams that only
+ * use general purpose filters are decoded concurrently from their raw bytes; everything else is
+ * decoded on the calling thread into a stream backed by the document's scratch cache, so large
+ * images never have to fit in the heap as a single array.
+ */
+@Slf4j
+public class StreamDecompressor {
+
+    // Streams whose encoded data is larger than this are decoded through the scratch cache
+    static final long IN_MEMORY_LIMIT = 4L * 1024 * 1024;
+
+    // Filters that only read their own decode parameters and can run away from the document
+    private static final Set<COSName> CONCURRENT_FILTERS =
+            Set.of(
+                    COSName.FLATE_DECODE,
+                    COSName.FLATE_DECODE_ABBREVIATION,
+                    COSName.LZW_DECODE,
+                    COSName.LZW_DECODE_ABBREVIATION,
+                    COSName.ASCII_HEX_DECODE,
+                    COSName.ASCII_HEX_DECODE_ABBREVIATION,
+                    COSName.ASCII85_DECODE,
+                    COSName.ASCII85_DECODE_ABBREVIATION,
+                    COSName.RUN_LENGTH_DECODE,
+                    COSName.RUN_LENGTH_DECODE_ABBREVIATION);
+
+    private final COSDocument cosDocument;
+    private final int workers;
+
+    public StreamDecompressor(PDDocument document) {
+        this(document, Runtime.getRuntime().availableProcessors());
+    }
+
+    StreamDecompressor(PDDocument document, int workers) {
+        this.cosDocument = document.getDocument();
+        this.workers = workers;
+    }
+
+    /**
+     * Decodes every filtered stream reachable from the cross reference table and writes it back
+     * unfiltered.
+     *
+     * @return the number of streams that were decompressed
+     */
+    public int decompressAll() throws IOException {
+        List<COSStream> streams = collectStreams();
+        log.debug("Decompressing {} streams with up to {} workers", streams.size(), workers);
+
+        ExecutorService executor = workers > 1 ? Executors.newFixedThreadPool(workers) : null;
+        Deque<PendingStream> inFlight = new ArrayDeque<>();
+        int decompressed = 0;
+        try {
+            for (COSStream stream : streams) {
+                if (!hasFilterEntries(stream)) {
+                    continue;
+                }
+                if (executor != null && canDecodeConcurrently(stream)) {
+                    byte[] raw;
+                    try (InputStream in = stream.createRawInputStream()) {
+                        raw = IOUtils.toByteArray(in);
+                    } catch (IOException e) {
+                        log.error("Error reading stream", e);
+                        continue;
+                    }
+                    List<COSName> filters = filterList(stream);
+                    inFlight.add(
+                            new PendingStream(
+                                    stream, executor.submit(() -> decode(raw, filters, stream))));
+                    if (inFlight.size() >= workers * 2) {
+                        decompressed += complete(inFlight.poll());
+                    }
+                } else if (decompressInPlace(stream)) {
+                    decompressed++;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                decompressed += complete(inFlight.poll());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while decompressing streams", e);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return decompressed;
+    }
+
+    /**
+     * Walks the object graph and returns each stream once. Indirect objects are resolved here on
+     * the calling thread, so the concurrent decoders only ever read already loaded dictionaries.
+     */
+    List<COSStream> collectStreams() {
+        Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<COSStream> streams = new ArrayList<>();
+        Deque<COSBase> pending = new ArrayDeque<>();
+        for (COSObjectKey key : cosDocument.getXrefTable().keySet()) {
+            pending.push(cosDocument.getObjectFromPool(key));
+            while (!pending.isEmpty()) {
+                COSBase current = pending.pop();
+                if (current == null || !visited.add(current)) {
+                    continue;
+                }
+                if (current instanceof COSObject cosObject) {
+                    pending.push(cosObject.getObject());
+                } else if (current instanceof COSDictionary dictionary) {
+                    for (COSName name : dictionary.keySet()) {
+                        pending.push(dictionary.getDictionaryObject(name));
+                    }
+                    if (dictionary instanceof COSStream stream) {
+                        streams.add(stream);
+                    }
+                } else if (current instanceof COSArray array) {
+                    for (int i = 0; i < array.size(); i++) {
+                        pending.push(array.get(i));
+                    }
+                }
+            }
+        }
+        return streams;
+    }
+
+    private static boolean hasFilterEntries(COSStream stream) {
+        return stream.containsKey(COSName.FILTER)
+                || stream.containsKey(COSName.DECODE_PARMS)
+                || stream.containsKey(COSName.D);
+    }
+
+    private static boolean canDecodeConcurrently(COSStream stream) {
+        if (stream.getLength() > IN_MEMORY_LIMIT) {
+            return false;
+        }
+        List<COSName> filters = filterList(stream);
+        return !filters.isEmpty() && CONCURRENT_FILTERS.containsAll(filters);
+    }
+
+    private static List<COSName> filterList(COSStream stream) {
+        COSBase filters = stream.getFilters();
+        List<COSName> names = new ArrayList<>();
+        if (filters instanceof COSName name) {
+            names.add(name);
+        } else if (filters instanceof COSArray array) {
+            for (int i = 0; i < array.size(); i++) {
+                if (array.getObject(i) instanceof COSName name) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    /** Applies the filter chain to raw bytes without touching the stream's data. */
+    private static byte[] decode(byte[] raw, List<COSName> filters, COSStream parameters)
+            throws IOException {
+        byte[] data = raw;
+        for (int i = 0; i < filters.size(); i++) {
+            Filter filter = FilterFactory.INSTANCE.getFilter(filters.get(i));
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            filter.decode(new ByteArrayInputStream(data), out, parameters, i);
+            data = out.toByteArray();
+        }
+        return data;
+    }
+
+    private int complete(PendingStream pending) throws InterruptedException {
+        byte[] decoded;
+        try {
+            decoded = pending.decoded().get();
+        } catch (ExecutionException e) {
+            log.error("Error decompressing stream", e.getCause());
+            return 0;
+        }
+        try {
+            removeFilterEntries(pending.stream());
+            try (OutputStream out = pending.stream().createRawOutputStream()) {
+                out.write(decoded);
+            }
+            pending.stream().setLong(COSName.LENGTH, decoded.length);
+            return 1;
+        } catch (IOException e) {
+            log.error("Error writing decompressed stream", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Decodes a stream into a scratch stream and copies it back, so the decoded data is never held
+     * in the heap in one piece.
+     */
+    private boolean decompressInPlace(COSStream stream) {
+        try (COSStream scratch = cosDocument.createCOSStream()) {
+            try (COSInputStream in = stream.createInputStream();
+                    OutputStream out = scratch.createRawOutputStream()) {
+                in.transferTo(out);
+            }
+            removeFilterEntries(stream);
+            try (InputStream in = scratch.createRawInputStream();
+                    OutputStream out = stream.createRawOutputStream()) {
+                in.transferTo(out);
+            }
+            stream.setLong(COSName.LENGTH, scratch.getLength());
+            return true;
+        } catch (IOException e) {
+            // Continue processing other streams even if this one fails
+            log.error("Error decompressing stream", e);
+            return false;
+        }
+    }
+
+    private static void removeFilterEntries(COSStream stream) {
+        stream.removeItem(COSName.FILTER);
+        stream.removeItem(COSName.DECODE_PARMS);
+        stream.removeItem(COSName.D);
+    }
+
+    private record PendingStream(COSStream stream, Future<byte[]> decoded) {}
+}
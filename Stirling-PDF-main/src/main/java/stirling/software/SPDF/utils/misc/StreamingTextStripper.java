@@ -0,0 +1,67 @@
+package stirling.software.SPDF.utils.misc;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Text stripper that hands the text of each page to a visitor as soon as the page is processed,
+ * instead of building one string for the whole document. Only the current page is held in memory,
+ * and the visitor can stop the extraction early.
+ */
+public class StreamingTextStripper extends PDFTextStripper {
+
+    /** Receives the text of each page in document order. */
+    @FunctionalInterface
+    public interface PageTextVisitor {
+
+        /**
+         * @param pageNumber one-based page number
+         * @param pageText text of the page
+         * @return {@code true} to continue with the next page, {@code false} to stop
+         */
+        boolean visitPage(int pageNumber, String pageText) throws IOException;
+    }
+
+    private final StringWriter pageBuffer = new StringWriter();
+
+    private PageTextVisitor visitor;
+
+    /**
+     * Extracts the text of the configured page range one page at a time.
+     *
+     * @param document the document to read
+     * @param visitor receives the text of each page
+     * @throws IOException if a page cannot be processed
+     */
+    public void stream(PDDocument document, PageTextVisitor visitor) throws IOException {
+        int configuredEndPage = getEndPage();
+        this.visitor = visitor;
+        try {
+            writeText(document, pageBuffer);
+        } finally {
+            this.visitor = null;
+            pageBuffer.getBuffer().setLength(0);
+            setEndPage(configuredEndPage);
+        }
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        pageBuffer.getBuffer().setLength(0);
+        super.startPage(page);
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        if (visitor != null && !visitor.visitPage(getCurrentPageNo(), pageBuffer.toString())) {
+            // Pages past the end page are skipped without parsing their content
+            setEndPage(getCurrentPageNo());
+        }
+        pageBuffer.getBuffer().setLength(0);
+    }
+}
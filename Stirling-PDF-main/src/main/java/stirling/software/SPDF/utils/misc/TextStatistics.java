@@ -0,0 +1,141 @@
+package stirling.software.SPDF.utils.misc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Character, word and line counts of a document, accumulated page by page through a {@link
+ * StreamingTextStripper}. Counts can be accumulated from several threads at once, so large
+ * documents can be split into page ranges that are read concurrently.
+ */
+@Slf4j
+public class TextStatistics implements StreamingTextStripper.PageTextVisitor {
+
+    // Below this page count a single pass is faster than loading one document per worker
+    private static final int MIN_PAGES_PER_WORKER = 100;
+
+    /** Opens an independent copy of the document for a worker thread. */
+    @FunctionalInterface
+    public interface DocumentOpener {
+        PDDocument open() throws IOException;
+    }
+
+    private final LongAdder characterCount = new LongAdder();
+    private final LongAdder wordCount = new LongAdder();
+    private final LongAdder lineCount = new LongAdder();
+    private final AtomicIntegerArray pageCharacterCounts;
+
+    public TextStatistics(int pageCount) {
+        this.pageCharacterCounts = new AtomicIntegerArray(pageCount);
+    }
+
+    /** Reads every page of {@code document} on the calling thread. */
+    public static TextStatistics collect(PDDocument document) throws IOException {
+        TextStatistics statistics = new TextStatistics(document.getNumberOfPages());
+        new StreamingTextStripper().stream(document, statistics);
+        return statistics;
+    }
+
+    /**
+     * Reads every page, splitting large documents into contiguous page ranges that are read
+     * concurrently. PDFBox documents are not thread safe, so each worker reads its own copy
+     * obtained from {@code opener}.
+     *
+     * @param document an already loaded copy, used when the document is too small to split
+     * @param opener opens additional copies for the workers
+     */
+    public static TextStatistics collect(PDDocument document, DocumentOpener opener)
+            throws IOException {
+        int pageCount = document.getNumberOfPages();
+        int workers =
+                Math.min(
+                        Runtime.getRuntime().availableProcessors(),
+                        pageCount / MIN_PAGES_PER_WORKER);
+        if (workers <= 1) {
+            return collect(document);
+        }
+
+        log.debug("Collecting text statistics for {} pages with {} workers", pageCount, workers);
+        TextStatistics statistics = new TextStatistics(pageCount);
+        int pagesPerWorker = (pageCount + workers - 1) / workers;
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Void>> futures = new ArrayList<>(workers);
+            for (int start = 1; start <= pageCount; start += pagesPerWorker) {
+                int firstPage = start;
+                int lastPage = Math.min(pageCount, start + pagesPerWorker - 1);
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    try (PDDocument copy = opener.open()) {
+                                        StreamingTextStripper stripper =
+                                                new StreamingTextStripper();
+                                        stripper.setStartPage(firstPage);
+                                        stripper.setEndPage(lastPage);
+                                        stripper.stream(copy, statistics);
+                                    }
+                                    return null;
+                                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while collecting text statistics", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to collect text statistics", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return statistics;
+    }
+
+    @Override
+    public boolean visitPage(int pageNumber, String pageText) {
+        characterCount.add(pageText.length());
+        pageCharacterCounts.set(pageNumber - 1, pageText.length());
+        for (String line : pageText.split("\\r\\n|\\r|\\n")) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty()) {
+                lineCount.increment();
+                wordCount.add(trimmed.split("\\s+").length);
+            }
+        }
+        return true;
+    }
+
+    public long getCharacterCount() {
+        return characterCount.sum();
+    }
+
+    public long getWordCount() {
+        return wordCount.sum();
+    }
+
+    /** Number of non-blank lines of text. */
+    public long getLineCount() {
+        return lineCount.sum();
+    }
+
+    /**
+     * @param pageNumber one-based page number
+     */
+    public int getPageCharacterCount(int pageNumber) {
+        return pageCharacterCounts.get(pageNumber - 1);
+    }
+}
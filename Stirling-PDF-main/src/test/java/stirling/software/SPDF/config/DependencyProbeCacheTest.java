@@ -0,0 +1,52 @@
+package stirling.software.SPDF.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DependencyProbeCacheTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void testResultsSurviveRestart() {
+        Path cacheFile = tempDir.resolve("configs").resolve("dependency-probes.properties");
+        DependencyProbeCache cache = new DependencyProbeCache(cacheFile);
+        cache.put("which:qpdf", "/usr/bin#/usr/bin/qpdf@1", true);
+        cache.put("which:soffice", "/usr/bin#missing", false);
+        cache.save();
+
+        assertTrue(Files.isRegularFile(cacheFile));
+        DependencyProbeCache reloaded = new DependencyProbeCache(cacheFile);
+        assertEquals(Boolean.TRUE, reloaded.get("which:qpdf", "/usr/bin#/usr/bin/qpdf@1"));
+        assertEquals(Boolean.FALSE, reloaded.get("which:soffice", "/usr/bin#missing"));
+    }
+
+    @Test
+    void testChangedFingerprintIsNotReused() {
+        DependencyProbeCache cache = new DependencyProbeCache(tempDir.resolve("probes"));
+        cache.put("which:qpdf", "/usr/bin#/usr/bin/qpdf@1", true);
+
+        assertNull(cache.get("which:qpdf", "/usr/bin#/usr/bin/qpdf@2"));
+        assertNull(cache.get("which:tesseract", "/usr/bin#missing"));
+    }
+
+    @Test
+    void testFingerprintTracksBinaryLocation() throws Exception {
+        Path binary = Files.createFile(tempDir.resolve("tool"));
+
+        String fingerprint = DependencyProbeCache.fingerprint(binary.toString());
+        assertTrue(
+                fingerprint.endsWith(
+                        binary.toAbsolutePath() + "@" + binary.toFile().lastModified()));
+        assertTrue(
+                DependencyProbeCache.fingerprint(tempDir.resolve("absent").toString())
+                        .endsWith("#missing"));
+    }
+}
@@ -0,0 +1,54 @@
+package stirling.software.SPDF.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class EndpointPathMatcherTest {
+
+    @Test
+    void testWildcardAndVariablePatternsMatchOnStaticPrefix() {
+        EndpointPathMatcher matcher =
+                new EndpointPathMatcher(
+                        List.of("/api/v1/info/{name}", "/api/v1/info/status/**", "/files/*"));
+
+        assertTrue(matcher.matches("/api/v1/info/requests"));
+        assertTrue(matcher.matches("/api/v1/info/status/extra"));
+        assertTrue(matcher.matches("/files/report.pdf"));
+        assertFalse(matcher.matches("/api/v1/general/merge-pdfs"));
+        assertFalse(matcher.matches("/file"));
+    }
+
+    @Test
+    void testNestedPrefixesMatchWhateverOrderThePatternsSortIn() {
+        // "/api/v1/a*" sorts before "/api/v1/{op}", though its prefix extends the other's
+        EndpointPathMatcher matcher =
+                new EndpointPathMatcher(List.of("/api/v1/a*", "/api/v1/{op}", "/api/v1/ab/**"));
+
+        assertTrue(matcher.matches("/api/v1/a"));
+        assertTrue(matcher.matches("/api/v1/b"));
+        assertTrue(matcher.matches("/api/v1/ab/c"));
+        assertTrue(matcher.matches("/api/v1/z"));
+        assertFalse(matcher.matches("/api/v2/b"));
+    }
+
+    @Test
+    void testLiteralPatternsMatchWholeLeadingSegments() {
+        EndpointPathMatcher matcher = new EndpointPathMatcher(List.of("/merge-pdfs", "/about"));
+
+        assertTrue(matcher.matches("/merge-pdfs"));
+        assertTrue(matcher.matches("/merge-pdfs/extra"));
+        assertFalse(matcher.matches("/merge-pdfs-other"));
+        assertFalse(matcher.matches("/account"));
+    }
+
+    @Test
+    void testRootPatternMatchesEverything() {
+        EndpointPathMatcher matcher = new EndpointPathMatcher(List.of("/", "/about"));
+
+        assertTrue(matcher.matches("/anything/at/all"));
+    }
+}
@@ -0,0 +1,127 @@
+package stirling.software.SPDF.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+
+class ProcessingConcurrencyFilterTest {
+
+    @Test
+    void testApiOperationsAreLimited() throws Exception {
+        ProcessingConcurrencyFilter filter = new ProcessingConcurrencyFilter(2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain chain =
+                (request, response) -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    active.decrementAndGet();
+                };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                requests.add(
+                        executor.submit(
+                                () -> {
+                                    MockHttpServletRequest request =
+                                            new MockHttpServletRequest(
+                                                    "POST", "/api/v1/misc/compress-pdf");
+                                    filter.doFilter(request, new MockHttpServletResponse(), chain);
+                                    return null;
+                                }));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<?> request : requests) {
+                request.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, maxActive.get());
+        assertEquals(2, filter.availablePermits());
+    }
+
+    @Test
+    void testPermitIsHandedBackWhileWaitingForAnExternalTool() throws Exception {
+        ProcessingConcurrencyFilter filter = new ProcessingConcurrencyFilter(1);
+        CountDownLatch bothWaiting = new CountDownLatch(2);
+        FilterChain chain =
+                (request, response) -> {
+                    assertEquals(0, filter.availablePermits());
+                    try (ProcessingConcurrencyFilter.PermitRelease ignored =
+                            ProcessingConcurrencyFilter.releaseHeldPermit()) {
+                        bothWaiting.countDown();
+                        assertTrue(bothWaiting.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    assertEquals(0, filter.availablePermits());
+                };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                requests.add(
+                        executor.submit(
+                                () -> {
+                                    MockHttpServletRequest request =
+                                            new MockHttpServletRequest(
+                                                    "POST", "/api/v1/misc/ocr-pdf");
+                                    filter.doFilter(request, new MockHttpServletResponse(), chain);
+                                    return null;
+                                }));
+            }
+            for (Future<?> request : requests) {
+                request.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, filter.availablePermits());
+    }
+
+    @Test
+    void testOtherRequestsPassThrough() throws Exception {
+        ProcessingConcurrencyFilter filter = new ProcessingConcurrencyFilter(1);
+        AtomicInteger calls = new AtomicInteger();
+        FilterChain chain =
+                (request, response) -> {
+                    calls.incrementAndGet();
+                    assertEquals(1, filter.availablePermits());
+                };
+
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/api/v1/general/job/123"),
+                new MockHttpServletResponse(),
+                chain);
+        filter.doFilter(
+                new MockHttpServletRequest("POST", "/login"), new MockHttpServletResponse(), chain);
+
+        assertEquals(2, calls.get());
+    }
+}
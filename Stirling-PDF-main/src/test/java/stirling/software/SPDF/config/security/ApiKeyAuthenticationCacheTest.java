@@ -0,0 +1,64 @@
+package stirling.software.SPDF.config.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import stirling.software.SPDF.config.security.ApiKeyAuthenticationCache.CachedApiKeyUser;
+import stirling.software.SPDF.model.Authority;
+import stirling.software.SPDF.model.User;
+
+public class ApiKeyAuthenticationCacheTest {
+
+    private User createUser(String username, String role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEnabled(true);
+        user.addAuthority(new Authority(role, user));
+        return user;
+    }
+
+    @Test
+    void testResolvedUserIsServedFromCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ApiKeyAuthenticationCache cache = new ApiKeyAuthenticationCache(Optional.of(registry));
+        User user = createUser("alice", "ROLE_USER");
+
+        assertTrue(cache.get("key-1").isEmpty());
+        cache.put("key-1", user);
+        Optional<CachedApiKeyUser> cached = cache.get("key-1");
+
+        assertTrue(cached.isPresent());
+        assertSame(user, cached.get().user());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), cached.get().authorities());
+        assertEquals(0.5, cache.hitRate());
+        assertEquals(
+                1.0,
+                registry.get("security.apikey.cache")
+                        .tag("result", "hit")
+                        .functionCounter()
+                        .count());
+    }
+
+    @Test
+    void testInvalidateUserDropsOnlyTheirEntries() {
+        ApiKeyAuthenticationCache cache = new ApiKeyAuthenticationCache(Optional.empty());
+        cache.put("key-1", createUser("alice", "ROLE_USER"));
+        cache.put("key-2", createUser("bob", "ROLE_ADMIN"));
+
+        cache.invalidateUser("ALICE");
+
+        assertFalse(cache.get("key-1").isPresent());
+        assertTrue(cache.get("key-2").isPresent());
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,133 @@
+package stirling.software.SPDF.config.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import stirling.software.SPDF.config.security.ratelimit.RateLimitResult;
+import stirling.software.SPDF.config.security.ratelimit.RateLimitService;
+import stirling.software.SPDF.config.security.ratelimit.RequestCostCalculator;
+import stirling.software.SPDF.config.security.ratelimit.RequestCostCalculator.RequestCost;
+import stirling.software.SPDF.model.Role;
+
+class UserBasedRateLimitingFilterTest {
+
+    private RateLimitService rateLimitService;
+
+    private RequestCostCalculator requestCostCalculator;
+
+    private UserBasedRateLimitingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitService = mock(RateLimitService.class);
+        requestCostCalculator = mock(RequestCostCalculator.class);
+        when(requestCostCalculator.isEnabled()).thenReturn(true);
+        when(requestCostCalculator.calculate(any()))
+                .thenReturn(new RequestCost(RequestCostCalculator.OCR_BUDGET, 1));
+        filter = new UserBasedRateLimitingFilter(rateLimitService, requestCostCalculator, true);
+
+        Role role = Role.WEB_ONLY_USER;
+        User user = new User("viewer", "", List.of(new SimpleGrantedAuthority(role.getRoleId())));
+        SecurityContextHolder.getContext()
+                .setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testHeavyApiCallStillNeedsTheApiQuota() throws Exception {
+        when(rateLimitService.tryConsume(eq("api"), anyString(), eq(0L), any(), anyLong()))
+                .thenReturn(new RateLimitResult(false, 0, 60));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/misc/ocr-pdf");
+        request.addHeader("X-API-KEY", "key");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        verify(rateLimitService, never())
+                .tryConsume(eq("heavy-ocr"), anyString(), anyLong(), any(), anyLong());
+    }
+
+    @Test
+    void testHeavyWebCallIsChargedOnceToTheRegularQuota() throws Exception {
+        when(requestCostCalculator.calculate(any()))
+                .thenReturn(new RequestCost(RequestCostCalculator.OCR_BUDGET, 3));
+        when(rateLimitService.tryConsume(eq("web"), anyString(), anyLong(), any(), anyLong()))
+                .thenReturn(new RateLimitResult(true, 10, 0));
+        when(rateLimitService.tryConsume(eq("heavy-ocr"), anyString(), anyLong(), any(), anyLong()))
+                .thenReturn(new RateLimitResult(true, 2, 0));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/misc/ocr-pdf");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(request, chain.getRequest());
+        assertEquals("2", response.getHeader("X-Rate-Limit-Remaining"));
+        verify(rateLimitService).tryConsume(eq("web"), eq("viewer"), anyLong(), any(), eq(1L));
+        verify(rateLimitService)
+                .tryConsume(eq("heavy-ocr"), eq("viewer"), anyLong(), any(), eq(3L));
+    }
+
+    @Test
+    void testRefusedHeavyCallIsRefunded() throws Exception {
+        when(requestCostCalculator.calculate(any()))
+                .thenReturn(new RequestCost(RequestCostCalculator.OCR_BUDGET, 3));
+        when(rateLimitService.tryConsume(eq("web"), anyString(), anyLong(), any(), anyLong()))
+                .thenReturn(new RateLimitResult(true, 10, 0));
+        when(rateLimitService.tryConsume(eq("heavy-ocr"), anyString(), anyLong(), any(), anyLong()))
+                .thenReturn(new RateLimitResult(false, 0, 60));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/misc/ocr-pdf");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("X-Rate-Limit-Retry-After-Seconds"));
+        verify(rateLimitService).refund(eq("web"), eq("viewer"), any(), eq(1L));
+        verify(rateLimitService).refund(eq("heavy-ocr"), eq("viewer"), any(), eq(3L));
+    }
+
+    @Test
+    void testCallCostingMoreThanTheWholeBudgetIsTooLarge() throws Exception {
+        long units = Role.WEB_ONLY_USER.getHeavyUnitsPerDay() + 1;
+        when(requestCostCalculator.calculate(any()))
+                .thenReturn(new RequestCost(RequestCostCalculator.OCR_BUDGET, units));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/misc/ocr-pdf");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(413, response.getStatus());
+        assertNull(response.getHeader("X-Rate-Limit-Retry-After-Seconds"));
+        verifyNoInteractions(rateLimitService);
+    }
+}
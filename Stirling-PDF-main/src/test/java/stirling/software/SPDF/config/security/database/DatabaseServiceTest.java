@@ -0,0 +1,115 @@
+package stirling.software.SPDF.config.security.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.FileInfo;
+
+class DatabaseServiceTest {
+
+    @TempDir Path backupDir;
+
+    private DriverManagerDataSource dataSource;
+
+    private DatabaseService databaseService;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource =
+                new DriverManagerDataSource(
+                        "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        execute("CREATE TABLE users (id INT PRIMARY KEY, name VARCHAR(50))");
+        execute("INSERT INTO users VALUES (1, 'alice')");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSystem().setDatasource(new ApplicationProperties.Datasource());
+        databaseService = new DatabaseService(applicationProperties, dataSource, backupDir);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        databaseService.shutdown();
+        execute("SHUTDOWN");
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+                Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private String userName() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT name FROM users WHERE id = 1")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    @Test
+    void testBackupIsCompressedListedAndRestorable() throws Exception {
+        assertFalse(databaseService.hasBackup());
+
+        FileInfo backup = databaseService.requestBackup().get();
+
+        assertNotNull(backup);
+        assertTrue(backup.getFileName().endsWith(DatabaseService.COMPRESSED_SQL_SUFFIX));
+        try (InputStream in = Files.newInputStream(backup.getFilePathAsPath())) {
+            byte[] magic = in.readNBytes(2);
+            assertEquals(0x1f, magic[0] & 0xff);
+            assertEquals(0x8b, magic[1] & 0xff);
+        }
+        assertEquals(List.of(backup.getFileName()), fileNames());
+        assertFalse(databaseService.getBackupProgress().running());
+
+        execute("UPDATE users SET name = 'bob' WHERE id = 1");
+        assertTrue(databaseService.importDatabaseFromUI(backup.getFileName()));
+        assertEquals("alice", userName());
+
+        assertTrue(databaseService.deleteBackupFile(backup.getFileName()));
+        assertTrue(databaseService.getBackupList().isEmpty());
+    }
+
+    @Test
+    void testOldestAutomaticBackupsAreDeleted() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            Path old = Files.writeString(backupDir.resolve("backup_20000101000" + i + ".sql"), "");
+            Files.setLastModifiedTime(old, FileTime.fromMillis(1_000_000L * (i + 1)));
+        }
+        Files.writeString(backupDir.resolve("backup_user_200001010000.sql"), "");
+
+        FileInfo backup = databaseService.requestBackup().get();
+
+        List<String> names = fileNames();
+        assertEquals(7, names.size());
+        assertTrue(names.contains(backup.getFileName()));
+        assertTrue(names.contains("backup_user_200001010000.sql"));
+        assertFalse(names.contains("backup_200001010000.sql"));
+        assertFalse(names.contains("backup_200001010001.sql"));
+        assertFalse(Files.exists(backupDir.resolve("backup_200001010000.sql")));
+    }
+
+    private List<String> fileNames() {
+        return databaseService.getBackupList().stream().map(FileInfo::getFileName).toList();
+    }
+}
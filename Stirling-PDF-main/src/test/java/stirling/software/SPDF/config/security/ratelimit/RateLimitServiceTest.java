@@ -0,0 +1,106 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class RateLimitServiceTest {
+
+    @Test
+    void testRejectsRequestsOverTheLimit() {
+        RateLimitService service = new RateLimitService(new InMemoryRateLimitStore(100));
+
+        assertEquals(1, service.tryConsume("api", "alice", 2, Duration.ofDays(1)).remaining());
+        assertEquals(0, service.tryConsume("api", "alice", 2, Duration.ofDays(1)).remaining());
+        RateLimitResult rejected = service.tryConsume("api", "alice", 2, Duration.ofDays(1));
+
+        assertFalse(rejected.consumed());
+        assertTrue(rejected.retryAfterSeconds() > 0);
+        assertTrue(rejected.retryAfterSeconds() <= Duration.ofDays(1).toSeconds());
+        // Other scopes and clients have their own quota
+        assertTrue(service.tryConsume("web", "alice", 2, Duration.ofDays(1)).consumed());
+        assertTrue(service.tryConsume("api", "bob", 2, Duration.ofDays(1)).consumed());
+    }
+
+    @Test
+    void testRefundedUnitsCanBeUsedAgain() {
+        RateLimitService service = new RateLimitService(new InMemoryRateLimitStore(100));
+
+        assertTrue(service.tryConsume("heavy-ocr", "alice", 5, Duration.ofDays(1), 4).consumed());
+        assertFalse(service.tryConsume("heavy-ocr", "alice", 5, Duration.ofDays(1), 4).consumed());
+        service.refund("heavy-ocr", "alice", Duration.ofDays(1), 4);
+
+        assertEquals(
+                0, service.tryConsume("heavy-ocr", "alice", 5, Duration.ofDays(1), 1).remaining());
+    }
+
+    @Test
+    void testInMemoryStoreStaysBounded() {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(10);
+        long windowEnd = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 100; i++) {
+            store.incrementAndGet("client-" + i, windowEnd, 1);
+        }
+        assertEquals(10, store.size());
+        // Clients already counted keep their count, new ones are refused
+        assertEquals(2, store.incrementAndGet("client-0", windowEnd, 1));
+        assertEquals(Long.MAX_VALUE, store.incrementAndGet("client-99", windowEnd, 1));
+
+        // Expired counters make room again
+        InMemoryRateLimitStore expiring = new InMemoryRateLimitStore(1);
+        expiring.incrementAndGet("expired", System.currentTimeMillis() - 1, 1);
+        assertEquals(1, expiring.incrementAndGet("new", windowEnd, 1));
+        assertEquals(1, expiring.size());
+    }
+
+    @Test
+    void testFullStoreRejectsNewClients() {
+        RateLimitService service = new RateLimitService(new InMemoryRateLimitStore(1));
+
+        assertTrue(service.tryConsume("api", "alice", 5, Duration.ofDays(1)).consumed());
+        assertFalse(service.tryConsume("api", "bob", 5, Duration.ofDays(1)).consumed());
+        assertTrue(service.tryConsume("api", "alice", 5, Duration.ofDays(1)).consumed());
+    }
+
+    @Test
+    void testWindowsCanStartAtAnOffset() {
+        RateLimitService service = new RateLimitService(new InMemoryRateLimitStore(100));
+
+        service.tryConsume("ip", "client", 0, Duration.ofDays(7), Duration.ofDays(4), 1);
+        RateLimitResult rejected =
+                service.tryConsume("ip", "client", 0, Duration.ofDays(7), Duration.ofDays(4), 1);
+
+        ZonedDateTime nextMonday =
+                ZonedDateTime.now(ZoneOffset.UTC)
+                        .truncatedTo(ChronoUnit.DAYS)
+                        .with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        long untilMonday = Duration.between(Instant.now(), nextMonday.toInstant()).toSeconds();
+        assertTrue(Math.abs(rejected.retryAfterSeconds() - untilMonday) <= 2);
+    }
+
+    @Test
+    void testDatabaseStoreHandlesConcurrentInsert() {
+        RateLimitCounterRepository repository = mock(RateLimitCounterRepository.class);
+        when(repository.increment("bucket", 1)).thenReturn(0).thenReturn(1);
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(repository)
+                .insert("bucket", 42L, 1L);
+        when(repository.findRequestCount("bucket")).thenReturn(2L);
+
+        assertEquals(2, new DatabaseRateLimitStore(repository).incrementAndGet("bucket", 42L, 1));
+    }
+}
@@ -0,0 +1,66 @@
+package stirling.software.SPDF.config.security.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import stirling.software.SPDF.config.EndpointConfiguration;
+import stirling.software.SPDF.config.security.ratelimit.RequestCostCalculator.RequestCost;
+import stirling.software.SPDF.model.ApplicationProperties;
+
+public class RequestCostCalculatorTest {
+
+    private RequestCostCalculator calculator;
+
+    @BeforeEach
+    void setUp() {
+        EndpointConfiguration endpointConfiguration = mock(EndpointConfiguration.class);
+        when(endpointConfiguration.getEndpointsForGroup("LibreOffice"))
+                .thenReturn(Set.of("file-to-pdf", "pdf-to-pdfa"));
+        when(endpointConfiguration.getEndpointsForGroup("tesseract")).thenReturn(Set.of("ocr-pdf"));
+        calculator = new RequestCostCalculator(new ApplicationProperties(), endpointConfiguration);
+    }
+
+    private MockHttpServletRequest request(String uri, int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContent(new byte[contentLength]);
+        return request;
+    }
+
+    @Test
+    void testLightRequestCostsOneUnit() {
+        assertEquals(
+                new RequestCost(null, 1),
+                calculator.calculate(request("/api/v1/general/rotate-pdf", 10 * 1024)));
+    }
+
+    @Test
+    void testHeavyRequestsAreChargedToTheirGroupBySize() {
+        int twentyFiveMegabytes = 25 * 1024 * 1024;
+        assertEquals(
+                new RequestCost(RequestCostCalculator.OCR_BUDGET, 3),
+                calculator.calculate(request("/api/v1/misc/ocr-pdf", twentyFiveMegabytes)));
+        assertEquals(
+                new RequestCost(RequestCostCalculator.LIBRE_OFFICE_BUDGET, 1),
+                calculator.calculate(request("/api/v1/convert/file/pdf", 0)));
+        assertEquals(
+                new RequestCost(RequestCostCalculator.COMPRESSION_BUDGET, 1),
+                calculator.calculate(request("/api/v1/misc/compress-pdf", 0)));
+    }
+
+    @Test
+    void testBatchRequestsCostTheSameAsTheirSingleFileEndpoint() {
+        assertEquals(
+                new RequestCost(RequestCostCalculator.LIBRE_OFFICE_BUDGET, 1),
+                calculator.calculate(request("/api/v1/convert/pdf/pdfa/batch", 0)));
+        assertEquals(
+                "cert-sign",
+                RequestCostCalculator.endpointName("/api/v1/security/cert-sign/batch"));
+    }
+}
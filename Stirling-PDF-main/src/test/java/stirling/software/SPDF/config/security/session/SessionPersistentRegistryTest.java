@@ -0,0 +1,61 @@
+package stirling.software.SPDF.config.security.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionPersistentRegistryTest {
+
+    @Mock private SessionRepository sessionRepository;
+
+    @InjectMocks private SessionPersistentRegistry sessionPersistentRegistry;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefreshesAreCoalescedIntoOneUpdate() {
+        when(sessionRepository.updateLastRequest(any(Date.class), anyCollection())).thenReturn(2);
+
+        sessionPersistentRegistry.refreshLastRequest("a");
+        sessionPersistentRegistry.refreshLastRequest("b");
+        sessionPersistentRegistry.refreshLastRequest("a");
+        verify(sessionRepository, never()).findById(any());
+
+        assertEquals(2, sessionPersistentRegistry.flushLastRequests());
+        ArgumentCaptor<Collection<String>> sessionIds = ArgumentCaptor.forClass(Collection.class);
+        verify(sessionRepository, times(1))
+                .updateLastRequest(any(Date.class), sessionIds.capture());
+        assertEquals(Set.of("a", "b"), Set.copyOf(sessionIds.getValue()));
+
+        // Nothing left to write
+        assertEquals(0, sessionPersistentRegistry.flushLastRequests());
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        when(sessionRepository.updateLastRequest(any(Date.class), anyCollection()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(1);
+
+        sessionPersistentRegistry.refreshLastRequest("a");
+        assertThrows(IllegalStateException.class, sessionPersistentRegistry::flushLastRequests);
+
+        assertEquals(1, sessionPersistentRegistry.flushLastRequests());
+    }
+}
@@ -0,0 +1,80 @@
+package stirling.software.SPDF.controller.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import stirling.software.SPDF.model.api.AnalysisRequest;
+import stirling.software.SPDF.model.api.AnalysisSection;
+import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+
+@ExtendWith(MockitoExtension.class)
+public class AnalysisControllerTest {
+
+    @Mock private CustomPDFDocumentFactory pdfDocumentFactory;
+
+    @InjectMocks private AnalysisController analysisController;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAnalyzeLoadsOnceAndComputesOnlyRequestedSections() throws IOException {
+        MockMultipartFile file =
+                new MockMultipartFile("file", "test.pdf", "application/pdf", new byte[] {1, 2, 3});
+        AnalysisRequest request = new AnalysisRequest();
+        request.setFileInput(file);
+        request.setSections(List.of(AnalysisSection.PAGE_COUNT, AnalysisSection.TEXT_STATISTICS));
+
+        PDDocument document = new PDDocument();
+        document.addPage(new PDPage());
+        document.addPage(new PDPage());
+        when(pdfDocumentFactory.load(file, true)).thenReturn(document);
+
+        Map<String, Object> response = analysisController.analyze(request);
+
+        verify(pdfDocumentFactory, times(1)).load(file, true);
+        Map<String, Object> sections = (Map<String, Object>) response.get("sections");
+        assertEquals(2, sections.size());
+        assertEquals(Map.of("pageCount", 2), sections.get("pageCount"));
+        assertEquals(0L, ((Map<String, Object>) sections.get("textStatistics")).get("wordCount"));
+        Map<String, Double> timings = (Map<String, Double>) response.get("timingsMs");
+        assertTrue(timings.containsKey("pageCount"));
+        assertTrue(timings.containsKey("textStatistics"));
+        assertFalse(response.containsKey("errors"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAnalyzeSkipsExpensiveSectionsByDefault() throws IOException {
+        MockMultipartFile file =
+                new MockMultipartFile("file", "test.pdf", "application/pdf", new byte[] {1, 2, 3});
+        AnalysisRequest request = new AnalysisRequest();
+        request.setFileInput(file);
+
+        PDDocument document = new PDDocument();
+        document.addPage(new PDPage());
+        when(pdfDocumentFactory.load(file, true)).thenReturn(document);
+
+        Map<String, Object> sections =
+                (Map<String, Object>) analysisController.analyze(request).get("sections");
+
+        assertEquals(AnalysisSection.defaults().size(), sections.size());
+        assertFalse(sections.containsKey("textStatistics"));
+        assertFalse(sections.containsKey("pageImages"));
+    }
+}
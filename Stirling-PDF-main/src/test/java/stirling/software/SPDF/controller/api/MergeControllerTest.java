@@ -0,0 +1,77 @@
+package stirling.software.SPDF.controller.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import stirling.software.SPDF.model.api.general.MergePdfsRequest;
+import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.PdfMetadataService;
+
+@ExtendWith(MockitoExtension.class)
+public class MergeControllerTest {
+
+    @Mock private CustomPDFDocumentFactory pdfDocumentFactory;
+
+    @Mock private PdfMetadataService pdfMetadataService;
+
+    @InjectMocks private MergeController mergeController;
+
+    private MockMultipartFile createPdf(String name, String title, int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.getDocumentInformation().setTitle(title);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile("fileInput", name, "application/pdf", baos.toByteArray());
+        }
+    }
+
+    @Test
+    public void testMergeByTitleLoadsEachFileOnce() throws IOException {
+        MockMultipartFile first = createPdf("first.pdf", "B", 1);
+        MockMultipartFile second = createPdf("second.pdf", "A", 2);
+        when(pdfDocumentFactory.load(first, true)).thenReturn(Loader.loadPDF(first.getBytes()));
+        when(pdfDocumentFactory.load(second, true)).thenReturn(Loader.loadPDF(second.getBytes()));
+        when(pdfDocumentFactory.getStreamCacheFunction(anyLong()))
+                .thenReturn(IOUtils.createMemoryOnlyStreamCache());
+
+        MergePdfsRequest request = new MergePdfsRequest();
+        request.setFileInput(new MockMultipartFile[] {first, second});
+        request.setSortType("byPDFTitle");
+
+        ResponseEntity<StreamingResponseBody> response = mergeController.mergePdfs(request);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        verify(pdfDocumentFactory, times(1)).load(first, true);
+        verify(pdfDocumentFactory, times(1)).load(second, true);
+        // The file titled "A" is sorted first and names the result
+        assertEquals(
+                "second_merged_unsigned.pdf",
+                response.getHeaders().getContentDisposition().getFilename());
+        try (PDDocument merged = Loader.loadPDF(out.toByteArray())) {
+            assertEquals(3, merged.getNumberOfPages());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package stirling.software.SPDF.controller.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import stirling.software.SPDF.model.api.SplitPdfByChaptersRequest;
+import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+import stirling.software.SPDF.service.PdfMetadataService;
+
+@ExtendWith(MockitoExtension.class)
+public class SplitPdfByChaptersControllerTest {
+
+    @Mock private PdfMetadataService pdfMetadataService;
+
+    @Mock private CustomPDFDocumentFactory pdfDocumentFactory;
+
+    @InjectMocks private SplitPdfByChaptersController splitPdfByChaptersController;
+
+    private byte[] createBook(int chapters, int pagesPerChapter) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDDocumentOutline outline = new PDDocumentOutline();
+            for (int chapter = 0; chapter < chapters; chapter++) {
+                PDPage firstPage = null;
+                for (int i = 0; i < pagesPerChapter; i++) {
+                    PDPage page = new PDPage();
+                    document.addPage(page);
+                    if (firstPage == null) {
+                        firstPage = page;
+                    }
+                }
+                PDOutlineItem item = new PDOutlineItem();
+                item.setTitle("Chapter " + (chapter + 1));
+                item.setDestination(firstPage);
+                outline.addLast(item);
+            }
+            document.getDocumentCatalog().setDocumentOutline(outline);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    @Test
+    public void testChaptersAreWrittenInBookmarkOrder() throws Exception {
+        byte[] book = createBook(5, 3);
+        MockMultipartFile file = new MockMultipartFile("file", "book.pdf", "application/pdf", book);
+        SplitPdfByChaptersRequest request = new SplitPdfByChaptersRequest();
+        request.setFileInput(file);
+        request.setIncludeMetadata(false);
+        request.setAllowDuplicates(true);
+        request.setBookmarkLevel(0);
+
+        when(pdfDocumentFactory.load(file)).thenReturn(Loader.loadPDF(book));
+        // Workers load their own copies when more than one core is available
+        lenient()
+                .when(pdfDocumentFactory.load(any(MockMultipartFile.class), any(Boolean.class)))
+                .thenAnswer(invocation -> Loader.loadPDF(book));
+
+        ResponseEntity<StreamingResponseBody> response =
+                splitPdfByChaptersController.splitPdf(request);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+
+        List<String> names = new ArrayList<>();
+        List<Integer> pageCounts = new ArrayList<>();
+        try (ZipInputStream zip =
+                new ZipInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                try (PDDocument chapter = Loader.loadPDF(zip.readAllBytes())) {
+                    pageCounts.add(chapter.getNumberOfPages());
+                }
+            }
+        }
+        assertEquals(
+                List.of(
+                        "0 Chapter 1.pdf",
+                        "1 Chapter 2.pdf",
+                        "2 Chapter 3.pdf",
+                        "3 Chapter 4.pdf",
+                        "4 Chapter 5.pdf"),
+                names);
+        assertEquals(List.of(3, 3, 3, 3, 3), pageCounts);
+    }
+}
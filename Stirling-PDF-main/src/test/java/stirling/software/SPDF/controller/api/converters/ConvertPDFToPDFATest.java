@@ -0,0 +1,131 @@
+package stirling.software.SPDF.controller.api.converters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import stirling.software.SPDF.model.api.converters.BatchPdfToPdfARequest;
+import stirling.software.SPDF.service.LibreOfficeConverterPool;
+import stirling.software.SPDF.service.job.AsyncJobService;
+
+public class ConvertPDFToPDFATest {
+
+    private static MockMultipartFile pdf(String name, String content) {
+        return new MockMultipartFile(
+                "fileInput", name, "application/pdf", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> unzip(ResponseEntity<StreamingResponseBody> response)
+            throws Exception {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        response.getBody().writeTo(zip);
+        Map<String, String> entries = new TreeMap<>();
+        try (ZipInputStream zipIn =
+                new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entries.put(
+                        entry.getName(), new String(zipIn.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void testBatchStreamsEveryConvertedFile() throws Exception {
+        LibreOfficeConverterPool pool = mock(LibreOfficeConverterPool.class);
+        when(pool.size()).thenReturn(2);
+        // Stands in for LibreOffice, copying every input into the output directory
+        doAnswer(
+                        invocation -> {
+                            Path outputDir = invocation.getArgument(2);
+                            for (Path input : invocation.<List<Path>>getArgument(0)) {
+                                Files.copy(input, outputDir.resolve(input.getFileName()));
+                            }
+                            return null;
+                        })
+                .when(pool)
+                .convert(anyList(), anyString(), any(Path.class));
+        ConvertPDFToPDFA controller = new ConvertPDFToPDFA(mock(AsyncJobService.class), pool);
+
+        MultipartFile[] files = new MultipartFile[5];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = pdf((i == 4 ? "doc0" : "doc" + i) + ".pdf", "content" + i);
+        }
+        BatchPdfToPdfARequest request = new BatchPdfToPdfARequest();
+        request.setFileInput(files);
+        request.setOutputFormat("pdfa");
+
+        Map<String, String> entries = unzip(controller.pdfsToPdfA(request));
+        assertEquals(
+                Map.of(
+                        "doc0_PDFA.pdf", "content0",
+                        "doc1_PDFA.pdf", "content1",
+                        "doc2_PDFA.pdf", "content2",
+                        "doc3_PDFA.pdf", "content3",
+                        "doc0_PDFA_2.pdf", "content4"),
+                entries);
+    }
+
+    @Test
+    void testBatchListsFailedFilesInsteadOfAborting() throws Exception {
+        LibreOfficeConverterPool pool = mock(LibreOfficeConverterPool.class);
+        when(pool.size()).thenReturn(2);
+        // The second run fails and the first skips a file it cannot open
+        doAnswer(
+                        invocation -> {
+                            Path outputDir = invocation.getArgument(2);
+                            for (Path input : invocation.<List<Path>>getArgument(0)) {
+                                if (input.getFileName().toString().equals("3.pdf")) {
+                                    throw new IOException("LibreOffice crashed");
+                                }
+                                if (!input.getFileName().toString().equals("1.pdf")) {
+                                    Files.copy(input, outputDir.resolve(input.getFileName()));
+                                }
+                            }
+                            return null;
+                        })
+                .when(pool)
+                .convert(anyList(), anyString(), any(Path.class));
+        ConvertPDFToPDFA controller = new ConvertPDFToPDFA(mock(AsyncJobService.class), pool);
+
+        MultipartFile[] files = new MultipartFile[5];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = pdf("doc" + i + ".pdf", "content" + i);
+        }
+        BatchPdfToPdfARequest request = new BatchPdfToPdfARequest();
+        request.setFileInput(files);
+
+        Map<String, String> entries = unzip(controller.pdfsToPdfA(request));
+
+        assertEquals(Set.of("doc0_PDFA.pdf", "doc2_PDFA.pdf", "errors.txt"), entries.keySet());
+        String errors = entries.get("errors.txt");
+        assertTrue(errors.contains("doc1_PDFA.pdf: PDF/A conversion produced no output"), errors);
+        assertTrue(errors.contains("doc3_PDFA.pdf: PDF/A conversion failed"), errors);
+        assertTrue(errors.contains("doc4_PDFA.pdf: PDF/A conversion failed"), errors);
+    }
+}
@@ -0,0 +1,212 @@
+package stirling.software.SPDF.controller.api.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import stirling.software.SPDF.controller.api.pipeline.UserServiceInterface;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.model.api.security.BatchSignPDFWithCertRequest;
+import stirling.software.SPDF.service.CustomPDFDocumentFactory;
+
+public class CertSignControllerTest {
+
+    private static final String PASSWORD = "secret";
+
+    @TempDir Path tempDir;
+
+    private final CustomPDFDocumentFactory pdfDocumentFactory =
+            mock(CustomPDFDocumentFactory.class);
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final UserServiceInterface userService = mock(UserServiceInterface.class);
+
+    private CertSignController controller;
+
+    private byte[] p12;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(pdfDocumentFactory.load(any(MultipartFile.class)))
+                .thenAnswer(
+                        invocation ->
+                                Loader.loadPDF(
+                                        invocation.getArgument(0, MultipartFile.class).getBytes()));
+        controller = new CertSignController(pdfDocumentFactory, applicationProperties, userService);
+        p12 = createKeystore();
+    }
+
+    private static byte[] createKeystore() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys = generator.generateKeyPair();
+        long now = System.currentTimeMillis();
+        X509Certificate cert =
+                new JcaX509CertificateConverter()
+                        .getCertificate(
+                                new JcaX509v3CertificateBuilder(
+                                                new X500Name("CN=Signer"),
+                                                BigInteger.valueOf(now),
+                                                new Date(now - TimeUnit.DAYS.toMillis(1)),
+                                                new Date(now + TimeUnit.DAYS.toMillis(30)),
+                                                new X500Name("CN=Signer"),
+                                                keys.getPublic())
+                                        .build(
+                                                new JcaContentSignerBuilder("SHA256withRSA")
+                                                        .build(keys.getPrivate())));
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        ks.load(null, null);
+        ks.setKeyEntry(
+                "signer", keys.getPrivate(), PASSWORD.toCharArray(), new Certificate[] {cert});
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (OutputStream out = baos) {
+            ks.store(out, PASSWORD.toCharArray());
+        }
+        return baos.toByteArray();
+    }
+
+    private MockMultipartFile createPdf(String name) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile("fileInput", name, "application/pdf", baos.toByteArray());
+        }
+    }
+
+    private List<String> signedEntries(ResponseEntity<StreamingResponseBody> response)
+            throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip =
+                new ZipInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                try (PDDocument signed = Loader.loadPDF(zip.readAllBytes())) {
+                    assertEquals(1, signed.getSignatureDictionaries().size());
+                }
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    void testBatchSignsEveryFileWithUploadedKeystore() throws Exception {
+        BatchSignPDFWithCertRequest request = new BatchSignPDFWithCertRequest();
+        request.setFileInput(
+                new MultipartFile[] {createPdf("a.pdf"), createPdf("b.pdf"), createPdf("a.pdf")});
+        request.setCertType("PKCS12");
+        request.setP12File(new MockMultipartFile("p12File", "signer.p12", null, p12));
+        request.setPassword(PASSWORD);
+
+        ResponseEntity<StreamingResponseBody> response = controller.signPDFsWithCert(request);
+
+        assertEquals(
+                List.of("a_signed.pdf", "b_signed.pdf", "a_signed_2.pdf"), signedEntries(response));
+    }
+
+    @Test
+    void testBatchSignsWithServerKeystore() throws Exception {
+        BatchSignPDFWithCertRequest request = new BatchSignPDFWithCertRequest();
+        request.setFileInput(new MultipartFile[] {createPdf("a.pdf")});
+        request.setUseServerCertificate(true);
+        applicationProperties.getSecurity().setEnableLogin(true);
+        when(userService.getCurrentUsername()).thenReturn("signer");
+        when(userService.isCurrentUserAdmin()).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> controller.signPDFsWithCert(request));
+
+        Path keystore = tempDir.resolve("signer.p12");
+        Files.write(keystore, p12);
+        ApplicationProperties.SigningKeystore config =
+                applicationProperties.getSystem().getSigningKeystore();
+        config.setFile(keystore.toString());
+        config.setPassword(PASSWORD);
+
+        assertEquals(List.of("a_signed.pdf"), signedEntries(controller.signPDFsWithCert(request)));
+        // The second batch reuses the identity loaded by the first
+        assertEquals(List.of("a_signed.pdf"), signedEntries(controller.signPDFsWithCert(request)));
+    }
+
+    @Test
+    void testServerKeystoreIsLimitedToAdminsAndAllowedUsers() throws Exception {
+        Path keystore = tempDir.resolve("signer.p12");
+        Files.write(keystore, p12);
+        ApplicationProperties.SigningKeystore config =
+                applicationProperties.getSystem().getSigningKeystore();
+        config.setFile(keystore.toString());
+        config.setPassword(PASSWORD);
+        BatchSignPDFWithCertRequest request = new BatchSignPDFWithCertRequest();
+        request.setFileInput(new MultipartFile[] {createPdf("a.pdf")});
+        request.setUseServerCertificate(true);
+        when(userService.getCurrentUsername()).thenReturn("signer");
+
+        // Without login every caller is anonymous
+        applicationProperties.getSecurity().setEnableLogin(false);
+        when(userService.isCurrentUserAdmin()).thenReturn(true);
+        assertForbidden(request);
+
+        applicationProperties.getSecurity().setEnableLogin(true);
+        when(userService.isCurrentUserAdmin()).thenReturn(false);
+        assertForbidden(request);
+
+        config.setAllowedUsers(List.of("signer"));
+        assertEquals(List.of("a_signed.pdf"), signedEntries(controller.signPDFsWithCert(request)));
+
+        CertSignController withoutSecurity =
+                new CertSignController(pdfDocumentFactory, applicationProperties, null);
+        ResponseStatusException e =
+                assertThrows(
+                        ResponseStatusException.class,
+                        () -> withoutSecurity.signPDFsWithCert(request));
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+    }
+
+    private void assertForbidden(BatchSignPDFWithCertRequest request) {
+        ResponseStatusException e =
+                assertThrows(
+                        ResponseStatusException.class, () -> controller.signPDFsWithCert(request));
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+    }
+}
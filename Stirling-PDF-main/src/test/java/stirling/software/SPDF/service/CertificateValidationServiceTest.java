@@ -0,0 +1,87 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CertificateValidationServiceTest {
+
+    private final CertificateValidationService service = new CertificateValidationService();
+
+    private KeyPair caKeys;
+    private X509Certificate ca;
+
+    private static KeyPair generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static X509Certificate issue(
+            String subject, KeyPair subjectKeys, String issuer, PrivateKey issuerKey, boolean ca)
+            throws Exception {
+        long now = System.currentTimeMillis();
+        JcaX509v3CertificateBuilder builder =
+                new JcaX509v3CertificateBuilder(
+                        new X500Name(issuer),
+                        BigInteger.valueOf(now),
+                        new Date(now - TimeUnit.DAYS.toMillis(1)),
+                        new Date(now + TimeUnit.DAYS.toMillis(30)),
+                        new X500Name(subject),
+                        subjectKeys.getPublic());
+        builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(ca));
+        return new JcaX509CertificateConverter()
+                .getCertificate(
+                        builder.build(
+                                new JcaContentSignerBuilder("SHA256withRSA").build(issuerKey)));
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        caKeys = generateKeys();
+        ca = issue("CN=Test Root", caKeys, "CN=Test Root", caKeys.getPrivate(), true);
+        service.setTrustedCertificates(List.of(ca));
+    }
+
+    @Test
+    void testChainValidatesAgainstTrustedIssuer() throws Exception {
+        X509Certificate signer =
+                issue("CN=Signer", generateKeys(), "CN=Test Root", caKeys.getPrivate(), false);
+
+        assertTrue(service.validateCertificateChain(signer));
+        // Answered from the cache the second time
+        assertTrue(service.validateCertificateChain(signer));
+        assertTrue(service.validateTrustStore(ca));
+        assertFalse(service.validateTrustStore(signer));
+    }
+
+    @Test
+    void testChainFailsForUnknownOrImpersonatedIssuer() throws Exception {
+        KeyPair otherKeys = generateKeys();
+        X509Certificate unknownIssuer =
+                issue("CN=Signer", generateKeys(), "CN=Other Root", otherKeys.getPrivate(), false);
+        // Names the trusted root as issuer but is signed with another key
+        X509Certificate impersonated =
+                issue("CN=Signer", generateKeys(), "CN=Test Root", otherKeys.getPrivate(), false);
+
+        assertFalse(service.validateCertificateChain(unknownIssuer));
+        assertFalse(service.validateCertificateChain(impersonated));
+    }
+}
@@ -0,0 +1,101 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentPageProcessorTest {
+
+    // Page i is i + 1 points wide, so results show which page was processed
+    private static PDDocument document(int pages) {
+        PDDocument document = new PDDocument();
+        for (int i = 0; i < pages; i++) {
+            document.addPage(new PDPage(new PDRectangle(i + 1, 100)));
+        }
+        return document;
+    }
+
+    @Test
+    void testResultsArriveInPageOrderFromWorkerCopies() throws Exception {
+        try (PDDocument document = document(40)) {
+            Set<PDDocument> copies = ConcurrentHashMap.newKeySet();
+            List<Integer> widths = new ArrayList<>();
+
+            ConcurrentPageProcessor.processPages(
+                    document,
+                    3,
+                    copy -> {
+                        copies.add(copy);
+                        return copy;
+                    },
+                    (copy, pageIndex) -> (int) copy.getPage(pageIndex).getMediaBox().getWidth(),
+                    (pageIndex, width) -> {
+                        assertEquals(widths.size(), pageIndex);
+                        widths.add(width);
+                    });
+
+            assertEquals(3, copies.size());
+            for (PDDocument copy : copies) {
+                assertNotSame(document, copy);
+            }
+            for (int i = 0; i < 40; i++) {
+                assertEquals(i + 1, widths.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testPartsOtherThanPagesArriveInOrder() throws Exception {
+        try (PDDocument document = document(10)) {
+            List<Integer> pageCounts = new ArrayList<>();
+
+            // Part i covers the first i + 1 pages, as chapters cover page ranges
+            ConcurrentPageProcessor.process(
+                    document,
+                    4,
+                    2,
+                    copy -> copy,
+                    (copy, index) -> Math.min(index + 1, copy.getNumberOfPages()),
+                    (index, pages) -> {
+                        assertEquals(pageCounts.size(), index);
+                        pageCounts.add(pages);
+                    });
+
+            assertEquals(List.of(1, 2, 3, 4), pageCounts);
+        }
+    }
+
+    @Test
+    void testPageFailureIsRethrown() throws Exception {
+        try (PDDocument document = document(10)) {
+            IOException failure =
+                    assertThrows(
+                            IOException.class,
+                            () ->
+                                    ConcurrentPageProcessor.processPages(
+                                            document,
+                                            2,
+                                            copy -> copy,
+                                            (copy, pageIndex) -> {
+                                                if (pageIndex == 7) {
+                                                    throw new IOException("Broken page");
+                                                }
+                                                return pageIndex;
+                                            },
+                                            (pageIndex, result) -> {}));
+
+            assertEquals("Broken page", failure.getMessage());
+        }
+    }
+}
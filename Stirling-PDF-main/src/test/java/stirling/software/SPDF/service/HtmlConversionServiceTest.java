@@ -0,0 +1,140 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import stirling.software.SPDF.utils.CheckProgramInstall;
+
+public class HtmlConversionServiceTest {
+
+    // Answers like the real worker; the "PDF" is the page, its stylesheet and the worker's pid
+    private static final String FAKE_WORKER =
+            String.join(
+                    "\n",
+                    "import json, os, sys",
+                    "from urllib.parse import urlparse",
+                    "for line in sys.stdin:",
+                    "    request = json.loads(line)",
+                    "    html = open(request['input'], encoding='utf-8').read()",
+                    "    if 'FAIL' in html:",
+                    "        print(json.dumps({'ok': False, 'error': 'broken page'}), flush=True)",
+                    "        continue",
+                    "    css = os.path.join(urlparse(request['base_url']).path, 'style.css')",
+                    "    style = ''",
+                    "    if os.path.exists(css):",
+                    "        style = open(css).read() + '@' + os.path.realpath(css)",
+                    "    with open(request['output'], 'w') as out:",
+                    "        out.write('|'.join([html, style, str(os.getpid())]))",
+                    "    print(json.dumps({'ok': True}), flush=True)",
+                    "");
+
+    @TempDir Path tempDir;
+
+    private HtmlConversionService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String python = CheckProgramInstall.getAvailablePythonCommand();
+        assumeTrue(python != null, "Python is required for the worker");
+        Path script = Files.writeString(tempDir.resolve("worker.py"), FAKE_WORKER);
+        service =
+                new HtmlConversionService(
+                        1,
+                        List.of(python, script.toString()),
+                        "weasyprint",
+                        TimeUnit.SECONDS.toMillis(30));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    private static MockMultipartFile file(String name, byte[] content) {
+        return new MockMultipartFile("fileInput", name, null, content);
+    }
+
+    private static byte[] bundle(String pageName, String page) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(baos)) {
+            zipOut.putNextEntry(new ZipEntry(pageName));
+            zipOut.write(page.getBytes(StandardCharsets.UTF_8));
+            zipOut.putNextEntry(new ZipEntry("style.css"));
+            zipOut.write("h1 { color: red }".getBytes(StandardCharsets.UTF_8));
+        }
+        return baos.toByteArray();
+    }
+
+    private List<String[]> convert(MultipartFile... files) throws IOException {
+        List<String[]> results = new ArrayList<>();
+        service.convertBatch(
+                files,
+                false,
+                (index, pdf) -> {
+                    assertEquals(results.size(), index);
+                    results.add(new String(pdf, StandardCharsets.UTF_8).split("\\|", -1));
+                });
+        return results;
+    }
+
+    @Test
+    void testBatchReusesWorkerAndSharedAssets() throws IOException {
+        List<String[]> results =
+                convert(
+                        file("page.html", "<p>plain</p>".getBytes(StandardCharsets.UTF_8)),
+                        file("notes.md", "# Notes".getBytes(StandardCharsets.UTF_8)),
+                        file("first.zip", bundle("index.html", "<p>first</p>")),
+                        file("second.zip", bundle("report.html", "<p>second</p>")));
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0)[0].contains("plain"));
+        assertTrue(results.get(1)[0].contains("<h1>Notes</h1>"));
+        assertTrue(results.get(2)[0].contains("first"));
+        assertTrue(results.get(3)[0].contains("second"));
+        // Both bundles read the stylesheet from the same stored copy
+        assertTrue(results.get(2)[1].startsWith("h1 { color: red }@"));
+        assertEquals(results.get(2)[1], results.get(3)[1]);
+        // Every document was rendered by the same process
+        for (String[] result : results) {
+            assertEquals(results.get(0)[2], result[2]);
+        }
+    }
+
+    @Test
+    void testFailedDocumentReportsWorkerError() {
+        IOException error =
+                assertThrows(
+                        IOException.class,
+                        () ->
+                                convert(
+                                        file(
+                                                "bad.html",
+                                                "<p>FAIL</p>".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(error.getMessage().contains("broken page"));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> convert(file("image.png", new byte[] {1, 2, 3})));
+    }
+}
@@ -0,0 +1,79 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LibreOfficeConverterPoolTest {
+
+    @TempDir Path tempDir;
+
+    /** Writes a stand-in for soffice that copies its inputs and logs the profile it was given. */
+    private static Path fakeSoffice(Path dir, Path profileLog) throws Exception {
+        Path script = dir.resolve("soffice");
+        Files.writeString(
+                script,
+                String.join(
+                        "\n",
+                        "#!/bin/sh",
+                        "out=",
+                        "while [ $# -gt 0 ]; do",
+                        "  case \"$1\" in",
+                        "    -env:UserInstallation=*) echo \"${1#*=}\" >> '" + profileLog + "' ;;",
+                        "    --outdir) shift; out=\"$1\" ;;",
+                        "    --convert-to) shift ;;",
+                        "    --*) ;;",
+                        "    *) cp \"$1\" \"$out/\" ;;",
+                        "  esac",
+                        "  shift",
+                        "done",
+                        ""),
+                StandardCharsets.UTF_8);
+        assertTrue(script.toFile().setExecutable(true));
+        return script;
+    }
+
+    @Test
+    void testRunsUseTheirSlotsOwnProfile() throws Exception {
+        Path profileLog = tempDir.resolve("profiles.log");
+        Path profiles = tempDir.resolve("profiles");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LibreOfficeConverterPool pool =
+                new LibreOfficeConverterPool(
+                        2, profiles, fakeSoffice(tempDir, profileLog).toString(), registry);
+
+        Path input = Files.writeString(tempDir.resolve("a.pdf"), "a");
+        for (int run = 0; run < 3; run++) {
+            Path outputDir = Files.createDirectory(tempDir.resolve("out" + run));
+            pool.convert(List.of(input), "pdf", outputDir);
+            assertEquals("a", Files.readString(outputDir.resolve("a.pdf")));
+        }
+
+        List<String> used = Files.readAllLines(profileLog);
+        assertEquals(
+                List.of(
+                        profiles.resolve("slot-0").toUri().toString(),
+                        profiles.resolve("slot-1").toUri().toString(),
+                        profiles.resolve("slot-0").toUri().toString()),
+                used);
+        assertEquals(
+                2,
+                registry.get("libreoffice.conversion")
+                        .tag("slot", "0")
+                        .tag("outcome", "success")
+                        .timer()
+                        .count());
+        assertEquals(
+                1, registry.get("libreoffice.conversion.files").tag("slot", "1").counter().count());
+        assertEquals(0, registry.get("libreoffice.slots.busy").gauge().value());
+    }
+}
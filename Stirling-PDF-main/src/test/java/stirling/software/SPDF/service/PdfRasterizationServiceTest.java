@@ -0,0 +1,152 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+
+import stirling.software.SPDF.service.PdfRasterizationService.ImageEncoding;
+
+public class PdfRasterizationServiceTest {
+
+    private final PdfRasterizationService service = new PdfRasterizationService();
+
+    private PDDocument createDocument(int pages) {
+        PDDocument document = new PDDocument();
+        for (int i = 0; i < pages; i++) {
+            document.addPage(new PDPage(i % 2 == 0 ? PDRectangle.A4 : PDRectangle.LETTER));
+        }
+        return document;
+    }
+
+    @Test
+    void testConvertToImagePdfKeepsPageOrderAndSize() throws IOException {
+        try (PDDocument source = createDocument(12);
+                PDDocument converted = service.convertToImagePdf(source)) {
+            assertEquals(12, converted.getNumberOfPages());
+            for (int i = 0; i < 12; i++) {
+                PDPage page = converted.getPage(i);
+                assertEquals(
+                        source.getPage(i).getMediaBox().getWidth(), page.getMediaBox().getWidth());
+                assertEquals(
+                        source.getPage(i).getMediaBox().getHeight(),
+                        page.getMediaBox().getHeight());
+                COSName name = page.getResources().getXObjectNames().iterator().next();
+                PDImageXObject image = (PDImageXObject) page.getResources().getXObject(name);
+                assertEquals(COSName.FLATE_DECODE, image.getCOSObject().getFilters());
+            }
+        }
+    }
+
+    @Test
+    void testRasterizeInPlaceAppliesFilter() throws IOException {
+        try (PDDocument document = createDocument(8)) {
+            service.rasterizeInPlace(
+                    document,
+                    36,
+                    ImageEncoding.JPEG,
+                    image -> {
+                        image.setRGB(0, 0, 0x000000);
+                        return image;
+                    });
+            assertEquals(8, document.getNumberOfPages());
+            for (PDPage page : document.getPages()) {
+                COSName name = page.getResources().getXObjectNames().iterator().next();
+                PDImageXObject image = (PDImageXObject) page.getResources().getXObject(name);
+                assertEquals(COSName.DCT_DECODE, image.getCOSObject().getFilters());
+                assertTrue(image.getImage().getRGB(0, 0) != 0xFFFFFFFF);
+            }
+        }
+    }
+
+    @Test
+    void testPageBoxesAndRotationAreKept() throws IOException {
+        try (PDDocument source = new PDDocument();
+                PDDocument converted = new PDDocument()) {
+            for (int rotation = 0; rotation < 360; rotation += 90) {
+                PDPage page = new PDPage(new PDRectangle(100, 50, 400, 500));
+                page.setCropBox(new PDRectangle(150, 100, 200, 300));
+                page.setRotation(rotation);
+                source.addPage(page);
+                // Dark in the lower left corner of the crop box only
+                try (PDPageContentStream contentStream = new PDPageContentStream(source, page)) {
+                    contentStream.addRect(150, 100, 50, 50);
+                    contentStream.fill();
+                }
+            }
+
+            new PdfRasterizationService(2)
+                    .rasterizeToDocument(source, converted, 72, ImageEncoding.LOSSLESS, null);
+
+            PDFRenderer sourceRenderer = new PDFRenderer(source);
+            PDFRenderer convertedRenderer = new PDFRenderer(converted);
+            for (int i = 0; i < 4; i++) {
+                PDPage original = source.getPage(i);
+                PDPage page = converted.getPage(i);
+                assertEquals(original.getMediaBox().toString(), page.getMediaBox().toString());
+                assertEquals(original.getCropBox().toString(), page.getCropBox().toString());
+                assertEquals(original.getRotation(), page.getRotation());
+
+                BufferedImage expected = sourceRenderer.renderImageWithDPI(i, 18);
+                BufferedImage actual = convertedRenderer.renderImageWithDPI(i, 18);
+                assertEquals(expected.getWidth(), actual.getWidth());
+                assertEquals(expected.getHeight(), actual.getHeight());
+                // Edges of the dark square may differ after resampling, a misplaced square not
+                int differing = 0;
+                for (int y = 0; y < expected.getHeight(); y++) {
+                    for (int x = 0; x < expected.getWidth(); x++) {
+                        int expectedGrey = expected.getRGB(x, y) & 0xFF;
+                        int actualGrey = actual.getRGB(x, y) & 0xFF;
+                        if (Math.abs(expectedGrey - actualGrey) >= 128) {
+                            differing++;
+                        }
+                    }
+                }
+                assertTrue(differing < 40, "page " + i + " differs in " + differing + " pixels");
+            }
+        }
+    }
+
+    @Test
+    void testEncryptedDocumentIsRasterizedByWorkers() throws IOException {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (PDDocument document = createDocument(12)) {
+            StandardProtectionPolicy policy =
+                    new StandardProtectionPolicy("owner", "user", new AccessPermission());
+            document.protect(policy);
+            document.save(encrypted);
+        }
+
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        try (PDDocument document = Loader.loadPDF(encrypted.toByteArray(), "user")) {
+            new PdfRasterizationService(3).rasterizeInPlace(document, 36, ImageEncoding.JPEG, null);
+            // The workers' decrypted snapshot leaves the document's own security alone
+            assertTrue(document.isEncrypted());
+            assertFalse(document.isAllSecurityToBeRemoved());
+            document.setAllSecurityToBeRemoved(true);
+            document.save(saved);
+        }
+
+        try (PDDocument reloaded = Loader.loadPDF(saved.toByteArray())) {
+            assertEquals(12, reloaded.getNumberOfPages());
+            for (PDPage page : reloaded.getPages()) {
+                assertTrue(page.getResources().getXObjectNames().iterator().hasNext());
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderDestination;
+import org.junit.jupiter.api.Test;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+public class QrCodePageScannerTest {
+
+    private static final String CONTENT = "https://stirlingpdf.com";
+
+    private BufferedImage createQrImage(int size) throws WriterException {
+        BitMatrix matrix = new QRCodeWriter().encode(CONTENT, BarcodeFormat.QR_CODE, size, size);
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                image.setRGB(x, y, matrix.get(x, y) ? 0x000000 : 0xFFFFFF);
+            }
+        }
+        return image;
+    }
+
+    // A page with text and a QR code, which has to be rendered
+    private void addTextPage(PDDocument document, BufferedImage qrCode) throws IOException {
+        addTextPage(document, qrCode, 200);
+    }
+
+    private void addTextPage(PDDocument document, BufferedImage qrCode, float codeSize)
+            throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            contentStream.beginText();
+            contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+            contentStream.newLineAtOffset(50, 780);
+            contentStream.showText("Separator sheet");
+            contentStream.endText();
+            if (qrCode != null) {
+                PDImageXObject image = LosslessFactory.createFromImage(document, qrCode);
+                contentStream.drawImage(image, 150, 300, codeSize, codeSize);
+            }
+        }
+    }
+
+    // A page drawing nothing but one full page image, as scanners produce
+    private void addScannedPage(PDDocument document, BufferedImage qrCode) throws IOException {
+        BufferedImage scan = new BufferedImage(1240, 1754, BufferedImage.TYPE_BYTE_GRAY);
+        scan.getGraphics().fillRect(0, 0, scan.getWidth(), scan.getHeight());
+        scan.getGraphics().drawImage(qrCode, 400, 600, null);
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            contentStream.drawImage(
+                    LosslessFactory.createFromImage(document, scan),
+                    0,
+                    0,
+                    PDRectangle.A4.getWidth(),
+                    PDRectangle.A4.getHeight());
+        }
+    }
+
+    @Test
+    void testReadsRenderedAndScannedPages() throws Exception {
+        BufferedImage qrCode = createQrImage(300);
+        try (PDDocument document = new PDDocument()) {
+            addTextPage(document, qrCode);
+            addTextPage(document, null);
+            addScannedPage(document, qrCode);
+
+            List<String> codes = new QrCodePageScanner(1).scanPages(document);
+
+            assertEquals(CONTENT, codes.get(0));
+            assertNull(codes.get(1));
+            assertEquals(CONTENT, codes.get(2));
+        }
+    }
+
+    @Test
+    void testConcurrentScanKeepsPageOrder() throws Exception {
+        BufferedImage qrCode = createQrImage(300);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 24; i++) {
+                addTextPage(document, i % 5 == 0 ? qrCode : null);
+            }
+
+            List<String> codes = new QrCodePageScanner(3).scanPages(document);
+
+            assertEquals(24, codes.size());
+            for (int i = 0; i < 24; i++) {
+                assertEquals(i % 5 == 0 ? CONTENT : null, codes.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testSmallCodeIsReadAtDetailResolution() throws Exception {
+        BufferedImage qrCode = createQrImage(300);
+        try (PDDocument document = new PDDocument()) {
+            // Its finder patterns show at the overview resolution, but the code cannot be read
+            addTextPage(document, qrCode, 45);
+
+            List<String> codes = new QrCodePageScanner(1).scanPages(document);
+
+            assertEquals(CONTENT, codes.get(0));
+        }
+    }
+
+    @Test
+    void testPageWithoutCodeIsRenderedOnce() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        try (PDDocument document = new PDDocument()) {
+            addTextPage(document, null);
+
+            List<String> codes =
+                    new QrCodePageScanner(
+                                    1,
+                                    pdf ->
+                                            new PDFRenderer(pdf) {
+                                                @Override
+                                                public BufferedImage renderImage(
+                                                        int pageIndex,
+                                                        float scale,
+                                                        ImageType imageType,
+                                                        RenderDestination destination)
+                                                        throws IOException {
+                                                    renders.incrementAndGet();
+                                                    return super.renderImage(
+                                                            pageIndex,
+                                                            scale,
+                                                            imageType,
+                                                            destination);
+                                                }
+                                            })
+                            .scanPages(document);
+
+            assertNull(codes.get(0));
+            assertEquals(1, renders.get());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package stirling.software.SPDF.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+public class SectionSplitServiceTest {
+
+    private PDDocument createDocument(int pages) throws IOException {
+        PDDocument document = new PDDocument();
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        for (int i = 0; i < pages; i++) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                // One label near the top left corner, which only the first tile shows
+                contentStream.beginText();
+                contentStream.setFont(font, 12);
+                contentStream.newLineAtOffset(20, 800);
+                contentStream.showText("page" + (i + 1));
+                contentStream.endText();
+            }
+        }
+        return document;
+    }
+
+    private Object formOf(PDPage page) throws IOException {
+        PDResources resources = page.getResources();
+        COSName name = resources.getXObjectNames().iterator().next();
+        return resources.getXObject(name).getCOSObject();
+    }
+
+    @Test
+    void testTilesOfAPageShareOneForm() throws IOException {
+        try (PDDocument source = createDocument(3);
+                PDDocument target = new PDDocument()) {
+            new SectionSplitService(1).splitToDocument(source, target, 2, 3);
+
+            assertEquals(18, target.getNumberOfPages());
+            PDRectangle tileBox = target.getPage(0).getMediaBox();
+            assertEquals(PDRectangle.A4.getWidth() / 2, tileBox.getWidth(), 0.01);
+            assertEquals(PDRectangle.A4.getHeight() / 3, tileBox.getHeight(), 0.01);
+            for (int page = 0; page < 3; page++) {
+                Object form = formOf(target.getPage(page * 6));
+                for (int tile = 1; tile < 6; tile++) {
+                    assertSame(form, formOf(target.getPage(page * 6 + tile)));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentSplitWritesTilesInOrder() throws IOException {
+        List<String> written = new ArrayList<>();
+        List<String> firstTileText = new ArrayList<>();
+        try (PDDocument source = createDocument(9)) {
+            new SectionSplitService(2)
+                    .splitToDocuments(
+                            source,
+                            2,
+                            2,
+                            (pageIndex, tileIndex, pdf) -> {
+                                written.add(pageIndex + "_" + tileIndex);
+                                try (PDDocument tile = Loader.loadPDF(pdf)) {
+                                    assertEquals(1, tile.getNumberOfPages());
+                                    if (tileIndex == 0) {
+                                        firstTileText.add(
+                                                new PDFTextStripper().getText(tile).trim());
+                                    }
+                                }
+                            });
+        }
+
+        assertEquals(36, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals((i / 4) + "_" + (i % 4), written.get(i));
+        }
+        for (int page = 0; page < 9; page++) {
+            assertTrue(firstTileText.get(page).contains("page" + (page + 1)));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package stirling.software.SPDF.service.job;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import stirling.software.SPDF.controller.api.pipeline.UserServiceInterface;
+import stirling.software.SPDF.model.ApplicationProperties;
+import stirling.software.SPDF.utils.WebResponseUtils;
+
+class AsyncJobServiceTest {
+
+    @TempDir Path jobDirectory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private AsyncJobService service;
+
+    private String currentUser = "alice";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest()));
+        service = createService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private AsyncJobService createService() throws Exception {
+        UserServiceInterface userService = mock(UserServiceInterface.class);
+        when(userService.getCurrentUsername()).thenAnswer(invocation -> currentUser);
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getSystem().getAsyncJobs().setDirectory(jobDirectory.toString());
+        return new AsyncJobService(
+                properties,
+                objectMapper,
+                new StaticListableBeanFactory().getBeanProvider(TaskDecorator.class),
+                userService);
+    }
+
+    private String submit(AsyncJobService.JobTask task) throws Exception {
+        MockMultipartFile upload =
+                new MockMultipartFile(
+                        "fileInput", "input.pdf", "application/pdf", "input".getBytes());
+        ResponseEntity<byte[]> accepted = service.submit("test", upload, task);
+        assertEquals(HttpStatus.ACCEPTED, accepted.getStatusCode());
+        String jobId = objectMapper.readValue(accepted.getBody(), AsyncJob.class).getId();
+        assertTrue(accepted.getHeaders().getLocation().toString().endsWith(jobId));
+        return jobId;
+    }
+
+    @Test
+    void testCompletedJobKeepsResultOnDisk() throws Exception {
+        String jobId =
+                submit(
+                        input ->
+                                WebResponseUtils.bytesToWebResponse(
+                                        ("processed " + new String(input.getBytes())).getBytes(),
+                                        "output.pdf"));
+
+        AsyncJob job = service.awaitJob(jobId, Duration.ofSeconds(10)).orElseThrow();
+        assertEquals(AsyncJob.Status.COMPLETED, job.getStatus());
+        assertEquals("output.pdf", job.getResultFileName());
+        assertArrayEquals(
+                "processed input".getBytes(), Files.readAllBytes(service.getResult(jobId).get()));
+    }
+
+    @Test
+    void testFailedJobReportsError() throws Exception {
+        String jobId =
+                submit(
+                        input -> {
+                            throw new IllegalArgumentException("Input file must be a PDF");
+                        });
+
+        AsyncJob job = service.awaitJob(jobId, Duration.ofSeconds(10)).orElseThrow();
+        assertEquals(AsyncJob.Status.FAILED, job.getStatus());
+        assertEquals("Input file must be a PDF", job.getError());
+        assertTrue(service.getResult(jobId).isEmpty());
+    }
+
+    @Test
+    void testJobsSurviveRestart() throws Exception {
+        String completedId =
+                submit(input -> WebResponseUtils.bytesToWebResponse(input.getBytes(), "out.pdf"));
+        service.awaitJob(completedId, Duration.ofSeconds(10));
+
+        AsyncJob interrupted = new AsyncJob();
+        interrupted.setId("interrupted");
+        interrupted.setStatus(AsyncJob.Status.RUNNING);
+        interrupted.setCreatedAt(Instant.now());
+        new AsyncJobStore(jobDirectory, objectMapper).save(interrupted);
+
+        service.shutdown();
+        service = createService();
+
+        assertEquals(
+                AsyncJob.Status.COMPLETED, service.getJob(completedId).orElseThrow().getStatus());
+        assertTrue(service.getResult(completedId).isPresent());
+        assertEquals(
+                AsyncJob.Status.FAILED, service.getJob("interrupted").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testJobsAreOnlyVisibleToTheirOwner() throws Exception {
+        String jobId =
+                submit(input -> WebResponseUtils.bytesToWebResponse(input.getBytes(), "out.pdf"));
+        service.awaitJob(jobId, Duration.ofSeconds(10)).orElseThrow();
+
+        currentUser = "bob";
+        assertTrue(service.getJob(jobId).isEmpty());
+        assertTrue(service.awaitJob(jobId, Duration.ofMillis(1)).isEmpty());
+        assertTrue(service.getResult(jobId).isEmpty());
+        assertFalse(service.cancelOrDelete(jobId));
+
+        // The owner is kept across restarts, but never sent to clients
+        service.shutdown();
+        service = createService();
+        assertTrue(service.getJob(jobId).isEmpty());
+        currentUser = "alice";
+        AsyncJob job = service.getJob(jobId).orElseThrow();
+        assertFalse(objectMapper.writeValueAsString(job).contains("alice"));
+        assertTrue(service.cancelOrDelete(jobId));
+    }
+}
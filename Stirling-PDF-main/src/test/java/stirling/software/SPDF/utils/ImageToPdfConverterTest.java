@@ -0,0 +1,100 @@
+package stirling.software.SPDF.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+public class ImageToPdfConverterTest {
+
+    private MockMultipartFile createImage(String name, String format, int width, int height)
+            throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, format, baos);
+        return new MockMultipartFile("fileInput", name, "image/" + format, baos.toByteArray());
+    }
+
+    private PDDocument convert(String colorType, MockMultipartFile... files) throws IOException {
+        try (PDDocument doc = new PDDocument();
+                ImageToPdfConverter converter =
+                        new ImageToPdfConverter("fitDocumentToImage", false, colorType, 2)) {
+            converter.addPages(doc, files);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            doc.save(baos);
+            return Loader.loadPDF(baos.toByteArray());
+        }
+    }
+
+    private PDImageXObject firstImage(PDPage page) throws IOException {
+        PDResources resources = page.getResources();
+        COSName name = resources.getXObjectNames().iterator().next();
+        return (PDImageXObject) resources.getXObject(name);
+    }
+
+    @Test
+    void testJpegIsEmbeddedWithoutReencoding() throws IOException {
+        MockMultipartFile jpeg = createImage("photo.jpg", "jpeg", 40, 20);
+        try (PDDocument result = convert("color", jpeg)) {
+            PDImageXObject image = firstImage(result.getPage(0));
+            assertEquals(COSName.DCT_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+            try (InputStream raw = image.getCOSObject().createRawInputStream()) {
+                assertArrayEquals(jpeg.getBytes(), raw.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void testColourConversionReencodesJpeg() throws IOException {
+        MockMultipartFile jpeg = createImage("photo.jpg", "jpeg", 40, 20);
+        try (PDDocument result = convert("greyscale", jpeg)) {
+            assertInstanceOf(PDDeviceGray.class, firstImage(result.getPage(0)).getColorSpace());
+        }
+    }
+
+    @Test
+    void testPagesKeepUploadOrder() throws IOException {
+        MockMultipartFile[] files = new MockMultipartFile[5];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = createImage("image" + i + ".png", "png", 10 + i, 10);
+        }
+        try (PDDocument result = convert("color", files)) {
+            assertEquals(files.length, result.getNumberOfPages());
+            for (int i = 0; i < files.length; i++) {
+                assertEquals(10 + i, result.getPage(i).getMediaBox().getWidth());
+            }
+        }
+    }
+
+    @Test
+    void testOrientationTurnsThePage() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDImageXObject image =
+                    PDImageXObject.createFromByteArray(
+                            doc, createImage("photo.jpg", "jpeg", 40, 20).getBytes(), "photo.jpg");
+            PdfUtils.addImageToDocument(doc, image, 90, "fitDocumentToImage", false);
+
+            PDRectangle mediaBox = doc.getPage(0).getMediaBox();
+            assertEquals(20, mediaBox.getWidth());
+            assertEquals(40, mediaBox.getHeight());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package stirling.software.SPDF.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public class PDFToFileTest {
+
+    @TempDir Path tempDir;
+
+    /**
+     * Writes a stand-in for pdftohtml that names its outputs the same way: one file per page
+     * numbered within the whole document, plus an index linking the pages of the range.
+     */
+    private static Path fakePdfToHtml(Path dir) throws Exception {
+        Path script = dir.resolve("pdftohtml");
+        Files.writeString(
+                script,
+                String.join(
+                        "\n",
+                        "#!/bin/sh",
+                        "first=1; last=3; single=",
+                        "while [ $# -gt 2 ]; do",
+                        "  case \"$1\" in",
+                        "    -f) shift; first=\"$1\" ;;",
+                        "    -l) shift; last=\"$1\" ;;",
+                        "    -s) single=1 ;;",
+                        "  esac",
+                        "  shift",
+                        "done",
+                        "base=\"$2\"",
+                        "if [ -n \"$single\" ]; then",
+                        "  echo \"<html><body><p>pages $first to $last</p></body></html>\""
+                                + " > \"$base.html\"",
+                        "  exit 0",
+                        "fi",
+                        "echo '<html><body>' > \"$base.html\"",
+                        "echo '<html><body>' > \"$base\"_ind.html",
+                        "i=$first",
+                        "while [ $i -le $last ]; do",
+                        "  echo \"page $i\" > \"$base-$i.html\"",
+                        "  echo \"<a href=\\\"$base-$i.html\\\" target=\\\"contents\\\" >Page $i</a><br/>\""
+                                + " >> \"$base\"_ind.html",
+                        "  i=$((i + 1))",
+                        "done",
+                        "echo '</body></html>' >> \"$base\"_ind.html",
+                        ""),
+                StandardCharsets.UTF_8);
+        assertTrue(script.toFile().setExecutable(true));
+        return script;
+    }
+
+    private static MockMultipartFile pdf(int pages) throws Exception {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.save(baos);
+            return new MockMultipartFile(
+                    "fileInput", "report.pdf", "application/pdf", baos.toByteArray());
+        }
+    }
+
+    @Test
+    void testLongDocumentIsConvertedInPageRanges() throws Exception {
+        PDFToFile pdfToFile = new PDFToFile(2);
+        pdfToFile.pdfToHtmlCommand = fakePdfToHtml(tempDir).toString();
+
+        ResponseEntity<StreamingResponseBody> response =
+                pdfToFile.processPdfToHtml(pdf(2 * PDFToFile.MIN_PAGES_PER_RUN + 10));
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        response.getBody().writeTo(zip);
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        // Every page, one frame and one index
+        assertEquals(110 + 2, entries.size());
+        assertEquals("page 1", entries.get("report-1.html").trim());
+        assertEquals("page 110", entries.get("report-110.html").trim());
+        String index = entries.get("report_ind.html");
+        for (int page = 1; page <= 110; page++) {
+            assertTrue(index.contains(">Page " + page + "</a>"), "index links page " + page);
+        }
+        assertTrue(index.indexOf(">Page 110<") < index.indexOf("</body>"));
+    }
+
+    @Test
+    void testMarkdownOfPageRangesIsJoinedInPageOrder() throws Exception {
+        PDFToFile pdfToFile = new PDFToFile(3);
+        pdfToFile.pdfToHtmlCommand = fakePdfToHtml(tempDir).toString();
+
+        ResponseEntity<byte[]> response =
+                pdfToFile.processPdfToMarkdown(pdf(3 * PDFToFile.MIN_PAGES_PER_RUN));
+
+        String markdown = new String(response.getBody(), StandardCharsets.UTF_8);
+        int first = markdown.indexOf("pages 1 to 50");
+        int second = markdown.indexOf("pages 51 to 100");
+        int third = markdown.indexOf("pages 101 to 150");
+        assertTrue(first >= 0 && first < second && second < third, markdown);
+    }
+}
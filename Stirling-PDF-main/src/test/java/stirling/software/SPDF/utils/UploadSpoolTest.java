@@ -0,0 +1,110 @@
+package stirling.software.SPDF.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class UploadSpoolTest {
+
+    private final MockMultipartFile upload =
+            new MockMultipartFile(
+                    "fileInput",
+                    "input.pdf",
+                    "application/pdf",
+                    "%PDF-1.7 content".getBytes(StandardCharsets.UTF_8));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testUploadIsSpooledOncePerRequestAndDeletedAfterwards() throws Exception {
+        ServletRequestAttributes attributes =
+                new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        FileBackedMultipartFile onDisk = UploadSpool.onDisk(upload).orElseThrow();
+        assertSame(onDisk, UploadSpool.onDisk(upload).orElseThrow());
+        assertArrayEquals(upload.getBytes(), Files.readAllBytes(onDisk.getPath()));
+        assertEquals("input.pdf", onDisk.getOriginalFilename());
+
+        File copy = GeneralUtils.convertMultipartFileToFile(upload);
+        assertArrayEquals(upload.getBytes(), Files.readAllBytes(copy.toPath()));
+        assertTrue(copy.delete());
+        assertTrue(Files.exists(onDisk.getPath()));
+
+        attributes.requestCompleted();
+        assertFalse(Files.exists(onDisk.getPath()));
+    }
+
+    @Test
+    void testRetainedUploadOutlivesTheRequest() throws Exception {
+        ServletRequestAttributes attributes =
+                new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(attributes);
+        FileBackedMultipartFile onDisk = UploadSpool.onDisk(upload).orElseThrow();
+
+        Closeable retained = UploadSpool.retain();
+        attributes.requestCompleted();
+        assertTrue(Files.exists(onDisk.getPath()));
+
+        retained.close();
+        assertFalse(Files.exists(onDisk.getPath()));
+    }
+
+    @Test
+    void testSpoolingDoesNotCreateASession() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        ServletRequestAttributes attributes = new ServletRequestAttributes(request);
+        RequestContextHolder.setRequestAttributes(attributes);
+
+        FileBackedMultipartFile onDisk = UploadSpool.onDisk(upload).orElseThrow();
+        Closeable retained = UploadSpool.retain();
+        assertNull(request.getSession(false));
+
+        retained.close();
+        assertFalse(Files.exists(onDisk.getPath()));
+    }
+
+    @Test
+    void testNoSharedCopyOutsideRequests() throws Exception {
+        assertTrue(UploadSpool.onDisk(upload).isEmpty());
+    }
+
+    @Test
+    void testCopyKeepsContentAndHash() throws Exception {
+        Path target = Files.createTempFile("upload-copy", ".tmp");
+        try {
+            FileBackedMultipartFile copy = FileBackedMultipartFile.copyOf(upload, target);
+
+            assertArrayEquals(upload.getBytes(), copy.getBytes());
+            assertEquals(
+                    HexFormat.of()
+                            .formatHex(
+                                    FileBackedMultipartFile.sha256Digest()
+                                            .digest(upload.getBytes())),
+                    copy.getSha256());
+            assertSame(copy, UploadSpool.onDisk(copy).orElseThrow());
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package stirling.software.SPDF.utils.misc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.junit.jupiter.api.Test;
+
+public class StreamDecompressorTest {
+
+    private static byte[] pageContent(int pageNumber) {
+        return ("BT /F1 12 Tf 50 700 Td (page " + pageNumber + ") Tj ET")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private PDDocument createDocument(int pageCount) throws IOException {
+        PDDocument document = new PDDocument();
+        for (int i = 1; i <= pageCount; i++) {
+            PDPage page = new PDPage();
+            PDStream contents = new PDStream(document);
+            try (OutputStream out = contents.createOutputStream(COSName.FLATE_DECODE)) {
+                out.write(pageContent(i));
+            }
+            page.setContents(contents);
+            document.addPage(page);
+        }
+        // Reload so the objects come from the cross reference table, as for an uploaded file
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.save(baos, CompressParameters.NO_COMPRESSION);
+        document.close();
+        return Loader.loadPDF(baos.toByteArray());
+    }
+
+    private void assertDecompressed(PDDocument document) throws IOException {
+        for (int i = 0; i < document.getNumberOfPages(); i++) {
+            COSStream stream = document.getPage(i).getContentStreams().next().getCOSObject();
+            assertFalse(stream.containsKey(COSName.FILTER));
+            try (InputStream in = stream.createRawInputStream()) {
+                assertArrayEquals(pageContent(i + 1), in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void testDecompressesStreamsConcurrently() throws IOException {
+        try (PDDocument document = createDocument(20)) {
+            assertEquals(20, new StreamDecompressor(document, 4).decompressAll());
+            assertDecompressed(document);
+        }
+    }
+
+    @Test
+    void testDecompressesStreamsOnCallingThread() throws IOException {
+        try (PDDocument document = createDocument(3)) {
+            assertEquals(3, new StreamDecompressor(document, 1).decompressAll());
+            assertDecompressed(document);
+        }
+    }
+
+    @Test
+    void testCollectsEachStreamOnce() throws IOException {
+        // Pages point back to their parent, so the object graph is cyclic
+        try (PDDocument document = createDocument(5)) {
+            List<COSStream> streams = new StreamDecompressor(document).collectStreams();
+            // One content stream per page, each listed once
+            assertEquals(5, streams.size());
+        }
+    }
+}
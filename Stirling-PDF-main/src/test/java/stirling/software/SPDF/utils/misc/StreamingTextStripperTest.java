@@ -0,0 +1,67 @@
+package stirling.software.SPDF.utils.misc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+public class StreamingTextStripperTest {
+
+    private PDDocument createDocument(String... pageTexts) throws IOException {
+        PDDocument document = new PDDocument();
+        PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        for (String text : pageTexts) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                contentStream.beginText();
+                contentStream.setFont(font, 12);
+                contentStream.newLineAtOffset(50, 700);
+                contentStream.showText(text);
+                contentStream.endText();
+            }
+        }
+        return document;
+    }
+
+    @Test
+    void testVisitorCanStopEarly() throws IOException {
+        try (PDDocument document = createDocument("first page", "second page", "third page")) {
+            List<Integer> visitedPages = new ArrayList<>();
+            StreamingTextStripper stripper = new StreamingTextStripper();
+            stripper.stream(
+                    document,
+                    (pageNumber, pageText) -> {
+                        visitedPages.add(pageNumber);
+                        return pageNumber < 2;
+                    });
+
+            assertEquals(List.of(1, 2), visitedPages);
+            // The configured page range is restored for the next run
+            assertEquals(Integer.MAX_VALUE, stripper.getEndPage());
+        }
+    }
+
+    @Test
+    void testStatisticsMatchFullTextExtraction() throws IOException {
+        try (PDDocument document = createDocument("one two three", "four five", "")) {
+            TextStatistics statistics = TextStatistics.collect(document);
+            String fullText = new PDFTextStripper().getText(document);
+
+            assertEquals(fullText.length(), statistics.getCharacterCount());
+            assertEquals(5, statistics.getWordCount());
+            assertEquals(2, statistics.getLineCount());
+            // A page without text still ends with a line separator, as with getText
+            assertEquals(System.lineSeparator().length(), statistics.getPageCharacterCount(3));
+        }
+    }
+}